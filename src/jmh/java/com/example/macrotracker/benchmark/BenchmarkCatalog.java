@@ -0,0 +1,77 @@
+package com.example.macrotracker.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.macrotracker.MacrotrackerApplication;
+import com.example.macrotracker.cache.FoodCache;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.index.FoodIndexMaintainer;
+
+// Boots the application against a private in-memory H2 database and seeds it with a synthetic catalog
+final class BenchmarkCatalog {
+
+    static final String[] WORDS = { "chicken", "salmon", "potato", "rice", "broccoli", "yogurt", "oat",
+            "almond", "beef", "lentil", "apple", "banana", "cheese", "egg", "tofu", "quinoa" };
+
+    private static final int INSERT_BATCH = 5_000;
+
+    private BenchmarkCatalog() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, WebApplicationType webType, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "spring.h2.console.enabled=false",
+                // Admission control would shed load the benchmarks mean to measure
+                "macrotracker.admission.enabled=false",
+                "logging.level.root=WARN"));
+        properties.addAll(List.of(extraProperties));
+        return new SpringApplicationBuilder(MacrotrackerApplication.class)
+                .web(webType)
+                .properties(properties.toArray(String[]::new))
+                .run();
+    }
+
+    // Inserts foods 1..size with plain JDBC batches, then reloads the in-memory indexes
+    static void seed(ConfigurableApplicationContext context, int size) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int id = 1; id <= size; id++) {
+            Food food = food(id, random);
+            batch.add(new Object[] { (long) id, food.getName(), food.getNameKey(), food.getFat(),
+                    food.getCarbohydrates(), food.getProtein(), food.getCalories() });
+            if (batch.size() == INSERT_BATCH || id == size) {
+                jdbc.batchUpdate("insert into foods (id, name, name_key, fat, carbohydrates, protein, calories) "
+                        + "values (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        // Keep generated ids clear of the seeded range
+        jdbc.execute("alter sequence foods_seq restart with " + (size + 1));
+        context.getBean(FoodIndexMaintainer.class).loadIndexes();
+        context.getBean(FoodCache.class).clear();
+    }
+
+    static Food food(long id, Random random) {
+        String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+        return new Food(name,
+                round(random.nextDouble() * 40),
+                round(random.nextDouble() * 80),
+                round(random.nextDouble() * 50),
+                round(random.nextDouble() * 800));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.macrotracker.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.macrotracker.entity.Food;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// JSON serialization of Food lists as the controller returns them
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodJsonBenchmark {
+
+    @Param({ "100", "10000" })
+    public int listSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Food> foods;
+
+    @Setup
+    public void createFoods() {
+        Random random = new Random(42);
+        foods = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            Food food = BenchmarkCatalog.food(id, random);
+            food.setId(id);
+            foods.add(food);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeFoodList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(foods);
+    }
+}
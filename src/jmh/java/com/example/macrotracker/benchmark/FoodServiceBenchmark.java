@@ -0,0 +1,142 @@
+package com.example.macrotracker.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.macrotracker.dto.FoodMatch;
+import com.example.macrotracker.dto.FoodNeighbor;
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.dto.NearestFoodQuery;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.repository.FoodRepository;
+import com.example.macrotracker.service.FoodService;
+
+// Service and repository hot paths against H2 seeded with 1k, 100k and 1M foods.
+// saveFood grows the catalog while it runs; the other benchmarks do not write.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class FoodServiceBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private FoodService foodService;
+    private FoodRepository foodRepository;
+    private final AtomicLong createdFoods = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkCatalog.start("service" + catalogSize, WebApplicationType.NONE);
+        BenchmarkCatalog.seed(context, catalogSize);
+        foodService = context.getBean(FoodService.class);
+        foodRepository = context.getBean(FoodRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Food saveFood() {
+        long n = createdFoods.incrementAndGet();
+        return foodService.saveFood(new Food("benchmark food " + n, 1.0, 2.0, 3.0, 40.0));
+    }
+
+    @Benchmark
+    public Optional<Food> getFoodById() {
+        return foodService.getFoodById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Food> repositoryFindById() {
+        return foodRepository.findById(randomId());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Food> getAllFoods() {
+        return foodService.getAllFoods();
+    }
+
+    @Benchmark
+    public List<Food> searchFoodsByName() {
+        return foodService.searchFoodsByName(randomWord().substring(0, 4), 20);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Food> repositoryFindByNameContaining() {
+        return foodRepository.findByNameContainingIgnoreCase(randomWord().substring(0, 4));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Food> getFoodsByCaloriesLessThan() {
+        return foodService.getFoodsByCaloriesLessThan(8.0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Food> getFoodsByProteinRange() {
+        return foodService.getFoodsByProteinRange(30.0, 30.5);
+    }
+
+    @Benchmark
+    public List<Food> filterFoods() {
+        double minProtein = ThreadLocalRandom.current().nextInt(40);
+        return foodService.filterFoods(new MacroFilter(null, 10.0, null, null, minProtein, minProtein + 5, null, 400.0), 100);
+    }
+
+    @Benchmark
+    public List<FoodNeighbor> findNearestFoods() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        NearestFoodQuery query = new NearestFoodQuery(random.nextDouble(40), random.nextDouble(80), random.nextDouble(50),
+                null, null, null, null, null, true);
+        return foodService.findNearestFoods(query, 10);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, catalogSize + 1);
+    }
+
+    // Sampled so the report includes p99; each query word is missing one letter
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public List<FoodMatch> fuzzySearchFoods() {
+        return foodService.fuzzySearchFoods(misspelled(randomWord()) + " " + misspelled(randomWord()), null, 20);
+    }
+
+    private static String misspelled(String word) {
+        int drop = ThreadLocalRandom.current().nextInt(word.length());
+        return word.substring(0, drop) + word.substring(drop + 1);
+    }
+
+    private static String randomWord() {
+        return BenchmarkCatalog.WORDS[ThreadLocalRandom.current().nextInt(BenchmarkCatalog.WORDS.length)];
+    }
+}
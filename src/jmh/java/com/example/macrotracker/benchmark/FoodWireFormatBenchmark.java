@@ -0,0 +1,89 @@
+package com.example.macrotracker.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.macrotracker.entity.Food;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+// Food lists in each negotiable wire format. Payload sizes, raw and gzipped, are printed at setup;
+// the benchmarks measure serialization and deserialization of one list.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodWireFormatBenchmark {
+
+    private static final TypeReference<List<Food>> FOOD_LIST = new TypeReference<>() {
+    };
+
+    @Param({ "json", "cbor", "smile" })
+    public String format;
+
+    @Param({ "10000" })
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<Food> foods;
+    private byte[] payload;
+
+    @Setup
+    public void createPayload() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+        Random random = new Random(42);
+        foods = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            Food food = BenchmarkCatalog.food(id, random);
+            food.setId(id);
+            food.setVersion(0L);
+            foods.add(food);
+        }
+        payload = objectMapper.writeValueAsBytes(foods);
+        System.out.printf("%n%s: %d bytes for %d foods, %d gzipped%n", format, payload.length, listSize,
+                gzippedSize(payload));
+    }
+
+    @Benchmark
+    public byte[] serializeFoodList() throws IOException {
+        return objectMapper.writeValueAsBytes(foods);
+    }
+
+    @Benchmark
+    public List<Food> deserializeFoodList() throws IOException {
+        return objectMapper.readValue(payload, FOOD_LIST);
+    }
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.macrotracker.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.importer.ImportRow;
+import com.example.macrotracker.service.FoodImportService;
+import com.example.macrotracker.snapshot.CatalogSnapshot;
+
+// Time from a cold start until the catalog is queryable with its indexes loaded.
+// "import" is the in-memory mode: an empty database refilled through the bulk import path.
+// "snapshot" is the persistent profile: the same catalog restored from a memory-mapped snapshot.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class StartupBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "import", "snapshot" })
+    public String mode;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private int starts;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        directory = Files.createTempDirectory("macrotracker-startup");
+        Random random = new Random(42);
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(directory.resolve("foods.snapshot"), 1)) {
+            for (long id = 1; id <= catalogSize; id++) {
+                Food food = BenchmarkCatalog.food(id, random);
+                food.setId(id);
+                food.setVersion(0L);
+                writer.add(food);
+            }
+            writer.commit();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopApplication() {
+        // The in-memory database outlives the context, so drop it before the next start
+        context.getBean(JdbcTemplate.class).execute("drop all objects");
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startUntilServing() {
+        String databaseName = "startup" + mode + catalogSize + "_" + starts++;
+        if ("snapshot".equals(mode)) {
+            context = BenchmarkCatalog.start(databaseName, WebApplicationType.NONE,
+                    "macrotracker.persistence.enabled=true",
+                    "macrotracker.persistence.dir=" + directory);
+        } else {
+            context = BenchmarkCatalog.start(databaseName, WebApplicationType.NONE);
+            Random random = new Random(42);
+            Iterator<ImportRow> rows = LongStream.rangeClosed(1, catalogSize)
+                    .mapToObj(row -> ImportRow.parsed(row, BenchmarkCatalog.food(row, random)))
+                    .iterator();
+            context.getBean(FoodImportService.class).importFoods(rows);
+        }
+        return context;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.macrotracker.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Bursts of concurrent HTTP clients against thread-per-request and virtual-thread Tomcat.
+// Each invocation sends one request per client at once and waits for all of them, so the
+// sampled time is the burst's tail latency and clients / time is its throughput.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ThreadingModeBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({ "platform", "virtual" })
+    public String threading;
+
+    @Param({ "1000", "5000", "10000" })
+    public int clients;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        if ("virtual".equals(threading) && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+        context = BenchmarkCatalog.start("threading" + threading + clients, WebApplicationType.SERVLET,
+                "server.port=0",
+                "spring.threads.virtual.enabled=" + "virtual".equals(threading),
+                "spring.datasource.hikari.maximum-pool-size=" + ("virtual".equals(threading) ? 32 : 10),
+                "server.tomcat.max-connections=20000",
+                "server.tomcat.accept-count=1000");
+        BenchmarkCatalog.seed(context, CATALOG_SIZE);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/foods/";
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public int burstOfReads() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[clients];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < clients; i++) {
+            // Alternate cached reads with page reads that go to the database
+            String path = i % 2 == 0
+                    ? Long.toString(random.nextLong(1, CATALOG_SIZE + 1))
+                    : "page?limit=20";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+            responses[i] = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(ThreadingModeBenchmark::checkStatus);
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+
+    // A burst answered with errors would be timed as if it had been served
+    private static void checkStatus(HttpResponse<?> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(response.statusCode() + " from " + response.uri());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.macrotracker.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Issues one request per operation over real HTTP and reports whether the status was the expected one
+final class FoodApiClient {
+
+    private static final String[] WORDS = { "chicken", "salmon", "potato", "rice", "broccoli", "yogurt", "oat",
+            "almond", "beef", "lentil", "apple", "banana", "cheese", "egg", "tofu", "quinoa" };
+    private static final String CSV_HEADER = "name,fat,carbohydrates,protein,calories\n";
+    private static final int IMPORT_ROWS = 10;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong uniqueNames = new AtomicLong();
+
+    // Seeded foods are read and updated but never deleted, so reads of them should not 404
+    private long[] seededIds = new long[0];
+    private final ConcurrentLinkedDeque<Long> createdIds = new ConcurrentLinkedDeque<>();
+
+    FoodApiClient(String baseUrl, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+    }
+
+    // Imports the catalog through the API, then reads the ids it was given back from the CSV export
+    void seed(int catalogSize) throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < catalogSize; i++) {
+            csv.append(csvRow(random));
+        }
+        HttpResponse<String> imported = httpClient.send(request("/import")
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                .timeout(Duration.ofMinutes(10))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + imported.statusCode() + ": " + imported.body());
+        }
+
+        HttpResponse<InputStream> export = httpClient.send(request("/export?format=csv")
+                .timeout(Duration.ofMinutes(10)).build(), HttpResponse.BodyHandlers.ofInputStream());
+        List<Long> ids = new ArrayList<>(catalogSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(export.body(), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                ids.add(Long.parseLong(line.substring(0, line.indexOf(','))));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("Seeding left the catalog empty");
+        }
+        seededIds = ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    int seededCount() {
+        return seededIds.length;
+    }
+
+    // Returns the operation actually performed: a delete with nothing of its own to remove creates instead
+    Operation perform(Operation operation, ThreadLocalRandom random, Result result) throws IOException, InterruptedException {
+        switch (operation) {
+            case GET_BY_ID -> send(get("/" + seededId(random)), result, 200);
+            case CONDITIONAL_GET -> {
+                long id = seededId(random);
+                Optional<String> etag = send(get("/" + id), result, 200).headers().firstValue("ETag");
+                if (etag.isPresent()) {
+                    // Time only the revalidation, which is the request polling clients repeat
+                    send(request("/" + id).header("If-None-Match", etag.get()).GET().build(), result, 304, 200);
+                }
+            }
+            case LIST_ALL -> send(get(""), result, 200);
+            case PAGE -> send(get("/page?limit=50"), result, 200);
+            case STREAM -> send(get("/stream"), result, 200);
+            case EXPORT -> send(get("/export?format=ndjson&minProtein=" + random.nextInt(40)), result, 200);
+            case SEARCH -> send(get("/search?q=" + WORDS[random.nextInt(WORDS.length)].substring(0, 3)), result, 200);
+            case FUZZY_SEARCH -> send(get("/search/fuzzy?q=" + misspelled(random) + "%20" + misspelled(random)), result, 200);
+            case FILTER -> {
+                int minProtein = random.nextInt(40);
+                send(get("/filter?minProtein=" + minProtein + "&maxProtein=" + (minProtein + 10)
+                        + "&maxCalories=" + (200 + random.nextInt(600))), result, 200);
+            }
+            case NEAREST -> send(get("/nearest?protein=" + random.nextInt(50) + "&fat=" + random.nextInt(40)
+                    + "&carbohydrates=" + random.nextInt(80) + "&k=10"), result, 200);
+            case CREATE -> {
+                HttpResponse<String> created = send(request("")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(foodJson(random)))
+                        .build(), result, 201, 202); // 202: queued by write-behind mode
+                if (created.statusCode() == 201) {
+                    createdIds.add(idOf(created.body()));
+                }
+            }
+            case IMPORT -> {
+                StringBuilder csv = new StringBuilder(CSV_HEADER);
+                for (int i = 0; i < IMPORT_ROWS; i++) {
+                    csv.append(csvRow(random));
+                }
+                send(request("/import")
+                        .header("Content-Type", "text/csv")
+                        .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                        .build(), result, 200);
+            }
+            case UPDATE -> send(request("/" + seededId(random))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(foodJson(random)))
+                    .build(), result, 200);
+            case PATCH -> send(request("/" + seededId(random))
+                    .header("Content-Type", "application/merge-patch+json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"calories\":" + random.nextInt(900) + "}"))
+                    .build(), result, 200, 409); // 409: lost a race with another write to the same food
+            case DELETE -> {
+                Long id = createdIds.pollFirst();
+                if (id == null) {
+                    return perform(Operation.CREATE, random, result);
+                }
+                send(request("/" + id).DELETE().build(), result, 204);
+            }
+        }
+        return operation;
+    }
+
+    // Status of the last request of an operation, and whether it was one the operation expects
+    static final class Result {
+        int status;
+        boolean ok;
+        long startNanos;
+    }
+
+    private HttpResponse<String> send(HttpRequest request, Result result, int... expectedStatuses)
+            throws IOException, InterruptedException {
+        result.startNanos = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        result.status = response.statusCode();
+        result.ok = false;
+        for (int expected : expectedStatuses) {
+            result.ok |= response.statusCode() == expected;
+        }
+        return response;
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+    }
+
+    private long seededId(ThreadLocalRandom random) {
+        return seededIds[random.nextInt(seededIds.length)];
+    }
+
+    private String foodJson(ThreadLocalRandom random) {
+        return String.format(Locale.ROOT, "{\"name\":\"%s\",\"fat\":%.1f,\"carbohydrates\":%.1f,\"protein\":%.1f,\"calories\":%.1f}",
+                uniqueName(random), random.nextDouble(40), random.nextDouble(80), random.nextDouble(50), random.nextDouble(800));
+    }
+
+    // A random word with one letter dropped
+    private static String misspelled(ThreadLocalRandom random) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        int drop = random.nextInt(word.length());
+        return word.substring(0, drop) + word.substring(drop + 1);
+    }
+
+    private String csvRow(ThreadLocalRandom random) {
+        return String.format(Locale.ROOT, "%s,%.1f,%.1f,%.1f,%.1f\n", uniqueName(random),
+                random.nextDouble(40), random.nextDouble(80), random.nextDouble(50), random.nextDouble(800));
+    }
+
+    private String uniqueName(ThreadLocalRandom random) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                + uniqueNames.incrementAndGet();
+    }
+
+    private long idOf(String foodJson) throws IOException {
+        return objectMapper.readTree(foodJson).get("id").asLong();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.macrotracker.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.macrotracker.MacrotrackerApplication;
+
+// Starts the application on a random port against a private in-memory H2 database, seeds it through the API,
+// then runs each workload with closed-loop clients over real HTTP. Exits with status 1 when an SLO is missed.
+// Closed-loop clients wait for each response before sending the next request, so the latencies are
+// service times under the offered concurrency rather than response times at a fixed arrival rate.
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load(args);
+        List<String> violations = new ArrayList<>();
+        try (ConfigurableApplicationContext context = start()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            FoodApiClient client = new FoodApiClient("http://localhost:" + port + "/api/foods", config.requestTimeout());
+
+            long seedStart = System.nanoTime();
+            client.seed(config.catalogSize());
+            System.out.printf("Seeded %d foods in %d ms%n", client.seededCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+            for (Workload workload : config.workloads()) {
+                WorkloadResult result = run(workload, client, config);
+                result.print(System.out);
+                result.writeHistogram(config.reportDir());
+                violations.addAll(config.violations(result));
+            }
+        }
+
+        if (!violations.isEmpty()) {
+            System.err.println();
+            System.err.println("SLO violations:");
+            violations.forEach(violation -> System.err.println("  " + violation));
+            System.exit(1);
+        }
+        System.out.println();
+        System.out.println("All SLOs met");
+        System.exit(0);
+    }
+
+    // Admission control is off: closed-loop clients measure service time, and shed requests would count as errors
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(MacrotrackerApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "spring.h2.console.enabled=false",
+                        "macrotracker.admission.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static WorkloadResult run(Workload workload, FoodApiClient client, LoadTestConfig config)
+            throws InterruptedException {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+        RunState state = new RunState();
+
+        ExecutorService clients = Executors.newFixedThreadPool(config.clients());
+        for (int i = 0; i < config.clients(); i++) {
+            clients.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                FoodApiClient.Result result = new FoodApiClient.Result();
+                while (state.running) {
+                    Operation operation = workload.next(random);
+                    boolean ok;
+                    try {
+                        operation = client.perform(operation, random, result);
+                        ok = result.ok;
+                    } catch (IOException | RuntimeException e) {
+                        ok = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (state.measuring) {
+                        recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - result.startNanos));
+                        if (!ok) {
+                            errors.get(operation).increment();
+                        }
+                    }
+                }
+            });
+        }
+
+        System.out.printf("%nRunning %s with %d clients: %d s warm-up, %d s measured%n", workload.label(),
+                config.clients(), config.warmup().toSeconds(), config.duration().toSeconds());
+        Thread.sleep(config.warmup().toMillis());
+        state.measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(config.duration().toMillis());
+        state.measuring = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        state.running = false;
+        clients.shutdown();
+        clients.awaitTermination(config.requestTimeout().toMillis() * 2, TimeUnit.MILLISECONDS);
+
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                histograms.put(operation, histogram);
+                errorCounts.put(operation, errors.get(operation).sum());
+            }
+        });
+        return new WorkloadResult(workload, seconds, histograms, errorCounts);
+    }
+
+    private static final class RunState {
+        volatile boolean running = true;
+        volatile boolean measuring;
+    }
+}
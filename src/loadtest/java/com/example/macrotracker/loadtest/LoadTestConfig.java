@@ -0,0 +1,98 @@
+package com.example.macrotracker.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.springframework.boot.convert.DurationStyle;
+
+// loadtest.properties from the classpath, overridden by key=value arguments
+record LoadTestConfig(Properties properties) {
+
+    static LoadTestConfig load(String[] args) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream defaults = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        }
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            properties.setProperty(arg.substring(0, equals).trim(), arg.substring(equals + 1).trim());
+        }
+        return new LoadTestConfig(properties);
+    }
+
+    int catalogSize() {
+        return Integer.parseInt(required("catalog-size"));
+    }
+
+    int clients() {
+        return Integer.parseInt(required("clients"));
+    }
+
+    Duration warmup() {
+        return DurationStyle.detectAndParse(required("warmup"));
+    }
+
+    Duration duration() {
+        return DurationStyle.detectAndParse(required("duration"));
+    }
+
+    Duration requestTimeout() {
+        return DurationStyle.detectAndParse(required("request-timeout"));
+    }
+
+    Path reportDir() {
+        return Path.of(required("report-dir"));
+    }
+
+    List<Workload> workloads() {
+        return Arrays.stream(required("workloads").split(",")).map(Workload::fromLabel).toList();
+    }
+
+    // Human-readable violations of the workload's SLOs; empty when all are met
+    List<String> violations(WorkloadResult result) {
+        String prefix = "slo." + result.workload().label() + ".";
+        List<String> violations = new ArrayList<>();
+        double p99 = result.p99Millis(result.total());
+        double maxP99 = Double.parseDouble(required(prefix + "p99-ms"));
+        if (p99 > maxP99) {
+            violations.add(String.format("%s: p99 %.1f ms is above %.1f ms", result.workload().label(), p99, maxP99));
+        }
+        double minThroughput = Double.parseDouble(required(prefix + "min-throughput"));
+        if (result.throughput() < minThroughput) {
+            violations.add(String.format("%s: %.0f requests/s is below %.0f", result.workload().label(),
+                    result.throughput(), minThroughput));
+        }
+        double maxErrorRate = Double.parseDouble(required("slo.max-error-rate"));
+        if (result.errorRate() > maxErrorRate) {
+            violations.add(String.format("%s: error rate %.4f is above %.4f", result.workload().label(),
+                    result.errorRate(), maxErrorRate));
+        }
+        result.histograms().forEach((operation, histogram) -> {
+            String limit = properties.getProperty(prefix + operation.label() + ".p99-ms");
+            if (limit != null && histogram.getTotalCount() > 0 && result.p99Millis(histogram) > Double.parseDouble(limit)) {
+                violations.add(String.format("%s %s: p99 %.1f ms is above %s ms", result.workload().label(),
+                        operation.label(), result.p99Millis(histogram), limit));
+            }
+        });
+        return violations;
+    }
+
+    private String required(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing load-test setting: " + key);
+        }
+        return value.trim();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.macrotracker.loadtest;
+
+import java.util.Locale;
+
+// One kind of request against /api/foods; reads use seeded foods, deletes only remove foods the run created
+enum Operation {
+    GET_BY_ID,
+    CONDITIONAL_GET,
+    LIST_ALL,
+    PAGE,
+    STREAM,
+    EXPORT,
+    SEARCH,
+    FUZZY_SEARCH,
+    FILTER,
+    NEAREST,
+    CREATE,
+    IMPORT,
+    UPDATE,
+    PATCH,
+    DELETE;
+
+    // get-by-id, conditional-get, ...
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
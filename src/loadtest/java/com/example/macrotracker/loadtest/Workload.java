@@ -0,0 +1,64 @@
+package com.example.macrotracker.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+// Weighted operation mixes; weights are percentages
+enum Workload {
+
+    READ_HEAVY(Map.ofEntries(
+            Map.entry(Operation.GET_BY_ID, 40), Map.entry(Operation.CONDITIONAL_GET, 15), Map.entry(Operation.PAGE, 15),
+            Map.entry(Operation.SEARCH, 5), Map.entry(Operation.FILTER, 5), Map.entry(Operation.NEAREST, 5),
+            Map.entry(Operation.LIST_ALL, 1), Map.entry(Operation.STREAM, 1), Map.entry(Operation.EXPORT, 1),
+            Map.entry(Operation.CREATE, 4), Map.entry(Operation.UPDATE, 3), Map.entry(Operation.PATCH, 3),
+            Map.entry(Operation.DELETE, 2))),
+
+    WRITE_HEAVY(Map.ofEntries(
+            Map.entry(Operation.GET_BY_ID, 15), Map.entry(Operation.CONDITIONAL_GET, 5), Map.entry(Operation.PAGE, 5),
+            Map.entry(Operation.SEARCH, 3), Map.entry(Operation.FILTER, 2), Map.entry(Operation.NEAREST, 2),
+            Map.entry(Operation.CREATE, 25), Map.entry(Operation.IMPORT, 3), Map.entry(Operation.UPDATE, 15),
+            Map.entry(Operation.PATCH, 15), Map.entry(Operation.DELETE, 10))),
+
+    SEARCH_HEAVY(Map.ofEntries(
+            Map.entry(Operation.SEARCH, 25), Map.entry(Operation.FUZZY_SEARCH, 10), Map.entry(Operation.FILTER, 20), Map.entry(Operation.NEAREST, 20),
+            Map.entry(Operation.GET_BY_ID, 10), Map.entry(Operation.PAGE, 5), Map.entry(Operation.CREATE, 4),
+            Map.entry(Operation.PATCH, 3), Map.entry(Operation.UPDATE, 2), Map.entry(Operation.DELETE, 1)));
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    Workload(Map<Operation, Integer> weights) {
+        Map<Operation, Integer> ordered = new EnumMap<>(weights);
+        operations = ordered.keySet().toArray(Operation[]::new);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += ordered.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total != 100) {
+            throw new IllegalStateException(name() + " weights add up to " + total + ", not 100");
+        }
+    }
+
+    Operation next(RandomGenerator random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < operations.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    // read-heavy, write-heavy, search-heavy
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static Workload fromLabel(String label) {
+        return valueOf(label.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.macrotracker.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+// Latencies in microseconds per operation over the measured part of one workload run
+record WorkloadResult(Workload workload, double seconds, Map<Operation, Histogram> histograms,
+        Map<Operation, Long> errors) {
+
+    Histogram total() {
+        Histogram total = new Histogram(3);
+        histograms.values().forEach(total::add);
+        return total;
+    }
+
+    double throughput() {
+        return total().getTotalCount() / seconds;
+    }
+
+    double errorRate() {
+        long requests = total().getTotalCount();
+        return requests == 0 ? 0 : errors.values().stream().mapToLong(Long::longValue).sum() / (double) requests;
+    }
+
+    double p99Millis(Histogram histogram) {
+        return histogram.getValueAtPercentile(99) / 1000.0;
+    }
+
+    void print(PrintStream out) {
+        Histogram total = total();
+        out.printf("%n%s: %d requests in %.1f s = %.0f requests/s, error rate %.4f%n", workload.label(),
+                total.getTotalCount(), seconds, throughput(), errorRate());
+        out.printf("%-16s %9s %8s %9s %9s %9s %9s%n", "operation", "requests", "errors", "p50 ms", "p99 ms",
+                "p99.9 ms", "max ms");
+        histograms.forEach((operation, histogram) -> printRow(out, operation.label(), histogram,
+                errors.getOrDefault(operation, 0L)));
+        printRow(out, "all", total, errors.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    // Full percentile distribution in milliseconds, in the format HdrHistogram's plotter reads
+    void writeHistogram(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(workload.label() + ".hgrm")))) {
+            total().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errors) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        out.printf("%-16s %9d %8d %9.2f %9.2f %9.2f %9.2f%n", label, histogram.getTotalCount(), errors,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.macrotracker.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+// Concurrency limit that follows the latency the requests it admits observe (AIMD with a Vegas-style
+// congestion signal), for one endpoint. The baseline is the lowest latency over the last one to two windows;
+// when the smoothed latency exceeds it by more than the tolerated queueing delay, or a request fails with a
+// 5xx, the limit is cut by the backoff ratio, at most once per round trip. Otherwise the limit grows by about
+// one per limit's worth of completions while it is at least half used. Lower priorities may only fill part of
+// the limit, so single reads keep headroom when bulk reads of the same endpoint pile up.
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        WRITE(1.0), READ(0.9), BULK(0.5);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private static final double SMOOTHING = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final long minQueueingDelayNanos;
+    private final double backoffRatio;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inflight = new AtomicInteger();
+    // Written under the lock, read without it
+    private volatile double limit;
+    // Guarded by this
+    private final Latency latency;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance,
+            long minQueueingDelayNanos, double backoffRatio, long windowNanos) {
+        this(initialLimit, minLimit, maxLimit, latencyTolerance, minQueueingDelayNanos, backoffRatio, windowNanos,
+                System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance,
+            long minQueueingDelayNanos, double backoffRatio, long windowNanos, LongSupplier nanoClock) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.minQueueingDelayNanos = minQueueingDelayNanos;
+        this.backoffRatio = backoffRatio;
+        this.windowNanos = windowNanos;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecrease = nanoClock.getAsLong();
+        this.latency = new Latency(lastDecrease);
+    }
+
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Release without a latency sample, e.g. for responses streamed after the request thread returned
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    public void release(long latencyNanos, boolean failed) {
+        int inflightBefore = inflight.getAndDecrement();
+        sample(latencyNanos, failed, inflightBefore);
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    private synchronized void sample(long latencyNanos, boolean failed, int inflightBefore) {
+        long now = nanoClock.getAsLong();
+        latency.add(latencyNanos, now);
+
+        double next = limit;
+        if (failed || latency.queueingDelay() > Math.max(latency.baseline() * (latencyTolerance - 1), minQueueingDelayNanos)) {
+            if (now - lastDecrease >= latencyNanos) {
+                next = limit * backoffRatio;
+                lastDecrease = now;
+            }
+        } else if (inflightBefore * 2 >= limit) {
+            next = limit + 1 / limit;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private final class Latency {
+        private long windowStart;
+        private long windowMin = Long.MAX_VALUE;
+        private long previousWindowMin = Long.MAX_VALUE;
+        private double smoothed = -1;
+
+        Latency(long now) {
+            this.windowStart = now;
+        }
+
+        void add(long latencyNanos, long now) {
+            if (now - windowStart >= windowNanos) {
+                previousWindowMin = windowMin;
+                windowMin = Long.MAX_VALUE;
+                windowStart = now;
+            }
+            windowMin = Math.min(windowMin, latencyNanos);
+            smoothed = smoothed < 0 ? latencyNanos : smoothed + SMOOTHING * (latencyNanos - smoothed);
+        }
+
+        long baseline() {
+            return Math.min(windowMin, previousWindowMin);
+        }
+
+        double queueingDelay() {
+            return smoothed - baseline();
+        }
+    }
+}
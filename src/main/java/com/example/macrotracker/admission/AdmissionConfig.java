@@ -0,0 +1,77 @@
+package com.example.macrotracker.admission;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+// Admission control for /api/foods: an adaptive concurrency limit per endpoint, and per-client rate limits
+// when macrotracker.admission.rate-limit.rate is set. Off unless macrotracker.admission.enabled is true.
+@Configuration
+@ConditionalOnProperty(name = "macrotracker.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public EndpointConcurrencyLimits endpointConcurrencyLimits(MeterRegistry meterRegistry,
+            @Value("${macrotracker.admission.initial-limit:50}") int initialLimit,
+            @Value("${macrotracker.admission.min-limit:8}") int minLimit,
+            @Value("${macrotracker.admission.max-limit:400}") int maxLimit,
+            @Value("${macrotracker.admission.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${macrotracker.admission.min-queueing-delay:5ms}") Duration minQueueingDelay,
+            @Value("${macrotracker.admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${macrotracker.admission.latency-window:30s}") Duration latencyWindow,
+            @Value("${macrotracker.admission.max-endpoints:64}") int maxEndpoints) {
+        return new EndpointConcurrencyLimits(() -> new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                latencyTolerance, minQueueingDelay.toNanos(), backoffRatio, latencyWindow.toNanos()), maxEndpoints,
+                (endpoint, limiter) -> {
+                    // macrotracker.admission.limit and macrotracker.admission.inflight, tagged by endpoint
+                    Gauge.builder("macrotracker.admission.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                            .tag("endpoint", endpoint)
+                            .register(meterRegistry);
+                    Gauge.builder("macrotracker.admission.inflight", limiter, AdaptiveConcurrencyLimiter::inflight)
+                            .tag("endpoint", endpoint)
+                            .register(meterRegistry);
+                });
+    }
+
+    @Bean
+    @ConditionalOnExpression("${macrotracker.admission.rate-limit.rate:0} > 0")
+    public ClientRateLimiter clientRateLimiter(@Value("${macrotracker.admission.rate-limit.rate}") double rate,
+            @Value("${macrotracker.admission.rate-limit.burst:100}") int burst,
+            @Value("${macrotracker.admission.rate-limit.max-clients:10000}") int maxClients) {
+        return new ClientRateLimiter(rate, burst, maxClients);
+    }
+
+    // Ahead of the other /api filters, so rejected requests cost as little as possible
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(EndpointConcurrencyLimits limits,
+            ObjectProvider<ClientRateLimiter> rateLimiter, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(limits, rateLimiter.getIfAvailable(), meterRegistry));
+        registration.addUrlPatterns("/api/foods/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    // Endpoint limits are published as their endpoints are first seen; rejections are counted by the filter
+    @Bean
+    public MeterBinder admissionMetrics(ObjectProvider<ClientRateLimiter> rateLimiter) {
+        return registry -> {
+            ClientRateLimiter clients = rateLimiter.getIfAvailable();
+            if (clients != null) {
+                Gauge.builder("macrotracker.admission.rate-limit.clients", clients, ClientRateLimiter::clients)
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.macrotracker.admission;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.macrotracker.admission.AdaptiveConcurrencyLimiter.Priority;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Admits /api/foods requests under the client's rate limit and their endpoint's adaptive concurrency limit,
+// and turns the rest away at once: 429 when the client is over its rate, 503 when the endpoint is at its
+// limit, both with Retry-After. Writes may use the whole limit, single reads most of it and bulk reads and
+// imports half.
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    static final String REJECTED = "macrotracker.admission.rejected";
+
+    private final EndpointConcurrencyLimits limits;
+    // Null when per-client rate limits are off
+    private final ClientRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    public AdmissionControlFilter(EndpointConcurrencyLimits limits, ClientRateLimiter rateLimiter,
+            MeterRegistry meterRegistry) {
+        this.limits = limits;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = priority(request);
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire(request.getRemoteAddr());
+            if (waitNanos > 0) {
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, "rate", priority,
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)),
+                        "Too many requests from this client; retry later");
+                return;
+            }
+        }
+        AdaptiveConcurrencyLimiter limiter = limits.limiter(endpoint(request));
+        if (!limiter.tryAcquire(priority)) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "concurrency", priority, 1,
+                    "The server is at its concurrency limit for this endpoint; retry later");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed responses hold their slot until they complete but are not sampled
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(limiter));
+            } else {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    // Change feed subscribers stay connected indefinitely and hold no database resources
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length()).equals("/api/foods/changes/stream");
+    }
+
+    // Bulk reads return the whole catalog, unless GET /api/foods names the ids; imports write many rows in one request
+    static Priority priority(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        String method = request.getMethod();
+        if (method.equals("GET") || method.equals("HEAD")) {
+            return (path.equals("/api/foods") && request.getParameter("ids") == null)
+                    || path.equals("/api/foods/stream") || path.equals("/api/foods/export")
+                    ? Priority.BULK
+                    : Priority.READ;
+        }
+        return path.equals("/api/foods/import") ? Priority.BULK : Priority.WRITE;
+    }
+
+    // The handler's pattern is only known after dispatch, so ids (any segment with a digit) are folded into
+    // {id} instead: GET /api/foods/42 and GET /api/foods/7 share GET /api/foods/{id}
+    static String endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        StringBuilder endpoint = new StringBuilder(request.getMethod()).append(' ');
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                endpoint.append('/').append(segment.chars().anyMatch(Character::isDigit) ? "{id}" : segment);
+            }
+        }
+        return endpoint.toString();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String reason, Priority priority,
+            long retryAfterSeconds, String message) throws IOException {
+        Counter.builder(REJECTED)
+                .tag("reason", reason)
+                .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private static final class ReleaseOnCompletion implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private boolean released;
+
+        ReleaseOnCompletion(AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listeners are dropped when async processing is restarted, so stay registered
+            event.getAsyncContext().addListener(this);
+        }
+
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                limiter.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.macrotracker.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Per-client token buckets kept as the generic cell rate algorithm (GCRA): a bucket is one theoretical
+// arrival time, advanced by compare-and-set, so admitting a request takes no lock. A client may send burst
+// requests at once and rate per second after that. A bucket whose arrival time has passed is full, so idle
+// buckets are dropped when there are too many; clients beyond maxClients then share one bucket.
+public class ClientRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxClients;
+    private final LongSupplier nanoClock;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong shared;
+
+    public ClientRateLimiter(double rate, int burst, int maxClients) {
+        this(rate, burst, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(double rate, int burst, int maxClients, LongSupplier nanoClock) {
+        this.emissionIntervalNanos = (long) (1_000_000_000 / rate);
+        this.burstToleranceNanos = emissionIntervalNanos * (Math.max(burst, 1) - 1);
+        this.maxClients = maxClients;
+        this.nanoClock = nanoClock;
+        this.shared = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    // 0 when the request is admitted, otherwise the nanoseconds until the client may retry
+    public long tryAcquire(String client) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = bucket(client, now);
+        while (true) {
+            long arrival = bucket.get();
+            long start = Math.max(arrival, now);
+            if (start - now > burstToleranceNanos) {
+                return start - now - burstToleranceNanos;
+            }
+            if (bucket.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public int clients() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(String client, long now) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            buckets.values().removeIf(idle -> idle.get() - now <= 0);
+            if (buckets.size() >= maxClients) {
+                return shared;
+            }
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.macrotracker.admission;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+// One adaptive concurrency limit per endpoint, each with its own latency baseline, so a slow or
+// variable-cost endpoint (a broad /filter, a fuzzy /search) only backs off its own limit and not that of
+// cheap lookups or writes. Endpoints beyond maxEndpoints, e.g. when clients probe unknown paths, share one limit.
+public class EndpointConcurrencyLimits {
+
+    static final String OTHER = "OTHER";
+
+    private final Supplier<AdaptiveConcurrencyLimiter> factory;
+    private final int maxEndpoints;
+    private final BiConsumer<String, AdaptiveConcurrencyLimiter> onNewEndpoint;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public EndpointConcurrencyLimits(Supplier<AdaptiveConcurrencyLimiter> factory, int maxEndpoints,
+            BiConsumer<String, AdaptiveConcurrencyLimiter> onNewEndpoint) {
+        this.factory = factory;
+        this.maxEndpoints = maxEndpoints;
+        this.onNewEndpoint = onNewEndpoint;
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpoint);
+        if (limiter != null) {
+            return limiter;
+        }
+        String key = limiters.size() >= maxEndpoints ? OTHER : endpoint;
+        AdaptiveConcurrencyLimiter created = factory.get();
+        limiter = limiters.putIfAbsent(key, created);
+        if (limiter != null) {
+            return limiter;
+        }
+        onNewEndpoint.accept(key, created);
+        return created;
+    }
+
+    // Current limit by endpoint, for metrics and tests
+    public Map<String, Integer> limits() {
+        Map<String, Integer> limits = new TreeMap<>();
+        limiters.forEach((endpoint, limiter) -> limits.put(endpoint, limiter.limit()));
+        return limits;
+    }
+
+    public int inflight() {
+        return limiters.values().stream().mapToInt(AdaptiveConcurrencyLimiter::inflight).sum();
+    }
+
+    int inflight(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpoint);
+        return limiter == null ? 0 : limiter.inflight();
+    }
+}
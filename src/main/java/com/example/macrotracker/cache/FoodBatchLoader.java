@@ -0,0 +1,188 @@
+package com.example.macrotracker.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+
+// Coalesces concurrent lookups by id. A lookup of an id that is already being read waits for that read
+// instead of starting another (single flight). While a read is in progress, new lookups are gathered for up
+// to the window, or until maxBatchSize ids, and then read together in one IN query on the thread of the first;
+// a lookup that finds no read in progress is not held up.
+// Loads run on the calling threads, so the loader sees the caller's transaction and read routing.
+@Component
+public class FoodBatchLoader {
+
+    public record Stats(long requests, long coalesced, long batches, long batchedIds) {
+    }
+
+    private static final class Batch {
+        final Map<Long, CompletableFuture<Optional<Food>>> loads = new LinkedHashMap<>();
+        boolean closed;
+    }
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<Food>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger reading = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchClosed = lock.newCondition();
+    // Guarded by lock; the batch new lookups join, if one is gathering
+    private Batch open;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedIds = new LongAdder();
+
+    public FoodBatchLoader(@Value("${macrotracker.batch-loader.window:2ms}") Duration window,
+            @Value("${macrotracker.batch-loader.max-batch-size:100}") int maxBatchSize) {
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    // The loader returns the foods it found among the given ids
+    public Optional<Food> load(Long id, Function<Collection<Long>, ? extends Iterable<Food>> loader) {
+        requests.increment();
+        CompletableFuture<Optional<Food>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<Food>> existing = inFlight.putIfAbsent(id, load);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        Batch batch = enqueue(id, load);
+        if (batch != null) {
+            read(batch, loader);
+        }
+        return await(load);
+    }
+
+    // Found foods by id. Ids already being read are waited for; the rest are read straight away, in one query
+    public Map<Long, Food> loadAll(Collection<Long> ids, Function<Collection<Long>, ? extends Iterable<Food>> loader) {
+        Map<Long, CompletableFuture<Optional<Food>>> loads = new LinkedHashMap<>();
+        Batch own = new Batch();
+        for (Long id : ids) {
+            if (loads.containsKey(id)) {
+                continue;
+            }
+            requests.increment();
+            CompletableFuture<Optional<Food>> load = new CompletableFuture<>();
+            CompletableFuture<Optional<Food>> existing = inFlight.putIfAbsent(id, load);
+            if (existing != null) {
+                coalesced.increment();
+                loads.put(id, existing);
+            } else {
+                own.loads.put(id, load);
+                loads.put(id, load);
+            }
+        }
+        if (!own.loads.isEmpty()) {
+            read(own, loader);
+        }
+        Map<Long, Food> found = new HashMap<>();
+        loads.forEach((id, load) -> await(load).ifPresent(food -> found.put(id, food)));
+        return found;
+    }
+
+    // Lookups that start after a change commits must not be answered by a read that may predate it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodChanged(FoodChangedEvent event) {
+        inFlight.remove(event.foodId());
+    }
+
+    public Stats stats() {
+        return new Stats(requests.sum(), coalesced.sum(), batches.sum(), batchedIds.sum());
+    }
+
+    // Joins the gathering batch and returns null, or returns a new batch for the caller to read
+    private Batch enqueue(Long id, CompletableFuture<Optional<Food>> load) {
+        lock.lock();
+        try {
+            if (open != null) {
+                open.loads.put(id, load);
+                if (open.loads.size() >= maxBatchSize) {
+                    open.closed = true;
+                    open = null;
+                    batchClosed.signalAll();
+                }
+                return null;
+            }
+            Batch batch = new Batch();
+            batch.loads.put(id, load);
+            if (windowNanos > 0 && maxBatchSize > 1 && reading.get() > 0) {
+                open = batch;
+                long remaining = windowNanos;
+                try {
+                    while (!batch.closed && remaining > 0) {
+                        remaining = batchClosed.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                batch.closed = true;
+                if (open == batch) {
+                    open = null;
+                }
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void read(Batch batch, Function<Collection<Long>, ? extends Iterable<Food>> loader) {
+        reading.incrementAndGet();
+        batches.increment();
+        batchedIds.add(batch.loads.size());
+        try {
+            Map<Long, Food> found = new HashMap<>();
+            for (Food food : loader.apply(List.copyOf(batch.loads.keySet()))) {
+                found.put(food.getId(), food);
+            }
+            batch.loads.forEach((id, load) -> {
+                inFlight.remove(id, load);
+                load.complete(Optional.ofNullable(found.get(id)));
+            });
+        } catch (RuntimeException | Error e) {
+            batch.loads.forEach((id, load) -> {
+                inFlight.remove(id, load);
+                load.completeExceptionally(e);
+            });
+        } finally {
+            reading.decrementAndGet();
+        }
+    }
+
+    private static Optional<Food> await(CompletableFuture<Optional<Food>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
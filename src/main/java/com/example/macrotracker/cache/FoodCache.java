@@ -0,0 +1,210 @@
+package com.example.macrotracker.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+
+// Bounded read-through cache for foods by id, with separate TTLs for found and missing ids.
+// Entries are invalidated once a change to that id commits. Hits take no lock: each entry carries its own
+// expiry and last access time, and only eviction is serialized. When the cache outgrows maxSize, the least
+// recently used sixteenth is evicted in one pass, so the sort is paid once per many stores.
+@Component
+public class FoodCache {
+
+    public record Stats(long hits, long misses, long evictions, long expirations,
+            long invalidations, int size, int maxSize) {
+    }
+
+    // A null food marks a cached miss
+    private static final class Entry {
+        private final Food food;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        Entry(Food food, long expiresAt, long now) {
+            this.food = food;
+            this.expiresAt = expiresAt;
+            this.lastAccess = now;
+        }
+
+        Food food() {
+            return food;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier nanoClock;
+
+    // Held only while evicting
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation so that loads racing with a write do not cache the old row
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public FoodCache(@Value("${macrotracker.cache.max-size:10000}") int maxSize,
+            @Value("${macrotracker.cache.ttl:5m}") Duration ttl,
+            @Value("${macrotracker.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this(maxSize, ttl, negativeTtl, System::nanoTime);
+    }
+
+    FoodCache(int maxSize, Duration ttl, Duration negativeTtl, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public Optional<Food> get(Long id, Function<Long, Optional<Food>> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(id);
+        }
+        Entry entry = lookup(id);
+        if (entry != null) {
+            hits.increment();
+            return Optional.ofNullable(entry.food());
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        Optional<Food> loaded = loader.apply(id);
+        store(id, loaded.orElse(null), loadGeneration);
+        return loaded;
+    }
+
+    // Found foods by id: hits from the cache, and all misses from one call to the loader, which returns
+    // the foods it found among them
+    public Map<Long, Food> getAll(Collection<Long> ids, Function<Collection<Long>, Map<Long, Food>> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(ids);
+        }
+        Map<Long, Food> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Entry entry = lookup(id);
+            if (entry == null) {
+                missing.add(id);
+            } else if (entry.food() != null) {
+                found.put(id, entry.food());
+            }
+        }
+        hits.add(ids.size() - missing.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        misses.add(missing.size());
+        long loadGeneration = generation.get();
+        Map<Long, Food> loaded = loader.apply(missing);
+        for (Long id : missing) {
+            store(id, loaded.get(id), loadGeneration);
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    // Bumping the generation first means a racing store either sees it and drops its entry, or stored it
+    // before the removal below
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        if (entries.remove(id) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodChanged(FoodChangedEvent event) {
+        invalidate(event.foodId());
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(),
+                invalidations.sum(), entries.size(), maxSize);
+    }
+
+    private Entry lookup(Long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        if (entry.expiresAt - now <= 0) {
+            if (entries.remove(id, entry)) {
+                expirations.increment();
+            }
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry;
+    }
+
+    private void store(Long id, Food food, long loadGeneration) {
+        long ttl = food == null ? negativeTtlNanos : ttlNanos;
+        if (ttl <= 0 || generation.get() != loadGeneration) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        Entry entry = new Entry(food, now + ttl, now);
+        entries.put(id, entry);
+        if (generation.get() != loadGeneration) {
+            // An invalidation raced with the store and may have run before the put
+            entries.remove(id, entry);
+            return;
+        }
+        // A store that finds eviction under way leaves the overflow to it
+        if (entries.size() > maxSize && evictionLock.tryLock()) {
+            try {
+                evictOverflow();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        int target = maxSize - maxSize / 16;
+        int excess = entries.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<Long, Entry>> byAccess = new ArrayList<>(entries.entrySet());
+        byAccess.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess));
+        for (int i = 0; i < excess && i < byAccess.size(); i++) {
+            Map.Entry<Long, Entry> eldest = byAccess.get(i);
+            if (entries.remove(eldest.getKey(), eldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+}
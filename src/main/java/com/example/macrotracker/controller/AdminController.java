@@ -0,0 +1,80 @@
+package com.example.macrotracker.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.macrotracker.cache.FoodBatchLoader;
+import com.example.macrotracker.cache.FoodCache;
+import com.example.macrotracker.datasource.ReplicaSet;
+import com.example.macrotracker.metrics.SlowQueryLog;
+import com.example.macrotracker.metrics.SqlStatementStats;
+
+@RestController
+@RequestMapping("api/admin")
+public class AdminController {
+
+	private final FoodCache foodCache;
+	private final FoodBatchLoader foodBatchLoader;
+	private final ObjectProvider<ReplicaSet> replicaSet;
+	private final SqlStatementStats sqlStatementStats;
+	private final SlowQueryLog slowQueryLog;
+
+	public AdminController(FoodCache foodCache, FoodBatchLoader foodBatchLoader, ObjectProvider<ReplicaSet> replicaSet,
+			SqlStatementStats sqlStatementStats, SlowQueryLog slowQueryLog) {
+		this.foodCache = foodCache;
+		this.foodBatchLoader = foodBatchLoader;
+		this.replicaSet = replicaSet;
+		this.sqlStatementStats = sqlStatementStats;
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	@GetMapping("/cache")
+	public ResponseEntity<FoodCache.Stats> getCacheStats() {
+		return ResponseEntity.ok(foodCache.stats());
+	}
+
+	@DeleteMapping("/cache")
+	public ResponseEntity<Void> clearCache() {
+		foodCache.clear();
+		return ResponseEntity.noContent().build();
+	}
+
+	// Lookups by id that missed the cache, how many shared a read already in progress, and the reads made
+	@GetMapping("/cache/loader")
+	public ResponseEntity<FoodBatchLoader.Stats> getLoaderStats() {
+		return ResponseEntity.ok(foodBatchLoader.stats());
+	}
+
+	// Replication position and lag of each read replica; empty unless macrotracker.replica.enabled
+	@GetMapping("/replicas")
+	public ResponseEntity<List<ReplicaSet.Status>> getReplicaStatus() {
+		ReplicaSet replicas = replicaSet.getIfAvailable();
+		return ResponseEntity.ok(replicas == null ? List.of() : replicas.status());
+	}
+
+	// Statement shapes by total execution time, most first
+	@GetMapping("/sql")
+	public ResponseEntity<List<SqlStatementStats.QueryStats>> getSqlStats(
+			@RequestParam(defaultValue = "50") int limit) {
+		return ResponseEntity.ok(sqlStatementStats.top(Math.max(limit, 0)));
+	}
+
+	@DeleteMapping("/sql")
+	public ResponseEntity<Void> resetSqlStats() {
+		sqlStatementStats.reset();
+		return ResponseEntity.noContent().build();
+	}
+
+	// Most recent slow statements and repeated selects, newest first
+	@GetMapping("/sql/slow")
+	public ResponseEntity<List<SlowQueryLog.Entry>> getSlowQueries() {
+		return ResponseEntity.ok(slowQueryLog.recent());
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.macrotracker.controller;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.macrotracker.dto.FoodChange;
+import com.example.macrotracker.dto.FoodChanges;
+import com.example.macrotracker.feed.FoodChangeFeed;
+
+// Change feed for keeping copies of the catalog in sync: read GET /api/foods/changes for the current
+// position, copy GET /api/foods once, then follow the changes after that position
+@RestController
+@RequestMapping("api/foods/changes")
+public class FoodChangeController {
+
+	private static final int MAX_LIMIT = 10_000;
+
+	private final FoodChangeFeed changeFeed;
+	private final long streamTimeoutMillis;
+
+	public FoodChangeController(FoodChangeFeed changeFeed,
+			@Value("${macrotracker.changes.stream-timeout:30m}") Duration streamTimeout) {
+		this.changeFeed = changeFeed;
+		this.streamTimeoutMillis = streamTimeout.toMillis();
+	}
+
+	// 410 Gone when the changes after since are no longer buffered
+	@GetMapping
+	public ResponseEntity<FoodChanges> getChanges(@RequestParam(required = false) Long since,
+			@RequestParam(defaultValue = "1000") int limit) {
+		return ResponseEntity.ok(changeFeed.changesSince(since, Math.max(0, Math.min(limit, MAX_LIMIT))));
+	}
+
+	// Server-sent events with the sequence as event id, so EventSource reconnects resume with Last-Event-ID.
+	// The stream ends after the timeout, or when the client falls too far behind, and is resumed the same way.
+	@GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+			@RequestParam(required = false) Long since) {
+		SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+		FoodChangeFeed.Subscription subscription = changeFeed.subscribe(lastEventId != null ? lastEventId : since,
+				new SseSink(emitter));
+		emitter.onCompletion(subscription::cancel);
+		emitter.onTimeout(subscription::cancel);
+		emitter.onError(error -> subscription.cancel());
+		return emitter;
+	}
+
+	private static final class SseSink implements FoodChangeFeed.Sink {
+
+		private final SseEmitter emitter;
+
+		SseSink(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void send(FoodChange change) throws IOException {
+			emitter.send(SseEmitter.event()
+					.id(Long.toString(change.sequence()))
+					.name(change.type().name().toLowerCase(Locale.ROOT))
+					.data(change, MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void heartbeat() throws IOException {
+			emitter.send(SseEmitter.event().comment("keepalive"));
+		}
+
+		@Override
+		public void reset(long latestSequence) throws IOException {
+			emitter.send(SseEmitter.event()
+					.id(Long.toString(latestSequence))
+					.name("reset")
+					.data(Map.of("latestSequence", latestSequence), MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void close() {
+			emitter.complete();
+		}
+	}
+}
@@ -1,21 +1,57 @@
 package com.example.macrotracker.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.macrotracker.datasource.ReadConsistency;
+import com.example.macrotracker.dto.FoodMatch;
+import com.example.macrotracker.dto.FoodNeighbor;
+import com.example.macrotracker.dto.FoodPage;
+import com.example.macrotracker.dto.FoodPatch;
+import com.example.macrotracker.dto.FoodWriteStatus;
+import com.example.macrotracker.dto.ImportReport;
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.dto.NearestFoodQuery;
 import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exporter.FoodExportWriter;
+import com.example.macrotracker.importer.FoodImportParser;
+import com.example.macrotracker.service.FoodImportService;
 import com.example.macrotracker.service.FoodService;
+import com.example.macrotracker.service.FoodWriteBehindService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -23,40 +59,243 @@ import jakarta.validation.Valid;
 public class FoodController {
 	
 	private final FoodService foodService;
+	private final FoodImportService foodImportService;
+	private final FoodWriteBehindService foodWriteBehindService;
+	private final ObjectMapper objectMapper;
+	private final FoodImportParser importParser;
+	private final long downloadTimeoutMillis;
 	
-	public FoodController(FoodService foodService) {
+	public FoodController(FoodService foodService, FoodImportService foodImportService,
+			FoodWriteBehindService foodWriteBehindService, ObjectMapper objectMapper,
+			@Value("${macrotracker.export.timeout:30m}") Duration downloadTimeout) {
 		this.foodService = foodService;
+		this.foodImportService = foodImportService;
+		this.foodWriteBehindService = foodWriteBehindService;
+		this.objectMapper = objectMapper;
+		this.importParser = new FoodImportParser(objectMapper);
+		this.downloadTimeoutMillis = downloadTimeout.toMillis();
 	}
 	
 	@GetMapping
-	public ResponseEntity<List<Food>>getAllFoods() {
-		List<Food> foods = foodService.getAllFoods();
-		return ResponseEntity.ok(foods);
+	public ResponseEntity<List<Food>>getAllFoods(
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return catalogResponse(ifNoneMatch, accept, foodService::getAllFoods);
 	}
 	
+	// Up to 500 foods in one request, in the order asked for, e.g. ?ids=1,2,3; unknown ids are left out
+	@GetMapping(params = "ids")
+	public ResponseEntity<List<Food>> getFoodsByIds(@RequestParam List<Long> ids,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return catalogResponse(ifNoneMatch, accept, () -> foodService.getFoodsByIds(ids));
+	}
+	
+	@GetMapping("/page")
+	public ResponseEntity<FoodPage> getFoodsPage(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "50") int limit,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return catalogResponse(ifNoneMatch, accept, () -> foodService.getFoodsPage(cursor, limit));
+	}
+	
+	// Writes the catalog as one JSON array straight from a database cursor
+	@GetMapping("/stream")
+	public WebAsyncTask<Void> streamAllFoods(HttpServletResponse response) {
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		return download(response, outputStream -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+				generator.writeStartArray();
+				foodService.streamAllFoods(food -> {
+					try {
+						generator.writeObject(food);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generator.writeEndArray();
+			}
+		});
+	}
+	
+	// NDJSON or CSV export straight from a database cursor, optionally gzipped and filtered by macros
+	@GetMapping("/export")
+	public WebAsyncTask<Void> exportFoods(MacroFilter filter,
+			@RequestParam(defaultValue = "ndjson") String format, @RequestParam(defaultValue = "false") boolean gzip,
+			HttpServletResponse response) {
+		FoodExportWriter.Format exportFormat = FoodExportWriter.Format.parse(format);
+		response.setContentType(exportFormat.mediaType().toString());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"foods." + exportFormat.extension() + "\"");
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return download(response, outputStream -> {
+			OutputStream target = gzip ? new GZIPOutputStream(outputStream, 1 << 16) : outputStream;
+			try (FoodExportWriter writer = FoodExportWriter.open(exportFormat, target, objectMapper)) {
+				foodService.exportFoods(filter, food -> {
+					try {
+						writer.write(food);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		});
+	}
+	
+	// Downloads run on the async executor under their own timeout (macrotracker.export.timeout) instead of the
+	// much shorter one other async requests get
+	private WebAsyncTask<Void> download(HttpServletResponse response, StreamingResponseBody body) {
+		return new WebAsyncTask<>(downloadTimeoutMillis, () -> {
+			OutputStream outputStream = response.getOutputStream();
+			body.writeTo(outputStream);
+			outputStream.flush();
+			return null;
+		});
+	}
+	
+	@GetMapping("/search")
+	public ResponseEntity<List<Food>> searchFoods(@RequestParam("q") String query,
+			@RequestParam(defaultValue = "20") int limit,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return catalogResponse(ifNoneMatch, accept, () -> foodService.searchFoodsByName(query, limit));
+	}
+	
+	// Typo-tolerant search, closest first, e.g. ?q=chiken brest&maxDistance=1
+	@GetMapping("/search/fuzzy")
+	public ResponseEntity<List<FoodMatch>> fuzzySearchFoods(@RequestParam("q") String query,
+			@RequestParam(required = false) Integer maxDistance, @RequestParam(defaultValue = "20") int limit,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return catalogResponse(ifNoneMatch, accept, () -> foodService.fuzzySearchFoods(query, maxDistance, limit));
+	}
+	
+	// Range filter on any combination of macros, e.g. ?minProtein=20&maxCalories=300
+	@GetMapping("/filter")
+	public ResponseEntity<List<Food>> filterFoods(MacroFilter filter, @RequestParam(defaultValue = "100") int limit,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return catalogResponse(ifNoneMatch, accept, () -> foodService.filterFoods(filter, limit));
+	}
+	
+	// k nearest foods to a macro target, e.g. ?protein=30&fat=10&carbohydrates=5&k=10
+	@GetMapping("/nearest")
+	public ResponseEntity<List<FoodNeighbor>> findNearestFoods(NearestFoodQuery query,
+			@RequestParam(defaultValue = "10") int k) {
+		return ResponseEntity.ok(foodService.findNearestFoods(query, k));
+	}
+	
+	// A matching If-None-Match is answered from the version index without loading the food
 	@GetMapping("/{id}")
-	public ResponseEntity<Food> getFoodById(@PathVariable Long id) {
+	public ResponseEntity<Food> getFoodById(@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		MediaType format = WireFormatConfig.negotiate(accept);
+		if (ifNoneMatch != null && format != null) {
+			Optional<String> etag = foodService.getFoodVersion(id).map(version -> FoodETags.of(version, format));
+			if (etag.isPresent() && FoodETags.matchesNoneMatch(ifNoneMatch, etag.get())) {
+				return FoodETags.notModified(etag.get());
+			}
+		}
 		return foodService.getFoodById(id)
-				.map(ResponseEntity::ok)
+				.map(food -> FoodETags.withETag(ResponseEntity.ok(), food, format).body(food))
 				.orElse(ResponseEntity.notFound().build());
 	}
 	
 	@PostMapping
-	public ResponseEntity<Food>createFood(@Valid @RequestBody Food food) {
+	public ResponseEntity<?>createFood(@Valid @RequestBody Food food,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		if (foodWriteBehindService.isEnabled()) {
+			return submitFood(food, accept);
+		}
 		Food savedFood = foodService.saveFood(food);
-		return new ResponseEntity<>(savedFood, HttpStatus.CREATED);
+		return FoodETags.withETag(ResponseEntity.status(HttpStatus.CREATED), savedFood,
+				WireFormatConfig.negotiate(accept)).body(savedFood);
+	}
+	
+	// Write-behind mode: 201 once the create's group commits when waiting for it, otherwise 202 with a tracking id
+	private ResponseEntity<?> submitFood(Food food, String accept) {
+		FoodWriteStatus status = foodWriteBehindService.submit(food);
+		Optional<Food> committed = foodWriteBehindService.awaitCommit(status.trackingId());
+		if (committed.isPresent()) {
+			return FoodETags.withETag(ResponseEntity.status(HttpStatus.CREATED), committed.get(),
+					WireFormatConfig.negotiate(accept)).body(committed.get());
+		}
+		return ResponseEntity.accepted()
+				.location(URI.create("/api/foods/writes/" + status.trackingId()))
+				.body(status);
+	}
+	
+	@GetMapping("/writes/{trackingId}")
+	public ResponseEntity<FoodWriteStatus> getWriteStatus(@PathVariable String trackingId) {
+		return foodWriteBehindService.getStatus(trackingId)
+				.map(ResponseEntity::ok)
+				.orElse(ResponseEntity.notFound().build());
+	}
+	
+	// Bulk import from a raw JSON array, NDJSON or CSV request body
+	@PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_NDJSON_VALUE, "text/csv" })
+	public ResponseEntity<ImportReport> importFoods(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			HttpServletRequest request) throws IOException {
+		try (InputStream body = request.getInputStream()) {
+			return ResponseEntity.ok(foodImportService.importFoods(
+					importParser.parse(MediaType.parseMediaType(contentType), body)));
+		}
+	}
+	
+	// Bulk import from an uploaded file; the format follows the file extension or part content type
+	@PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public ResponseEntity<ImportReport> importFoodsFile(@RequestPart("file") MultipartFile file) throws IOException {
+		MediaType format = FoodImportParser.detectContentType(file.getContentType(), file.getOriginalFilename());
+		try (InputStream body = file.getInputStream()) {
+			return ResponseEntity.ok(foodImportService.importFoods(importParser.parse(format, body)));
+		}
 	}
 	
 	@PutMapping("/{id}")
-	public ResponseEntity<Food>updateFood(@PathVariable long id, @Valid @RequestBody Food food) {
-		Food updatedFood = foodService.updateFood(id,  food);
-		return ResponseEntity.ok(updatedFood);
+	public ResponseEntity<Food>updateFood(@PathVariable long id, @Valid @RequestBody Food food,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		Food updatedFood = foodService.updateFood(id, food, FoodETags.expectedVersion(ifMatch).orElse(null));
+		return FoodETags.withETag(ResponseEntity.ok(), updatedFood, WireFormatConfig.negotiate(accept)).body(updatedFood);
+	}
+	
+	// JSON Merge Patch: only the fields present in the body change
+	@PatchMapping(value = "/{id}", consumes = { "application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE })
+	public ResponseEntity<Food> patchFood(@PathVariable long id, @Valid @RequestBody FoodPatch patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		Food patchedFood = foodService.patchFood(id, patch, FoodETags.expectedVersion(ifMatch).orElse(null));
+		return FoodETags.withETag(ResponseEntity.ok(), patchedFood, WireFormatConfig.negotiate(accept)).body(patchedFood);
 	}
 	
 	@DeleteMapping("/{id}")
-	public ResponseEntity<Void> deleteFood(@PathVariable Long id) {
-	    foodService.deleteFood(id);
+	public ResponseEntity<Void> deleteFood(@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+	    foodService.deleteFood(id, FoodETags.expectedVersion(ifMatch).orElse(null));
 	    return ResponseEntity.noContent().build();
 	}
 	
+	// The catalog version is read before the data, and the data from a database that has applied every write
+	// committed by then (a replica that has caught up, else the primary). A racing write can only leave the ETag
+	// older than the body (costing one extra 200 later), never newer
+	private <T> ResponseEntity<T> catalogResponse(String ifNoneMatch, String accept, Supplier<T> body) {
+		MediaType format = WireFormatConfig.negotiate(accept);
+		Optional<String> etag = format == null ? Optional.empty()
+				: foodService.getCatalogVersion().map(version -> FoodETags.ofCatalog(version, format));
+		if (etag.isEmpty()) {
+			return ResponseEntity.ok(body.get());
+		}
+		if (FoodETags.matchesNoneMatch(ifNoneMatch, etag.get())) {
+			return FoodETags.notModified(etag.get());
+		}
+		return ResponseEntity.ok()
+				.contentType(format)
+				.eTag(etag.get())
+				.varyBy(HttpHeaders.ACCEPT)
+				.body(ReadConsistency.upToDate(body));
+	}
+	
 }
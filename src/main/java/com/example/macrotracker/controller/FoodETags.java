@@ -0,0 +1,86 @@
+package com.example.macrotracker.controller;
+
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.BadRequestException;
+
+// Strong ETags for foods ("<version>") and for catalog-wide reads ("<catalog version>"). The same version
+// encoded as CBOR or Smile is a different representation, so those ETags carry the format ("<version>-cbor"),
+// and responses carrying them vary by Accept.
+final class FoodETags {
+
+    private static final String CBOR_SUFFIX = "-cbor";
+    private static final String SMILE_SUFFIX = "-smile";
+
+    private FoodETags() {
+    }
+
+    static String of(long version, MediaType format) {
+        return "\"" + version + suffix(format) + "\"";
+    }
+
+    static String ofCatalog(String catalogVersion, MediaType format) {
+        return "\"" + catalogVersion + suffix(format) + "\"";
+    }
+
+    // Writes the body in the format the ETag names; without an acceptable format Spring MVC answers 406
+    static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Food food, MediaType format) {
+        if (format == null || food.getVersion() == null) {
+            return builder;
+        }
+        return builder.contentType(format).eTag(of(food.getVersion(), format)).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    private static String suffix(MediaType format) {
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(format)) {
+            return CBOR_SUFFIX;
+        }
+        return WireFormatConfig.SMILE.equalsTypeAndSubtype(format) ? SMILE_SUFFIX : "";
+    }
+
+    // If-None-Match uses weak comparison, so W/"3" matches "3"
+    static boolean matchesNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The version an If-Match header requires, empty for no header or "*"; any format's ETag names it
+    static Optional<Long> expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return Optional.empty();
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String version = tag.substring(1, tag.length() - 1);
+            for (String suffix : new String[] { CBOR_SUFFIX, SMILE_SUFFIX }) {
+                if (version.endsWith(suffix)) {
+                    version = version.substring(0, version.length() - suffix.length());
+                }
+            }
+            try {
+                return Optional.of(Long.parseLong(version));
+            } catch (NumberFormatException e) {
+                // Fall through to the error below
+            }
+        }
+        throw new BadRequestException("If-Match must be a single strong ETag of a food, got: " + ifMatch);
+    }
+}
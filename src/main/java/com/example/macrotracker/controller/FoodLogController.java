@@ -0,0 +1,72 @@
+package com.example.macrotracker.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.macrotracker.dto.FoodLogRequest;
+import com.example.macrotracker.entity.FoodLogEntry;
+import com.example.macrotracker.entity.FoodLogRollup;
+import com.example.macrotracker.service.FoodLogService;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("api/logs")
+public class FoodLogController {
+
+	private final FoodLogService foodLogService;
+
+	public FoodLogController(FoodLogService foodLogService) {
+		this.foodLogService = foodLogService;
+	}
+
+	@PostMapping
+	public ResponseEntity<FoodLogEntry> logFood(@Valid @RequestBody FoodLogRequest request) {
+		return new ResponseEntity<>(foodLogService.logFood(request), HttpStatus.CREATED);
+	}
+
+	@GetMapping("/{id}")
+	public ResponseEntity<FoodLogEntry> getEntry(@PathVariable Long id) {
+		return foodLogService.getEntryById(id)
+				.map(ResponseEntity::ok)
+				.orElse(ResponseEntity.notFound().build());
+	}
+
+	@PutMapping("/{id}")
+	public ResponseEntity<FoodLogEntry> updateEntry(@PathVariable Long id, @Valid @RequestBody FoodLogRequest request) {
+		return ResponseEntity.ok(foodLogService.updateEntry(id, request));
+	}
+
+	@DeleteMapping("/{id}")
+	public ResponseEntity<Void> deleteEntry(@PathVariable Long id) {
+		foodLogService.deleteEntry(id);
+		return ResponseEntity.noContent().build();
+	}
+
+	@GetMapping("/daily")
+	public ResponseEntity<List<FoodLogRollup>> getDailyTotals(@RequestParam String userId,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return ResponseEntity.ok(foodLogService.getDailyTotals(userId, from, to));
+	}
+
+	@GetMapping("/weekly")
+	public ResponseEntity<List<FoodLogRollup>> getWeeklyTotals(@RequestParam String userId,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return ResponseEntity.ok(foodLogService.getWeeklyTotals(userId, from, to));
+	}
+}
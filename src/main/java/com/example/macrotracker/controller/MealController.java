@@ -0,0 +1,35 @@
+package com.example.macrotracker.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.macrotracker.dto.MealRequest;
+import com.example.macrotracker.dto.MealTotals;
+import com.example.macrotracker.service.MealService;
+
+@RestController
+@RequestMapping("api/meals")
+public class MealController {
+
+	private final MealService mealService;
+
+	public MealController(MealService mealService) {
+		this.mealService = mealService;
+	}
+
+	@PostMapping("/totals")
+	public ResponseEntity<MealTotals> totalMeal(@RequestBody MealRequest meal) {
+		return ResponseEntity.ok(mealService.totalMeal(meal));
+	}
+
+	// Many meals in one request, totalled from a single lookup of their foods
+	@PostMapping("/totals/batch")
+	public ResponseEntity<List<MealTotals>> totalMeals(@RequestBody List<MealRequest> meals) {
+		return ResponseEntity.ok(mealService.totalMeals(meals));
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.macrotracker.datasource;
+
+import java.util.function.Supplier;
+
+// Per-thread read routing state. Reads inside onPrimary always see the primary, reads inside upToDate only go
+// to replicas that have applied every write committed before them, and once a thread has committed a write its
+// later reads only go to replicas that have applied it (read-your-writes).
+// ReadConsistencyFilter resets the state after each request; without replicas none of this has any effect.
+public final class ReadConsistency {
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private ReadConsistency() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        State state = STATE.get();
+        boolean previous = state.primaryRequired;
+        state.primaryRequired = true;
+        try {
+            return work.get();
+        } finally {
+            state.primaryRequired = previous;
+        }
+    }
+
+    public static void onPrimary(Runnable work) {
+        onPrimary(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T upToDate(Supplier<T> work) {
+        State state = STATE.get();
+        boolean previous = state.upToDateRequired;
+        state.upToDateRequired = true;
+        try {
+            return work.get();
+        } finally {
+            state.upToDateRequired = previous;
+        }
+    }
+
+    static boolean isPrimaryRequired() {
+        return STATE.get().primaryRequired;
+    }
+
+    // Log position of the last write this thread committed
+    static void requireLsn(long lsn) {
+        State state = STATE.get();
+        state.requiredLsn = Math.max(state.requiredLsn, lsn);
+    }
+
+    static boolean isUpToDateRequired() {
+        return STATE.get().upToDateRequired;
+    }
+
+    static long requiredLsn() {
+        return STATE.get().requiredLsn;
+    }
+
+    static void reset() {
+        STATE.remove();
+    }
+
+    private static final class State {
+        boolean primaryRequired;
+        boolean upToDateRequired;
+        long requiredLsn;
+    }
+}
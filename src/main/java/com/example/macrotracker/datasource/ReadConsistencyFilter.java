@@ -0,0 +1,25 @@
+package com.example.macrotracker.datasource;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Read-your-writes holds for the request that wrote; pooled worker threads must not carry it into the next one
+public class ReadConsistencyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadConsistency.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadConsistency.reset();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.macrotracker.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Read-only transactions go to a replica, everything else to the primary. The routing decision needs the
+// transaction's read-only flag, so this sits behind a LazyConnectionDataSourceProxy that only fetches the
+// physical connection at the first statement, after the transaction has started.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaSet replicaSet;
+
+    public ReadWriteRoutingDataSource(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadConsistency.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        long minLsn = ReadConsistency.requiredLsn();
+        if (ReadConsistency.isUpToDateRequired()) {
+            minLsn = Math.max(minLsn, replicaSet.lastLsn());
+        }
+        String replica = replicaSet.chooseReplica(minLsn);
+        return replica == null ? PRIMARY : replica;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.macrotracker.datasource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+// One write statement executed on the primary, replayable on a replica. Prepared statements carry the
+// parameter setter calls in force at execution, one list per batch entry for batches.
+final class RecordedExecution {
+
+    // A PreparedStatement setter call such as setLong(1, 42L)
+    record ParameterCall(Method setter, Object[] args) {
+
+        void apply(PreparedStatement statement) throws SQLException {
+            try {
+                setter.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException failure) {
+                    throw failure;
+                }
+                throw new SQLException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+
+    private final String sql;
+    // Null for a plain Statement
+    private final List<List<ParameterCall>> parameterSets;
+    private final boolean batch;
+
+    private RecordedExecution(String sql, List<List<ParameterCall>> parameterSets, boolean batch) {
+        this.sql = sql;
+        this.parameterSets = parameterSets;
+        this.batch = batch;
+    }
+
+    static RecordedExecution plain(String sql) {
+        return new RecordedExecution(sql, null, false);
+    }
+
+    static RecordedExecution prepared(String sql, List<ParameterCall> parameters) {
+        return new RecordedExecution(sql, List.of(parameters), false);
+    }
+
+    static RecordedExecution preparedBatch(String sql, List<List<ParameterCall>> batch) {
+        return new RecordedExecution(sql, List.copyOf(batch), true);
+    }
+
+    // Queries, including sequence reads, change nothing a replica needs; everything else is replayed
+    static boolean isWrite(String sql) {
+        String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return !(head.startsWith("select") || head.startsWith("with") || head.startsWith("values")
+                || head.startsWith("show") || head.startsWith("explain") || head.startsWith("call"));
+    }
+
+    void replay(Connection replica) throws SQLException {
+        if (parameterSets == null) {
+            try (Statement statement = replica.createStatement()) {
+                statement.execute(sql);
+            }
+            return;
+        }
+        try (PreparedStatement statement = replica.prepareStatement(sql)) {
+            for (List<ParameterCall> parameters : parameterSets) {
+                for (ParameterCall parameter : parameters) {
+                    parameter.apply(statement);
+                }
+                if (batch) {
+                    statement.addBatch();
+                }
+            }
+            if (batch) {
+                statement.executeBatch();
+            } else {
+                statement.execute();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
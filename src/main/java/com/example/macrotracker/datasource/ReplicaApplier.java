@@ -0,0 +1,116 @@
+package com.example.macrotracker.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Applies shipped transactions to one replica, in order, each in a transaction of its own.
+// An apply delay holds every transaction back that long after its commit, to try out lagging replicas locally.
+final class ReplicaApplier {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaApplier.class);
+
+    record ShippedTransaction(long lsn, List<RecordedExecution> executions, long commitNanos) {
+    }
+
+    private final String name;
+    private final DataSource replica;
+    private final long applyDelayNanos;
+    private final BlockingQueue<ShippedTransaction> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile ShippedTransaction applying;
+    private volatile long appliedLsn;
+    private volatile boolean running = true;
+
+    ReplicaApplier(String name, DataSource replica, long applyDelayNanos) {
+        this.name = name;
+        this.replica = replica;
+        this.applyDelayNanos = applyDelayNanos;
+        this.thread = new Thread(this::run, name + "-applier");
+        this.thread.setDaemon(true);
+    }
+
+    String name() {
+        return name;
+    }
+
+    DataSource dataSource() {
+        return replica;
+    }
+
+    long appliedLsn() {
+        return appliedLsn;
+    }
+
+    // Age of the oldest transaction not applied yet
+    long millisBehind() {
+        ShippedTransaction oldest = applying;
+        if (oldest == null) {
+            oldest = queue.peek();
+        }
+        return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.commitNanos());
+    }
+
+    void enqueue(ShippedTransaction transaction) {
+        queue.add(transaction);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    // Applies what is already queued before stopping
+    void close() throws InterruptedException {
+        running = false;
+        thread.join(TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                ShippedTransaction transaction = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (transaction == null) {
+                    continue;
+                }
+                applying = transaction;
+                // Checks for shutdown while waiting, which applies the rest without delay
+                long due = transaction.commitNanos() + applyDelayNanos;
+                for (long wait = due - System.nanoTime(); wait > 0 && running; wait = due - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.sleep(Math.min(wait, TimeUnit.MILLISECONDS.toNanos(100)));
+                }
+                apply(transaction);
+                appliedLsn = transaction.lsn();
+                applying = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void apply(ShippedTransaction transaction) {
+        try (Connection connection = replica.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (RecordedExecution execution : transaction.executions()) {
+                    execution.replay(connection);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            // The replica has diverged from the primary; it keeps applying so the lag stays meaningful
+            log.error("Replica {} could not apply transaction {}: {}", name, transaction.lsn(), e.getMessage());
+        }
+    }
+}
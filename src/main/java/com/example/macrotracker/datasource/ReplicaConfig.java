@@ -0,0 +1,97 @@
+package com.example.macrotracker.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+// Read replicas: the configured datasource becomes the primary, and each replica is an embedded H2 database
+// kept in sync by replaying the primary's committed write statements. All pools take spring.datasource.hikari.
+@Configuration
+@ConditionalOnProperty(name = "macrotracker.replica.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaSet replicaSet(DataSourceProperties properties, Environment environment,
+            @Value("${macrotracker.replica.count:1}") int count,
+            @Value("${macrotracker.replica.url:jdbc:h2:mem:macrodb-replica-%d;DB_CLOSE_DELAY=-1}") String urlTemplate,
+            @Value("${macrotracker.replica.max-lag:1s}") Duration maxLag,
+            @Value("${macrotracker.replica.apply-delay:0ms}") Duration applyDelay) {
+        HikariDataSource primary = pool(properties, environment, properties.determineUrl(), "primary");
+        List<ReplicaApplier> replicas = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String name = "replica-" + i;
+            replicas.add(new ReplicaApplier(name, pool(properties, environment, String.format(urlTemplate, i), name),
+                    applyDelay.toNanos()));
+        }
+        return new ReplicaSet(primary, replicas, maxLag.toMillis());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaSet replicaSet) {
+        Map<Object, Object> targets = new HashMap<>();
+        DataSource primary = new ReplicatingDataSource(replicaSet.primary(), replicaSet);
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+        replicaSet.replicas().forEach(replica -> targets.put(replica.name(), replica.dataSource()));
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaSet);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadConsistencyFilter> readConsistencyFilter() {
+        FilterRegistrationBean<ReadConsistencyFilter> registration = new FilterRegistrationBean<>(
+                new ReadConsistencyFilter());
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    // macrotracker.replica.lag (transactions) and macrotracker.replica.lag.time (milliseconds), tagged by replica
+    @Bean
+    public MeterBinder replicaLagMetrics(ReplicaSet replicaSet) {
+        return registry -> replicaSet.replicas().forEach(replica -> {
+            Gauge.builder("macrotracker.replica.lag", replica, r -> replicaSet.lastLsn() - r.appliedLsn())
+                    .tag("replica", replica.name())
+                    .register(registry);
+            Gauge.builder("macrotracker.replica.lag.time", replica, ReplicaApplier::millisBehind)
+                    .tag("replica", replica.name())
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        });
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment, String url,
+            String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.macrotracker.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import com.example.macrotracker.datasource.ReplicaApplier.ShippedTransaction;
+
+// The primary and its replicas. Committed write transactions get consecutive log sequence numbers (LSNs);
+// a replica that has applied LSN n has every write committed up to n. Reads are spread round-robin over the
+// replicas that are recent enough for them, and fall back to the primary when none is.
+public class ReplicaSet {
+
+    public record Status(String name, long appliedLsn, long transactionsBehind, long millisBehind, boolean available) {
+    }
+
+    private final DataSource primary;
+    private final List<ReplicaApplier> replicas;
+    private final long maxLagMillis;
+    private final Object commitLock = new Object();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Written under the commit lock
+    private volatile long lastLsn;
+
+    ReplicaSet(DataSource primary, List<ReplicaApplier> replicas, long maxLagMillis) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    DataSource primary() {
+        return primary;
+    }
+
+    List<ReplicaApplier> replicas() {
+        return replicas;
+    }
+
+    Object commitLock() {
+        return commitLock;
+    }
+
+    // Caller holds the commit lock, so LSNs follow commit order
+    long ship(List<RecordedExecution> executions) {
+        long lsn = lastLsn + 1;
+        ShippedTransaction transaction = new ShippedTransaction(lsn, executions, System.nanoTime());
+        replicas.forEach(replica -> replica.enqueue(transaction));
+        lastLsn = lsn;
+        return lsn;
+    }
+
+    public long lastLsn() {
+        return lastLsn;
+    }
+
+    // Name of a replica that has applied minLsn and is within the lag limit, or null for the primary
+    String chooseReplica(long minLsn) {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaApplier replica = replicas.get((start + i) % replicas.size());
+            if (isAvailable(replica, minLsn)) {
+                return replica.name();
+            }
+        }
+        return null;
+    }
+
+    public List<Status> status() {
+        long primaryLsn = lastLsn;
+        List<Status> status = new ArrayList<>(replicas.size());
+        for (ReplicaApplier replica : replicas) {
+            long applied = replica.appliedLsn();
+            status.add(new Status(replica.name(), applied, primaryLsn - applied, replica.millisBehind(),
+                    isAvailable(replica, 0)));
+        }
+        return status;
+    }
+
+    void start() {
+        replicas.forEach(ReplicaApplier::start);
+    }
+
+    // Runs after the DataSource's users have shut down; replicas finish what was shipped first
+    void close() throws Exception {
+        for (ReplicaApplier replica : replicas) {
+            replica.close();
+            if (replica.dataSource() instanceof AutoCloseable pool) {
+                pool.close();
+            }
+        }
+        if (primary instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    private boolean isAvailable(ReplicaApplier replica, long minLsn) {
+        return replica.appliedLsn() >= minLsn && replica.millisBehind() <= maxLagMillis;
+    }
+}
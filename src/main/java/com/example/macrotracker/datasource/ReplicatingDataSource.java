@@ -0,0 +1,250 @@
+package com.example.macrotracker.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.example.macrotracker.datasource.RecordedExecution.ParameterCall;
+
+// Statement-based replication for the local replica stand-in. Connections to the primary record every write
+// statement they execute; a commit ships the transaction's statements to the replicas in commit order, a
+// rollback drops them. Commits, and autocommit writes, are serialized so the shipping order is the commit order.
+public class ReplicatingDataSource extends DelegatingDataSource {
+
+    private final ReplicaSet replicaSet;
+
+    public ReplicatingDataSource(DataSource primary, ReplicaSet replicaSet) {
+        super(primary);
+        this.replicaSet = replicaSet;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection target) throws SQLException {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                new ConnectionHandler(target));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final List<RecordedExecution> pending = new ArrayList<>();
+        private final Map<Savepoint, Integer> savepoints = new IdentityHashMap<>();
+        private boolean autoCommit;
+
+        ConnectionHandler(Connection target) throws SQLException {
+            this.target = target;
+            this.autoCommit = target.getAutoCommit();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Replicating " + target;
+                case "createStatement":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+                            new StatementHandler(this, (Statement) ReplicatingDataSource.invoke(target, method, args), null));
+                case "prepareStatement":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                            new StatementHandler(this, (PreparedStatement) ReplicatingDataSource.invoke(target, method, args),
+                                    (String) args[0]));
+                case "commit":
+                    synchronized (replicaSet.commitLock()) {
+                        target.commit();
+                        ship();
+                    }
+                    return null;
+                case "rollback":
+                    ReplicatingDataSource.invoke(target, method, args);
+                    if (args == null) {
+                        pending.clear();
+                        savepoints.clear();
+                    } else {
+                        Integer mark = savepoints.get((Savepoint) args[0]);
+                        if (mark != null) {
+                            pending.subList(mark, pending.size()).clear();
+                        }
+                    }
+                    return null;
+                case "setSavepoint": {
+                    Savepoint savepoint = (Savepoint) ReplicatingDataSource.invoke(target, method, args);
+                    savepoints.put(savepoint, pending.size());
+                    return savepoint;
+                }
+                case "releaseSavepoint":
+                    savepoints.remove((Savepoint) args[0]);
+                    return ReplicatingDataSource.invoke(target, method, args);
+                case "setAutoCommit": {
+                    boolean enable = (Boolean) args[0];
+                    // Switching autocommit on commits the open transaction
+                    if (enable && !autoCommit) {
+                        synchronized (replicaSet.commitLock()) {
+                            target.setAutoCommit(true);
+                            ship();
+                        }
+                    } else {
+                        target.setAutoCommit(enable);
+                    }
+                    autoCommit = enable;
+                    return null;
+                }
+                case "close":
+                    // Uncommitted work is rolled back by the pool
+                    pending.clear();
+                    savepoints.clear();
+                    target.close();
+                    return null;
+                default:
+                    // prepareCall and everything else pass through unrecorded
+                    return ReplicatingDataSource.invoke(target, method, args);
+            }
+        }
+
+        Object execute(Statement statement, Method method, Object[] args, List<RecordedExecution> writes)
+                throws Throwable {
+            if (writes.isEmpty()) {
+                return ReplicatingDataSource.invoke(statement, method, args);
+            }
+            if (autoCommit) {
+                synchronized (replicaSet.commitLock()) {
+                    Object result = ReplicatingDataSource.invoke(statement, method, args);
+                    pending.addAll(writes);
+                    ship();
+                    return result;
+                }
+            }
+            Object result = ReplicatingDataSource.invoke(statement, method, args);
+            pending.addAll(writes);
+            return result;
+        }
+
+        // Caller holds the commit lock
+        private void ship() {
+            if (!pending.isEmpty()) {
+                ReadConsistency.requireLsn(replicaSet.ship(List.copyOf(pending)));
+                pending.clear();
+            }
+            savepoints.clear();
+        }
+    }
+
+    // sql is null for a plain Statement, whose executions name their own SQL
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final ConnectionHandler connection;
+        private final Statement target;
+        private final String sql;
+        private final Map<Integer, ParameterCall> parameters = new TreeMap<>();
+        private final List<List<ParameterCall>> preparedBatch = new ArrayList<>();
+        private final List<String> plainBatch = new ArrayList<>();
+
+        StatementHandler(ConnectionHandler connection, Statement target, String sql) {
+            this.connection = connection;
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "clearParameters":
+                    parameters.clear();
+                    break;
+                case "addBatch":
+                    if (args == null) {
+                        preparedBatch.add(new ArrayList<>(parameters.values()));
+                    } else {
+                        plainBatch.add((String) args[0]);
+                    }
+                    break;
+                case "clearBatch":
+                    preparedBatch.clear();
+                    plainBatch.clear();
+                    break;
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return connection.execute(target, method, args, batchWrites());
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeQuery":
+                    return connection.execute(target, method, args, writes(args));
+                default:
+                    // Parameter setters take the parameter index first, e.g. setString(1, "Apple")
+                    if (sql != null && name.startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        parameters.put(index, new ParameterCall(method, args.clone()));
+                    }
+                    break;
+            }
+            return ReplicatingDataSource.invoke(target, method, args);
+        }
+
+        private List<RecordedExecution> writes(Object[] args) {
+            if (sql == null) {
+                String statementSql = (String) args[0];
+                return RecordedExecution.isWrite(statementSql) ? List.of(RecordedExecution.plain(statementSql)) : List.of();
+            }
+            return RecordedExecution.isWrite(sql)
+                    ? List.of(RecordedExecution.prepared(sql, new ArrayList<>(parameters.values())))
+                    : List.of();
+        }
+
+        // Executing a batch clears it, as it does on the driver
+        private List<RecordedExecution> batchWrites() {
+            List<RecordedExecution> writes = new ArrayList<>();
+            if (sql != null && RecordedExecution.isWrite(sql) && !preparedBatch.isEmpty()) {
+                writes.add(RecordedExecution.preparedBatch(sql, preparedBatch));
+            }
+            for (String statementSql : plainBatch) {
+                if (RecordedExecution.isWrite(statementSql)) {
+                    writes.add(RecordedExecution.plain(statementSql));
+                }
+            }
+            preparedBatch.clear();
+            plainBatch.clear();
+            return writes;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.macrotracker.dto;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent.ChangeType;
+
+// A committed change in the change feed; food is the state after the change and null for deletes
+public record FoodChange(long sequence, ChangeType type, Long foodId, Food food) {
+}
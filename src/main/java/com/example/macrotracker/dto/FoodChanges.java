@@ -0,0 +1,7 @@
+package com.example.macrotracker.dto;
+
+import java.util.List;
+
+// A page of the change feed; the next page starts after nextSequence
+public record FoodChanges(List<FoodChange> changes, long nextSequence, long latestSequence) {
+}
@@ -0,0 +1,14 @@
+package com.example.macrotracker.dto;
+
+import java.time.Instant;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record FoodLogRequest(
+        @NotBlank(message = "User id is required") String userId,
+        @NotNull(message = "Logged time is required") Instant loggedAt,
+        @NotNull(message = "Food id is required") Long foodId,
+        @NotNull(message = "Quantity in grams is required") @Positive(message = "Quantity must be greater than 0") Double grams) {
+}
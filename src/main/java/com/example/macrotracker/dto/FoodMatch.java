@@ -0,0 +1,7 @@
+package com.example.macrotracker.dto;
+
+import com.example.macrotracker.entity.Food;
+
+// distance: total edits between the query words and the closest words of the food's name
+public record FoodMatch(Food food, int distance) {
+}
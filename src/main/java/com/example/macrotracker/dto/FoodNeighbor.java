@@ -0,0 +1,6 @@
+package com.example.macrotracker.dto;
+
+import com.example.macrotracker.entity.Food;
+
+public record FoodNeighbor(Food food, double distance) {
+}
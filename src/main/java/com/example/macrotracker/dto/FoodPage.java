@@ -0,0 +1,32 @@
+package com.example.macrotracker.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.BadRequestException;
+
+// One keyset page of foods ordered by id; nextCursor is null on the last page
+public record FoodPage(List<Food> items, String nextCursor) {
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long decodeCursor(String cursor) {
+        long lastId;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            lastId = Long.parseLong(decoded);
+        } catch (IllegalArgumentException e) {
+            // Covers both malformed Base64 and NumberFormatException
+            throw new BadRequestException("Invalid cursor: " + cursor, e);
+        }
+        if (lastId < 0) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        return lastId;
+    }
+}
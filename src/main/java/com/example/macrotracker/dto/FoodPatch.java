@@ -0,0 +1,85 @@
+package com.example.macrotracker.dto;
+
+import java.util.Objects;
+
+import com.example.macrotracker.entity.Food;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+
+// JSON Merge Patch body for a food: absent fields are left alone. Every food field is required,
+// so an explicit null, which would remove the field, is rejected rather than applied. The body is bound
+// as a tree because a bound property cannot tell an explicit null from an absent field.
+public record FoodPatch(
+        @Pattern(regexp = "(?s).*\\S.*", message = "Food name is required")
+        String name,
+
+        @Min(value = 0, message = "Fat content must be greater than or equal to 0")
+        Double fat,
+
+        @Min(value = 0, message = "Carbohydrate content must be greater than or equal to 0")
+        Double carbohydrates,
+
+        @Min(value = 0, message = "Protein content must be greater than or equal to 0")
+        Double protein,
+
+        @Min(value = 0, message = "Calorie content must be greater than or equal to 0")
+        Double calories) {
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    static FoodPatch fromJson(ObjectNode body) {
+        JsonNode name = field(body, "name");
+        if (name != null && !name.isTextual()) {
+            throw new IllegalArgumentException("Field 'name' must be a string");
+        }
+        return new FoodPatch(name == null ? null : name.textValue(), number(body, "fat"),
+                number(body, "carbohydrates"), number(body, "protein"), number(body, "calories"));
+    }
+
+    // Sets only the supplied fields that differ, so unchanged ones stay clean for dirty checking.
+    // Returns whether anything changed.
+    public boolean applyTo(Food food) {
+        boolean changed = false;
+        if (name != null && !name.equals(food.getName())) {
+            food.setName(name);
+            changed = true;
+        }
+        if (fat != null && !Objects.equals(fat, food.getFat())) {
+            food.setFat(fat);
+            changed = true;
+        }
+        if (carbohydrates != null && !Objects.equals(carbohydrates, food.getCarbohydrates())) {
+            food.setCarbohydrates(carbohydrates);
+            changed = true;
+        }
+        if (protein != null && !Objects.equals(protein, food.getProtein())) {
+            food.setProtein(protein);
+            changed = true;
+        }
+        if (calories != null && !Objects.equals(calories, food.getCalories())) {
+            food.setCalories(calories);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static Double number(ObjectNode body, String name) {
+        JsonNode value = field(body, name);
+        if (value != null && !value.isNumber()) {
+            throw new IllegalArgumentException("Field '" + name + "' must be a number");
+        }
+        return value == null ? null : value.doubleValue();
+    }
+
+    // Null when the field is absent
+    private static JsonNode field(ObjectNode body, String name) {
+        JsonNode value = body.get(name);
+        if (value != null && value.isNull()) {
+            throw new IllegalArgumentException("Field '" + name + "' cannot be removed");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.macrotracker.dto;
+
+// Outcome of a queued create: foodId is set once its group commits, error once it is rejected
+public record FoodWriteStatus(String trackingId, State state, Long foodId, String error) {
+
+    public enum State {
+        PENDING, COMMITTED, FAILED
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.macrotracker.dto;
+
+import java.util.List;
+
+public record ImportReport(long accepted, long rejected, List<ChunkReport> chunks) {
+
+    public record ChunkReport(int chunk, long firstRow, long lastRow, int accepted, int rejected,
+            List<RowError> errors) {
+    }
+
+    public record RowError(long row, String name, String reason) {
+    }
+
+    public static ImportReport of(List<ChunkReport> chunks) {
+        long accepted = 0;
+        long rejected = 0;
+        for (ChunkReport chunk : chunks) {
+            accepted += chunk.accepted();
+            rejected += chunk.rejected();
+        }
+        return new ImportReport(accepted, rejected, chunks);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.macrotracker.dto;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.Macro;
+
+// Inclusive bounds per macro; a null bound leaves that side of the range open
+public record MacroFilter(Double minFat, Double maxFat, Double minCarbohydrates, Double maxCarbohydrates,
+        Double minProtein, Double maxProtein, Double minCalories, Double maxCalories) {
+
+    public static MacroFilter none() {
+        return new MacroFilter(null, null, null, null, null, null, null, null);
+    }
+
+    public Double min(Macro macro) {
+        return switch (macro) {
+            case FAT -> minFat;
+            case CARBOHYDRATES -> minCarbohydrates;
+            case PROTEIN -> minProtein;
+            case CALORIES -> minCalories;
+        };
+    }
+
+    public Double max(Macro macro) {
+        return switch (macro) {
+            case FAT -> maxFat;
+            case CARBOHYDRATES -> maxCarbohydrates;
+            case PROTEIN -> maxProtein;
+            case CALORIES -> maxCalories;
+        };
+    }
+
+    public boolean constrains(Macro macro) {
+        return min(macro) != null || max(macro) != null;
+    }
+
+    public boolean matches(Food food) {
+        for (Macro macro : Macro.values()) {
+            double value = macro.of(food);
+            Double min = min(macro);
+            Double max = max(macro);
+            if ((min != null && value < min) || (max != null && value > max)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
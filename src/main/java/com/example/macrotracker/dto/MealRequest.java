@@ -0,0 +1,10 @@
+package com.example.macrotracker.dto;
+
+import java.util.List;
+
+// A meal as food ids with gram quantities; food macros are per 100 g
+public record MealRequest(String name, List<Ingredient> ingredients) {
+
+    public record Ingredient(Long foodId, Double grams) {
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.macrotracker.dto;
+
+public record MealTotals(String name, double grams, double fat, double carbohydrates, double protein, double calories) {
+}
@@ -0,0 +1,62 @@
+package com.example.macrotracker.dto;
+
+import java.util.Locale;
+
+import com.example.macrotracker.entity.Macro;
+import com.example.macrotracker.exception.BadRequestException;
+
+// Target macros for a nearest-neighbour search with optional per-macro weights (default 1).
+// Macros without a target are ignored; normalize (default true) scales each macro by its spread.
+public record NearestFoodQuery(Double fat, Double carbohydrates, Double protein, Double calories,
+        Double fatWeight, Double carbohydratesWeight, Double proteinWeight, Double caloriesWeight, Boolean normalize) {
+
+    public double[] target() {
+        double[] target = new double[Macro.values().length];
+        for (Macro macro : Macro.values()) {
+            Double value = target(macro);
+            target[macro.ordinal()] = value == null ? 0.0 : value;
+        }
+        return target;
+    }
+
+    public double[] weights() {
+        double[] weights = new double[Macro.values().length];
+        boolean anyTarget = false;
+        for (Macro macro : Macro.values()) {
+            Double weight = weight(macro);
+            if (weight != null && !(weight >= 0)) {
+                throw new BadRequestException("Weight for " + macro.name().toLowerCase(Locale.ROOT) + " must be zero or more");
+            }
+            if (target(macro) != null) {
+                weights[macro.ordinal()] = weight == null ? 1.0 : weight;
+                anyTarget = true;
+            }
+        }
+        if (!anyTarget) {
+            throw new BadRequestException("At least one of fat, carbohydrates, protein or calories is required");
+        }
+        return weights;
+    }
+
+    public boolean isNormalized() {
+        return normalize == null || normalize;
+    }
+
+    private Double target(Macro macro) {
+        return switch (macro) {
+            case FAT -> fat;
+            case CARBOHYDRATES -> carbohydrates;
+            case PROTEIN -> protein;
+            case CALORIES -> calories;
+        };
+    }
+
+    private Double weight(Macro macro) {
+        return switch (macro) {
+            case FAT -> fatWeight;
+            case CARBOHYDRATES -> carbohydratesWeight;
+            case PROTEIN -> proteinWeight;
+            case CALORIES -> caloriesWeight;
+        };
+    }
+}
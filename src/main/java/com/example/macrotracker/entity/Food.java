@@ -1,25 +1,56 @@
 package com.example.macrotracker.entity;
 
+import java.util.Locale;
+
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+// Entity updates (PATCH) write only the columns that changed; full PUTs use a bulk UPDATE instead
 @Entity
-@Table(name = "foods")
+@DynamicUpdate
+@Table(name = "foods", uniqueConstraints = @UniqueConstraint(name = Food.NAME_KEY_CONSTRAINT, columnNames = "name_key"))
 public class Food {
+
+    public static final String NAME_KEY_CONSTRAINT = "uk_foods_name_key";
     
+    // Pooled sequence ids let Hibernate batch inserts, which IDENTITY columns prevent
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_seq")
+    @SequenceGenerator(name = "food_seq", sequenceName = "foods_seq", allocationSize = 50)
     private Long id;
 
+    // Bumped by every write; item ETags are derived from it. Rows inserted without one start at 0.
+    @Version
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @NotBlank(message = "Food name is required")
     private String name;
 
+    // Lower-cased name; the unique constraint on it makes names unique ignoring case
+    @JsonIgnore
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+
     @NotNull(message = "Fat content is required")
     @Min(value = 0, message = "Fat content must be greater than or equal to 0")
     private Double fat;
@@ -42,7 +73,7 @@ public class Food {
 
     // Constructor with all fields except id
     public Food(String name, Double fat, Double carbohydrates, Double protein, Double calories) {
-        this.name = name;
+        setName(name);
         this.fat = fat;
         this.carbohydrates = carbohydrates;
         this.protein = protein;
@@ -58,12 +89,35 @@ public class Food {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name) {
         this.name = name;
+        this.nameKey = normalizeName(name);
+    }
+
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public static String normalizeName(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateNameKey() {
+        nameKey = normalizeName(name);
     }
 
     public Double getFat() {
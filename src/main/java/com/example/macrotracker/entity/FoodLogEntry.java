@@ -0,0 +1,123 @@
+package com.example.macrotracker.entity;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+// One food eaten by a user. The macros are those of the logged quantity as of logging time,
+// so later edits to the food do not rewrite history or the rollups built from it.
+@Entity
+@Table(name = "food_log_entries", indexes = @Index(name = "ix_food_log_entries_user_time", columnList = "user_id, logged_at"))
+public class FoodLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_log_entry_seq")
+    @SequenceGenerator(name = "food_log_entry_seq", sequenceName = "food_log_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "logged_at", nullable = false)
+    private Instant loggedAt;
+
+    // The foreign key keeps a logged food from being deleted; FoodService reports that as FoodInUseException
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "food_id", nullable = false)
+    private Food food;
+
+    @Column(nullable = false)
+    private Double grams;
+
+    private Double fat;
+    private Double carbohydrates;
+    private Double protein;
+    private Double calories;
+
+    // Default constructor required by JPA
+    public FoodLogEntry() {
+    }
+
+    public FoodLogEntry(String userId, Instant loggedAt, Food food, Double grams) {
+        this.userId = userId;
+        this.loggedAt = loggedAt;
+        setFood(food, grams);
+    }
+
+    // Food macros are per 100 g
+    public void setFood(Food food, Double grams) {
+        double factor = grams / 100.0;
+        this.food = food;
+        this.grams = grams;
+        this.fat = food.getFat() * factor;
+        this.carbohydrates = food.getCarbohydrates() * factor;
+        this.protein = food.getProtein() * factor;
+        this.calories = food.getCalories() * factor;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Instant getLoggedAt() {
+        return loggedAt;
+    }
+
+    public void setLoggedAt(Instant loggedAt) {
+        this.loggedAt = loggedAt;
+    }
+
+    public Food getFood() {
+        return food;
+    }
+
+    // Reading the id of a lazy reference does not load the food
+    public Long getFoodId() {
+        return food == null ? null : food.getId();
+    }
+
+    public Double getGrams() {
+        return grams;
+    }
+
+    public Double getFat() {
+        return fat;
+    }
+
+    public Double getCarbohydrates() {
+        return carbohydrates;
+    }
+
+    public Double getProtein() {
+        return protein;
+    }
+
+    public Double getCalories() {
+        return calories;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.macrotracker.entity;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Running macro totals of one user's log entries for one day or ISO week, kept up to date on every
+// entry write. The unique key doubles as the index that serves range reads.
+@Entity
+@Table(name = "food_log_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_food_log_rollups_period",
+        columnNames = { "user_id", "period_type", "period_start" }))
+public class FoodLogRollup {
+
+    public enum Period {
+        DAY, WEEK
+    }
+
+    @JsonIgnore
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_log_rollup_seq")
+    @SequenceGenerator(name = "food_log_rollup_seq", sequenceName = "food_log_rollups_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false, length = 8)
+    private Period period;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    private long entries;
+    private double grams;
+    private double fat;
+    private double carbohydrates;
+    private double protein;
+    private double calories;
+
+    // Default constructor required by JPA
+    public FoodLogRollup() {
+    }
+
+    public FoodLogRollup(String userId, Period period, LocalDate periodStart) {
+        this.userId = userId;
+        this.period = period;
+        this.periodStart = periodStart;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public double getGrams() {
+        return grams;
+    }
+
+    public double getFat() {
+        return fat;
+    }
+
+    public double getCarbohydrates() {
+        return carbohydrates;
+    }
+
+    public double getProtein() {
+        return protein;
+    }
+
+    public double getCalories() {
+        return calories;
+    }
+}
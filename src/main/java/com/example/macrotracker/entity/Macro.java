@@ -0,0 +1,21 @@
+package com.example.macrotracker.entity;
+
+import java.util.function.ToDoubleFunction;
+
+// The four numeric nutrition columns of Food, in a fixed order usable as an array index
+public enum Macro {
+    FAT(Food::getFat),
+    CARBOHYDRATES(Food::getCarbohydrates),
+    PROTEIN(Food::getProtein),
+    CALORIES(Food::getCalories);
+
+    private final ToDoubleFunction<Food> accessor;
+
+    Macro(ToDoubleFunction<Food> accessor) {
+        this.accessor = accessor;
+    }
+
+    public double of(Food food) {
+        return accessor.applyAsDouble(food);
+    }
+}
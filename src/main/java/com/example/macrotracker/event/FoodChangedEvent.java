@@ -0,0 +1,23 @@
+package com.example.macrotracker.event;
+
+import com.example.macrotracker.entity.Food;
+
+// Published by the service write path; listeners see it after the surrounding transaction commits
+public record FoodChangedEvent(ChangeType type, Long foodId, Food food) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static FoodChangedEvent created(Food food) {
+        return new FoodChangedEvent(ChangeType.CREATED, food.getId(), food);
+    }
+
+    public static FoodChangedEvent updated(Food food) {
+        return new FoodChangedEvent(ChangeType.UPDATED, food.getId(), food);
+    }
+
+    public static FoodChangedEvent deleted(Long foodId) {
+        return new FoodChangedEvent(ChangeType.DELETED, foodId, null);
+    }
+}
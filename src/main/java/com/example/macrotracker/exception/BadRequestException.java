@@ -0,0 +1,13 @@
+package com.example.macrotracker.exception;
+
+// Invalid client input, such as a malformed cursor or an out-of-range limit; its message is returned with 400
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
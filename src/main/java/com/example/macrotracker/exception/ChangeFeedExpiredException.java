@@ -0,0 +1,10 @@
+package com.example.macrotracker.exception;
+
+// A change feed position that is no longer buffered, or from before a restart
+public class ChangeFeedExpiredException extends RuntimeException {
+
+    public ChangeFeedExpiredException(long since, long latestSequence) {
+        super("Changes after sequence " + since + " are no longer available; re-read the catalog and resume from sequence "
+                + latestSequence);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.macrotracker.exception;
+
+import java.util.Locale;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import com.example.macrotracker.entity.Food;
+
+// Raised when the case-insensitive unique constraint on food names rejects a write
+public class DuplicateFoodNameException extends IllegalArgumentException {
+
+    public DuplicateFoodNameException(String name, Throwable cause) {
+        super("A food with name '" + name + "' already exists", cause);
+    }
+
+    // True when the failure came from the name_key unique constraint rather than some other constraint
+    public static boolean isNameConflict(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && mentionsNameConstraint(violation.getConstraintName())) {
+                return true;
+            }
+            if (mentionsNameConstraint(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mentionsNameConstraint(String text) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(Food.NAME_KEY_CONSTRAINT);
+    }
+}
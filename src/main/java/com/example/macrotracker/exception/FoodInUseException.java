@@ -0,0 +1,9 @@
+package com.example.macrotracker.exception;
+
+// Raised when a food cannot be deleted because log entries still reference it
+public class FoodInUseException extends RuntimeException {
+
+    public FoodInUseException(Long id, Throwable cause) {
+        super("Food " + id + " has log entries and cannot be deleted", cause);
+    }
+}
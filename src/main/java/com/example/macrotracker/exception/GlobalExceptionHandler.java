@@ -1,7 +1,10 @@
 package com.example.macrotracker.exception;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -14,4 +17,54 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException e) {
         return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler(DuplicateFoodNameException.class)
+    public ResponseEntity<String> handleDuplicateFoodNameException(DuplicateFoodNameException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    // Log entries keep their own copy of the macros but still reference the food
+    @ExceptionHandler(FoodInUseException.class)
+    public ResponseEntity<String> handleFoodInUseException(FoodInUseException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // A write without If-Match that lost a race with another write to the same food
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException e) {
+        return new ResponseEntity<>("The food was changed by another request; retry", HttpStatus.CONFLICT);
+    }
+
+    // The client has to re-read the catalog before following the change feed again
+    @ExceptionHandler(ChangeFeedExpiredException.class)
+    public ResponseEntity<String> handleChangeFeedExpiredException(ChangeFeedExpiredException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.GONE);
+    }
+
+    // Backpressure from the write-behind queue
+    @ExceptionHandler(WriteQueueFullException.class)
+    public ResponseEntity<String> handleWriteQueueFullException(WriteQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    // Constraint violations that surface at commit time rather than inside the service
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<String> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        String message = DuplicateFoodNameException.isNameConflict(e)
+                ? "A food with that name already exists"
+                : "The request conflicts with existing data";
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<String> handleBadRequestException(BadRequestException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.macrotracker.exception;
+
+// An If-Match version that no longer matches the stored food
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(Long id, Long expectedVersion) {
+        super("Food " + id + " is no longer at version " + expectedVersion);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.macrotracker.exception;
+
+// The write-behind queue stayed full for the whole offer timeout; the client should back off and retry
+public class WriteQueueFullException extends RuntimeException {
+
+    public WriteQueueFullException(int capacity) {
+        super("The write queue is full (" + capacity + " pending creates); retry later");
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.macrotracker.exporter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.springframework.http.MediaType;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.BadRequestException;
+import com.example.macrotracker.importer.FoodImportParser;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Writes foods one at a time as NDJSON or CSV, holding no more than one output buffer.
+// The CSV header matches what FoodImportParser reads back; the extra id column is ignored on import.
+public abstract class FoodExportWriter implements Closeable {
+
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(FoodImportParser.TEXT_CSV, "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported export format: " + format + " (use ndjson or csv)");
+            }
+        }
+    }
+
+    static final String CSV_HEADER = "id,name,fat,carbohydrates,protein,calories";
+
+    public static FoodExportWriter open(Format format, OutputStream output, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(objectMapper.getFactory().createGenerator(output));
+            case CSV -> new CsvWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16));
+        };
+    }
+
+    public abstract void write(Food food) throws IOException;
+
+    private static final class NdjsonWriter extends FoodExportWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void write(Food food) throws IOException {
+            generator.writeObject(food);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvWriter extends FoodExportWriter {
+
+        private final Writer writer;
+
+        CsvWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(Food food) throws IOException {
+            writer.write(String.valueOf(food.getId()));
+            writer.write(',');
+            writer.write(quote(food.getName()));
+            writer.write(',');
+            writer.write(number(food.getFat()));
+            writer.write(',');
+            writer.write(number(food.getCarbohydrates()));
+            writer.write(',');
+            writer.write(number(food.getProtein()));
+            writer.write(',');
+            writer.write(number(food.getCalories()));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+
+        private static String number(Double value) {
+            return value == null ? "" : value.toString();
+        }
+
+        // RFC 4180: quote fields containing a separator, quote or line break and double embedded quotes
+        static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
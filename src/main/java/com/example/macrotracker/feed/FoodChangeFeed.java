@@ -0,0 +1,324 @@
+package com.example.macrotracker.feed;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.macrotracker.dto.FoodChange;
+import com.example.macrotracker.dto.FoodChanges;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.event.FoodChangedEvent.ChangeType;
+import com.example.macrotracker.exception.ChangeFeedExpiredException;
+
+import jakarta.annotation.PreDestroy;
+
+// Committed food changes numbered by sequence, kept in a ring buffer of the latest capacity changes so clients
+// can resume from the last sequence they saw. A change superseded by a later change to the same food is
+// skipped when reading, so a client catching up gets each food's latest state once.
+// Subscribers are fed by dispatcher threads, never by the committing thread. Each has its own pending changes,
+// keyed by food so rapid changes to one food coalesce; a subscriber with more than maxPending foods pending is
+// disconnected, and resumes from the buffer when it reconnects.
+@Component
+public class FoodChangeFeed {
+
+    // Transport for one subscriber; called by one dispatcher thread at a time
+    public interface Sink {
+        void send(FoodChange change) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        // The requested position is no longer buffered; the client has to re-read the catalog
+        void reset(long latestSequence) throws IOException;
+
+        // Ends the stream
+        void close();
+    }
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    private static final int DRAIN_BATCH = 100;
+
+    private final FoodChange[] ring;
+    private final int maxPending;
+    private final ScheduledExecutorService dispatcher;
+    // Guarded by this
+    private final Map<Long, Long> latestSequenceByFood = new HashMap<>();
+    private final Set<Subscriber> subscribers = new LinkedHashSet<>();
+    private long lastSequence;
+
+    public FoodChangeFeed(@Value("${macrotracker.changes.capacity:10000}") int capacity,
+            @Value("${macrotracker.changes.max-pending:1000}") int maxPending,
+            @Value("${macrotracker.changes.dispatch-threads:2}") int dispatchThreads,
+            @Value("${macrotracker.changes.heartbeat:15s}") Duration heartbeat) {
+        this.ring = new FoodChange[capacity];
+        this.maxPending = maxPending;
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = Executors.newScheduledThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "food-change-feed-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Listeners of concurrent commits can run out of commit order; a change older than the one buffered for
+    // its food is dropped, so the feed never ends on a stale state
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFoodChanged(FoodChangedEvent event) {
+        Long buffered = latestSequenceByFood.get(event.foodId());
+        if (buffered != null && isOlder(event, ring[slot(buffered)])) {
+            return;
+        }
+        FoodChange change = new FoodChange(++lastSequence, event.type(), event.foodId(), copy(event.food()));
+        int slot = slot(change.sequence());
+        FoodChange evicted = ring[slot];
+        if (evicted != null) {
+            latestSequenceByFood.remove(evicted.foodId(), evicted.sequence());
+        }
+        ring[slot] = change;
+        latestSequenceByFood.put(change.foodId(), change.sequence());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(change, true);
+        }
+    }
+
+    // At most limit changes after since, oldest first; without since, none and the current position
+    public synchronized FoodChanges changesSince(Long since, int limit) {
+        if (since == null) {
+            return new FoodChanges(List.of(), lastSequence, lastSequence);
+        }
+        if (!isBuffered(since)) {
+            throw new ChangeFeedExpiredException(since, lastSequence);
+        }
+        List<FoodChange> changes = new ArrayList<>();
+        long next = since;
+        for (long sequence = since + 1; sequence <= lastSequence && changes.size() < limit; sequence++) {
+            FoodChange change = ring[slot(sequence)];
+            if (isLatest(change)) {
+                changes.add(change);
+            }
+            next = sequence;
+        }
+        return new FoodChanges(changes, next, lastSequence);
+    }
+
+    // Streams the changes after since, then new changes as they commit; without since, only new changes
+    public Subscription subscribe(Long since, Sink sink) {
+        Subscriber subscriber = new Subscriber(sink);
+        synchronized (this) {
+            if (since != null && !isBuffered(since)) {
+                subscriber.reset(lastSequence);
+            } else if (since != null) {
+                for (long sequence = since + 1; sequence <= lastSequence; sequence++) {
+                    FoodChange change = ring[slot(sequence)];
+                    if (isLatest(change)) {
+                        subscriber.offer(change, false);
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    public synchronized int subscribers() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        List<Subscriber> open;
+        synchronized (this) {
+            open = new ArrayList<>(subscribers);
+        }
+        open.forEach(Subscriber::disconnect);
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void heartbeat() {
+        List<Subscriber> open;
+        synchronized (this) {
+            open = new ArrayList<>(subscribers);
+        }
+        open.forEach(Subscriber::heartbeatDue);
+    }
+
+    // Sequences after since are all still in the ring; a position ahead of the feed predates a restart
+    private boolean isBuffered(long since) {
+        return since >= 0 && since <= lastSequence && lastSequence - since <= ring.length;
+    }
+
+    private boolean isLatest(FoodChange change) {
+        return Long.valueOf(change.sequence()).equals(latestSequenceByFood.get(change.foodId()));
+    }
+
+    // Ids are not reused, so nothing follows a delete
+    private static boolean isOlder(FoodChangedEvent event, FoodChange buffered) {
+        if (buffered.type() == ChangeType.DELETED) {
+            return true;
+        }
+        return event.type() != ChangeType.DELETED && version(event.food()) < version(buffered.food());
+    }
+
+    private static long version(Food food) {
+        return food.getVersion() == null ? 0L : food.getVersion();
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+
+    // Listeners run after commit, but the entity may still be changed by the code that published it
+    private static Food copy(Food food) {
+        if (food == null) {
+            return null;
+        }
+        Food copy = new Food(food.getName(), food.getFat(), food.getCarbohydrates(), food.getProtein(),
+                food.getCalories());
+        copy.setId(food.getId());
+        copy.setVersion(food.getVersion());
+        return copy;
+    }
+
+    private final class Subscriber implements Subscription {
+
+        private final Sink sink;
+        // Guarded by this; in sequence order, a food moving to the end when it changes again
+        private final LinkedHashMap<Long, FoodChange> pending = new LinkedHashMap<>();
+        private long resetTo = -1;
+        private boolean heartbeatDue;
+        private boolean overflowed;
+        private boolean scheduled;
+        private boolean cancelled;
+
+        Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+
+        // The backlog a subscriber starts with is not limited; it is at most the ring's capacity
+        synchronized void offer(FoodChange change, boolean live) {
+            if (cancelled || overflowed) {
+                return;
+            }
+            pending.remove(change.foodId());
+            if (live && pending.size() >= maxPending) {
+                overflowed = true;
+                pending.clear();
+            } else {
+                pending.put(change.foodId(), change);
+            }
+            schedule();
+        }
+
+        synchronized void reset(long latestSequence) {
+            resetTo = latestSequence;
+            schedule();
+        }
+
+        synchronized void heartbeatDue() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        void disconnect() {
+            cancel();
+            sink.close();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (FoodChangeFeed.this) {
+                subscribers.remove(this);
+            }
+            synchronized (this) {
+                cancelled = true;
+                pending.clear();
+            }
+        }
+
+        // Caller holds this subscriber's lock
+        private void schedule() {
+            if (!scheduled) {
+                scheduled = true;
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    scheduled = false;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<FoodChange> batch = new ArrayList<>();
+                long reset;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (cancelled) {
+                        scheduled = false;
+                        return;
+                    }
+                    if (overflowed) {
+                        scheduled = false;
+                        batch = null;
+                    } else {
+                        Iterator<FoodChange> changes = pending.values().iterator();
+                        while (changes.hasNext() && batch.size() < DRAIN_BATCH) {
+                            batch.add(changes.next());
+                            changes.remove();
+                        }
+                    }
+                    reset = resetTo;
+                    resetTo = -1;
+                    heartbeat = heartbeatDue && batch != null && batch.isEmpty() && reset < 0;
+                    heartbeatDue = false;
+                    if (batch != null && batch.isEmpty() && reset < 0 && !heartbeat) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                if (batch == null) {
+                    disconnect();
+                    return;
+                }
+                try {
+                    if (reset >= 0) {
+                        sink.reset(reset);
+                    }
+                    for (FoodChange change : batch) {
+                        sink.send(change);
+                    }
+                    if (heartbeat) {
+                        sink.heartbeat();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // The client has gone away
+                    disconnect();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.macrotracker.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Lazily turns an upload into ImportRows so that arbitrarily large files are never held in memory.
+// A malformed row becomes a failed ImportRow instead of aborting the whole upload.
+public class FoodImportParser {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "fat", "carbohydrates", "protein", "calories");
+    // A quoted field may span lines, but an unterminated quote must not pull the rest of the upload into memory
+    static final int MAX_CSV_RECORD_LENGTH = 1 << 16;
+
+    private final ObjectMapper objectMapper;
+
+    public FoodImportParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Iterator<ImportRow> parse(MediaType contentType, InputStream input) throws IOException {
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return ndjsonRows(reader(input));
+        }
+        if (TEXT_CSV.isCompatibleWith(contentType)) {
+            return csvRows(reader(input));
+        }
+        if (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return jsonArrayRows(input);
+        }
+        throw new BadRequestException("Unsupported import content type: " + contentType);
+    }
+
+    // Picks the format of a multipart upload from its part content type, falling back to the file extension
+    public static MediaType detectContentType(String partContentType, String filename) {
+        String lowerName = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        if (lowerName.endsWith(".csv")) {
+            return TEXT_CSV;
+        }
+        if (lowerName.endsWith(".ndjson") || lowerName.endsWith(".jsonl")) {
+            return MediaType.APPLICATION_NDJSON;
+        }
+        if (lowerName.endsWith(".json")) {
+            return MediaType.APPLICATION_JSON;
+        }
+        if (partContentType != null) {
+            try {
+                return MediaType.parseMediaType(partContentType);
+            } catch (InvalidMediaTypeException e) {
+                throw new BadRequestException("Invalid content type of " + filename + ": " + partContentType, e);
+            }
+        }
+        throw new BadRequestException("Cannot determine import format of " + filename);
+    }
+
+    private Iterator<ImportRow> jsonArrayRows(InputStream input) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(input);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new BadRequestException("JSON import must be an array of foods");
+        }
+        return new RowIterator() {
+            @Override
+            protected ImportRow readNext(long rowNumber) throws IOException {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                // Reading each element as a tree keeps a bad element from derailing the parser
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    return ImportRow.parsed(rowNumber, objectMapper.treeToValue(node, Food.class));
+                } catch (JsonProcessingException e) {
+                    return ImportRow.failed(rowNumber, "Invalid food: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    private Iterator<ImportRow> ndjsonRows(BufferedReader reader) {
+        return new RowIterator() {
+            @Override
+            protected ImportRow readNext(long rowNumber) throws IOException {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isBlank());
+                if (line == null) {
+                    return null;
+                }
+                try {
+                    return ImportRow.parsed(rowNumber, objectMapper.readValue(line, Food.class));
+                } catch (JsonProcessingException e) {
+                    return ImportRow.failed(rowNumber, "Invalid food: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    private Iterator<ImportRow> csvRows(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return List.<ImportRow>of().iterator();
+        }
+        int[] columnIndex = csvColumnIndex(splitCsvLine(header));
+        return new RowIterator() {
+            private boolean malformed;
+
+            @Override
+            protected ImportRow readNext(long rowNumber) throws IOException {
+                if (malformed) {
+                    return null;
+                }
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isBlank());
+                if (line == null) {
+                    return null;
+                }
+                StringBuilder record = new StringBuilder(line);
+                while (insideQuotes(record)) {
+                    String next = reader.readLine();
+                    if (next == null || record.length() + next.length() > MAX_CSV_RECORD_LENGTH) {
+                        // Where the next record starts is unknown, so nothing after this one is read
+                        malformed = true;
+                        return ImportRow.failed(rowNumber, next == null ? "Unterminated quoted field"
+                                : "Record longer than " + MAX_CSV_RECORD_LENGTH + " characters");
+                    }
+                    // Read back as \n whether the line break was written as \n or \r\n
+                    record.append('\n').append(next);
+                }
+                try {
+                    List<String> fields = splitCsvLine(record.toString());
+                    return ImportRow.parsed(rowNumber, new Food(
+                            field(fields, columnIndex[0]),
+                            number(fields, columnIndex[1]),
+                            number(fields, columnIndex[2]),
+                            number(fields, columnIndex[3]),
+                            number(fields, columnIndex[4])));
+                } catch (IllegalArgumentException e) {
+                    return ImportRow.failed(rowNumber, e.getMessage());
+                }
+            }
+        };
+    }
+
+    // An odd number of quotes leaves a field open; an escaped quote ("") counts twice
+    private static boolean insideQuotes(CharSequence record) {
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quoted = !quoted;
+            }
+        }
+        return quoted;
+    }
+
+    private static int[] csvColumnIndex(List<String> header) {
+        int[] index = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+            index[i] = -1;
+            for (int h = 0; h < header.size(); h++) {
+                if (header.get(h).trim().equalsIgnoreCase(CSV_COLUMNS.get(i))) {
+                    index[i] = h;
+                }
+            }
+            if (index[i] < 0) {
+                throw new BadRequestException("CSV header is missing column '" + CSV_COLUMNS.get(i) + "'");
+            }
+        }
+        return index;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            throw new IllegalArgumentException("Row has " + fields.size() + " columns, expected at least " + (index + 1));
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Double number(List<String> fields, int index) {
+        String value = field(fields, index);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: '" + value + "'");
+        }
+    }
+
+    // RFC 4180 field splitting of one record; quotes may wrap fields, including line breaks, and "" escapes a quote
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static BufferedReader reader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    private abstract static class RowIterator implements Iterator<ImportRow> {
+        private long rowNumber;
+        private ImportRow next;
+        private boolean done;
+
+        protected abstract ImportRow readNext(long rowNumber) throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = readNext(rowNumber + 1);
+                } catch (JsonProcessingException e) {
+                    // A syntax error leaves the stream unreadable: report it as the last row
+                    next = ImportRow.failed(rowNumber + 1, "Malformed input: " + e.getOriginalMessage());
+                    done = true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (next == null) {
+                    done = true;
+                } else {
+                    rowNumber++;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public ImportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ImportRow row = next;
+            next = null;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.macrotracker.importer;
+
+import com.example.macrotracker.entity.Food;
+
+// One parsed input row; either food or error is set. Row numbers start at 1 and exclude CSV headers.
+public record ImportRow(long rowNumber, Food food, String error) {
+
+    public static ImportRow parsed(long rowNumber, Food food) {
+        return new ImportRow(rowNumber, food, null);
+    }
+
+    public static ImportRow failed(long rowNumber, String error) {
+        return new ImportRow(rowNumber, null, error);
+    }
+}
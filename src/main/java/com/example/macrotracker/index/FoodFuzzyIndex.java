@@ -0,0 +1,360 @@
+package com.example.macrotracker.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.index.FoodNameIndex.PostingList;
+
+// Typo-tolerant search over the words of food names. Every distinct word is a node of a BK-tree keyed by
+// Levenshtein distance, so a lookup only visits subtrees the triangle inequality cannot rule out, and has a
+// sorted posting list of the foods using it. A food matches when it has a close enough word for every query
+// word; matches rank by total distance, then id. Words without a letter (quantities, codes) are not indexed.
+@Component
+public class FoodFuzzyIndex implements FoodIndex {
+
+    public record Matches(long[] ids, int[] distances) {
+    }
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Matches NO_MATCHES = new Matches(new long[0], new int[0]);
+
+    private final int maxDistance;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, String[]> wordsById = new HashMap<>();
+    // BK-trees cannot delete; words no food uses any more stay as routing nodes without a posting list
+    private BkNode root;
+    private volatile boolean ready;
+
+    public FoodFuzzyIndex(@Value("${macrotracker.search.fuzzy.max-distance:2}") int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    @Override
+    public void put(Food food) {
+        String[] words = words(food.getName());
+        lock.writeLock().lock();
+        try {
+            String[] previous = wordsById.put(food.getId(), words);
+            if (Arrays.equals(words, previous)) {
+                return;
+            }
+            if (previous != null) {
+                removePostings(previous, food.getId());
+            }
+            for (String word : words) {
+                postings.computeIfAbsent(word, key -> {
+                    insertNode(key);
+                    return new PostingList();
+                }).add(food.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String[] previous = wordsById.remove(id);
+            if (previous != null) {
+                removePostings(previous, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return wordsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Foods with a word within the allowed distance of every query word, best first, at most limit.
+    // Short words allow fewer edits: none up to 2 letters and one up to 5, capped by distance.
+    // Both distance and the configured maximum cap the edits of each word, not the total.
+    public Matches search(String query, int distance, int limit) {
+        String[] queryWords = words(query);
+        if (queryWords.length == 0 || limit < 1) {
+            return NO_MATCHES;
+        }
+        int cap = Math.min(distance, maxDistance);
+        lock.readLock().lock();
+        try {
+            List<List<WordMatch>> matches = new ArrayList<>(queryWords.length);
+            for (String word : queryWords) {
+                List<WordMatch> found = find(word, allowedDistance(word, cap));
+                if (found.isEmpty()) {
+                    return NO_MATCHES;
+                }
+                found.sort(Comparator.comparingInt(WordMatch::distance));
+                matches.add(found);
+            }
+            return rank(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int allowedDistance(String word, int cap) {
+        int byLength = word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+        return Math.max(0, Math.min(cap, byLength));
+    }
+
+    // Candidates come from the query word with the fewest foods; the other words are checked by seeking
+    // in their posting lists. Candidates ascend by id within a posting list, so once the heap is full and
+    // no further candidate can beat its worst entry the rest of the list is skipped.
+    private Matches rank(List<List<WordMatch>> matches, int limit) {
+        int pivot = 0;
+        long fewest = Long.MAX_VALUE;
+        int othersMinimum = 0;
+        for (int w = 0; w < matches.size(); w++) {
+            long foods = matches.get(w).stream().mapToLong(match -> match.foods().size).sum();
+            if (foods < fewest) {
+                fewest = foods;
+                pivot = w;
+            }
+            othersMinimum += matches.get(w).get(0).distance();
+        }
+        List<WordMatch> pivotMatches = matches.get(pivot);
+        othersMinimum -= pivotMatches.get(0).distance();
+
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit, Candidate.BEST_FIRST.reversed());
+        for (int m = 0; m < pivotMatches.size(); m++) {
+            WordMatch pivotMatch = pivotMatches.get(m);
+            int lowerBound = pivotMatch.distance() + othersMinimum;
+            if (best.size() == limit && lowerBound > best.peek().distance) {
+                break;
+            }
+            int[][] cursors = new int[matches.size()][];
+            for (int w = 0; w < matches.size(); w++) {
+                cursors[w] = new int[w == pivot ? m : matches.get(w).size()];
+            }
+            PostingList foods = pivotMatch.foods();
+            for (int i = 0; i < foods.size; i++) {
+                long id = foods.ids[i];
+                if (best.size() == limit) {
+                    Candidate worst = best.peek();
+                    if (lowerBound > worst.distance || (lowerBound == worst.distance && id > worst.id)) {
+                        break;
+                    }
+                }
+                // Already ranked through a closer word of the same query word
+                if (closest(pivotMatches, m, id, cursors[pivot]) >= 0) {
+                    continue;
+                }
+                int total = pivotMatch.distance();
+                for (int w = 0; w < matches.size() && total >= 0; w++) {
+                    if (w != pivot) {
+                        int closest = closest(matches.get(w), matches.get(w).size(), id, cursors[w]);
+                        total = closest < 0 ? -1 : total + closest;
+                    }
+                }
+                if (total < 0) {
+                    continue;
+                }
+                Candidate candidate = new Candidate(id, total);
+                if (best.size() < limit) {
+                    best.add(candidate);
+                } else if (Candidate.BEST_FIRST.compare(candidate, best.peek()) < 0) {
+                    best.poll();
+                    best.add(candidate);
+                }
+            }
+        }
+
+        Candidate[] ranked = best.toArray(new Candidate[0]);
+        Arrays.sort(ranked, Candidate.BEST_FIRST);
+        long[] ids = new long[ranked.length];
+        int[] distances = new int[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            ids[i] = ranked[i].id;
+            distances[i] = ranked[i].distance;
+        }
+        return new Matches(ids, distances);
+    }
+
+    // Distance of the closest of the first count word matches whose posting list has the id, or -1
+    private static int closest(List<WordMatch> wordMatches, int count, long id, int[] cursors) {
+        for (int k = 0; k < count; k++) {
+            PostingList foods = wordMatches.get(k).foods();
+            cursors[k] = seek(foods, cursors[k], id);
+            if (cursors[k] < foods.size && foods.ids[cursors[k]] == id) {
+                return wordMatches.get(k).distance();
+            }
+        }
+        return -1;
+    }
+
+    // First position at or after from holding an id >= the given one; galloping, since successive
+    // candidates tend to be close together
+    static int seek(PostingList foods, int from, long id) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < foods.size && foods.ids[high] < id) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        int pos = Arrays.binarySearch(foods.ids, low, Math.min(high, foods.size), id);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private List<WordMatch> find(String word, int allowed) {
+        List<WordMatch> found = new ArrayList<>();
+        if (root == null) {
+            return found;
+        }
+        Levenshtein levenshtein = new Levenshtein();
+        Deque<BkNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            BkNode node = pending.pop();
+            int d = levenshtein.distance(word, node.word);
+            if (d <= allowed) {
+                PostingList foods = postings.get(node.word);
+                if (foods != null) {
+                    found.add(new WordMatch(node.word, d, foods));
+                }
+            }
+            int last = Math.min(d + allowed, node.children.length - 1);
+            for (int k = Math.max(1, d - allowed); k <= last; k++) {
+                if (node.children[k] != null) {
+                    pending.push(node.children[k]);
+                }
+            }
+        }
+        return found;
+    }
+
+    private void insertNode(String word) {
+        if (root == null) {
+            root = new BkNode(word);
+            return;
+        }
+        Levenshtein levenshtein = new Levenshtein();
+        BkNode node = root;
+        while (true) {
+            int d = levenshtein.distance(word, node.word);
+            if (d == 0) {
+                return;
+            }
+            if (d >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, d + 1);
+            }
+            if (node.children[d] == null) {
+                node.children[d] = new BkNode(word);
+                return;
+            }
+            node = node.children[d];
+        }
+    }
+
+    private void removePostings(String[] words, long id) {
+        for (String word : words) {
+            PostingList foods = postings.get(word);
+            if (foods != null && foods.remove(id) && foods.size == 0) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    // Distinct lower-cased words of a name that contain at least one letter
+    static String[] words(String name) {
+        if (name == null) {
+            return new String[0];
+        }
+        return WORD_SEPARATOR.splitAsStream(name.toLowerCase(Locale.ROOT))
+                .filter(word -> word.codePoints().anyMatch(Character::isLetter))
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private record WordMatch(String word, int distance, PostingList foods) {
+    }
+
+    private static final class Candidate {
+        static final Comparator<Candidate> BEST_FIRST = Comparator.<Candidate>comparingInt(candidate -> candidate.distance)
+                .thenComparingLong(candidate -> candidate.id);
+
+        final long id;
+        final int distance;
+
+        Candidate(long id, int distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+    }
+
+    private static final class BkNode {
+        final String word;
+        // Indexed by the distance from this node's word
+        BkNode[] children = new BkNode[0];
+
+        BkNode(String word) {
+            this.word = word;
+        }
+    }
+
+    // Two-row dynamic programme; the rows are reused across the nodes one lookup visits
+    static final class Levenshtein {
+        private int[] previous = new int[16];
+        private int[] current = new int[16];
+
+        int distance(String a, String b) {
+            if (previous.length <= b.length()) {
+                previous = new int[b.length() + 1];
+                current = new int[b.length() + 1];
+            }
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                char c = a.charAt(i - 1);
+                for (int j = 1; j <= b.length(); j++) {
+                    int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                    current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[b.length()];
+        }
+    }
+}
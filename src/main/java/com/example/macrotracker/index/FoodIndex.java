@@ -0,0 +1,16 @@
+package com.example.macrotracker.index;
+
+import com.example.macrotracker.entity.Food;
+
+// In-memory structure over the catalog, loaded at startup and kept current by FoodIndexMaintainer
+public interface FoodIndex {
+    // Insert or replace the entry for food.getId()
+    void put(Food food);
+
+    void remove(Long id);
+
+    // Called once the startup load has finished; until then callers fall back to the database
+    void markReady();
+
+    boolean isReady();
+}
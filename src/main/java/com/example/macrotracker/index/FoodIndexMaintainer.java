@@ -0,0 +1,113 @@
+package com.example.macrotracker.index;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.macrotracker.datasource.ReadConsistency;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.repository.FoodRepository;
+
+import jakarta.persistence.EntityManager;
+
+// Loads every FoodIndex in one catalog scan at startup and applies committed changes afterwards
+@Component
+public class FoodIndexMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(FoodIndexMaintainer.class);
+
+    private static final int APPLY_STRIPES = 64;
+
+    private final List<FoodIndex> indexes;
+    private final FoodVersionIndex foodVersionIndex;
+    private final FoodRepository foodRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Rows changed while the startup scan runs; the scan must not overwrite them with stale data
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private final Object loadLock = new Object();
+    private volatile boolean loading;
+    // Changes to one food are checked and applied under the same stripe, so an older one cannot slip in between
+    private final Object[] applyLocks = new Object[APPLY_STRIPES];
+
+    public FoodIndexMaintainer(List<FoodIndex> indexes, FoodVersionIndex foodVersionIndex,
+            FoodRepository foodRepository, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.indexes = indexes;
+        this.foodVersionIndex = foodVersionIndex;
+        for (int i = 0; i < applyLocks.length; i++) {
+            applyLocks[i] = new Object();
+        }
+        this.foodRepository = foodRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexes() {
+        long start = System.nanoTime();
+        long[] count = new long[1];
+        loading = true;
+        try {
+            // From the primary: changes committed before the load started have already been applied and
+            // would not be replayed if a lagging replica missed them
+            ReadConsistency.onPrimary(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Food> foods = foodRepository.streamAllByOrderByIdAsc()) {
+                    foods.forEach(food -> {
+                        synchronized (loadLock) {
+                            if (!changedWhileLoading.contains(food.getId())) {
+                                indexes.forEach(index -> index.put(food));
+                            }
+                        }
+                        entityManager.detach(food);
+                        count[0]++;
+                    });
+                }
+            }));
+        } finally {
+            loading = false;
+            changedWhileLoading.clear();
+        }
+        indexes.forEach(FoodIndex::markReady);
+        log.info("Loaded {} foods into {} indexes in {} ms", count[0], indexes.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodChanged(FoodChangedEvent event) {
+        if (loading) {
+            synchronized (loadLock) {
+                changedWhileLoading.add(event.foodId());
+                apply(event);
+            }
+        } else {
+            apply(event);
+        }
+    }
+
+    // Listeners of concurrent commits can run out of commit order; a change older than the applied one is dropped
+    private void apply(FoodChangedEvent event) {
+        synchronized (applyLocks[Math.floorMod(event.foodId().hashCode(), applyLocks.length)]) {
+            if (foodVersionIndex.isStale(event)) {
+                return;
+            }
+            if (event.type() == FoodChangedEvent.ChangeType.DELETED) {
+                indexes.forEach(index -> index.remove(event.foodId()));
+            } else {
+                indexes.forEach(index -> index.put(event.food()));
+            }
+        }
+    }
+}
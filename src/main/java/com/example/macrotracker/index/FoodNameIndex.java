@@ -0,0 +1,210 @@
+package com.example.macrotracker.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.example.macrotracker.entity.Food;
+
+// Trigram index over lower-cased food names for substring search.
+// Each trigram maps to a sorted posting list of food ids; a query intersects the lists of its
+// trigrams and then verifies the surviving candidates against the stored name.
+@Component
+public class FoodNameIndex implements FoodIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, String> namesById = new HashMap<>();
+    private volatile boolean ready;
+
+    @Override
+    public void put(Food food) {
+        String name = normalize(food.getName());
+        lock.writeLock().lock();
+        try {
+            String previous = namesById.put(food.getId(), name);
+            if (name.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                for (String gram : grams(previous)) {
+                    removePosting(gram, food.getId());
+                }
+            }
+            for (String gram : grams(name)) {
+                postings.computeIfAbsent(gram, key -> new PostingList()).add(food.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = namesById.remove(id);
+            if (previous != null) {
+                for (String gram : grams(previous)) {
+                    removePosting(gram, id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Returns ids of foods whose name contains the query (case-insensitive), ascending, at most limit
+    public List<Long> search(String query, int limit) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM_LENGTH) {
+                return scan(needle, limit);
+            }
+            List<PostingList> lists = new ArrayList<>();
+            for (String gram : grams(needle)) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            return intersect(lists, needle, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return namesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> intersect(List<PostingList> lists, String needle, int limit) {
+        PostingList smallest = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        List<Long> matches = new ArrayList<>();
+        candidates:
+        for (int i = 0; i < smallest.size && matches.size() < limit; i++) {
+            long id = smallest.ids[i];
+            for (int l = 1; l < lists.size(); l++) {
+                PostingList other = lists.get(l);
+                // Candidates ascend, so each list is searched only from where the previous hit left off
+                int pos = Arrays.binarySearch(other.ids, cursors[l], other.size, id);
+                if (pos < 0) {
+                    cursors[l] = -pos - 1;
+                    if (cursors[l] >= other.size) {
+                        break candidates;
+                    }
+                    continue candidates;
+                }
+                cursors[l] = pos + 1;
+            }
+            // Sharing all trigrams does not guarantee the trigrams are adjacent
+            if (namesById.get(id).contains(needle)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    // Queries shorter than a trigram have no posting list to use
+    private List<Long> scan(String needle, int limit) {
+        long[] ids = namesById.entrySet().stream()
+                .filter(entry -> entry.getValue().contains(needle))
+                .mapToLong(Map.Entry::getKey)
+                .sorted()
+                .limit(limit)
+                .toArray();
+        List<Long> matches = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            matches.add(id);
+        }
+        return matches;
+    }
+
+    private void removePosting(String gram, long id) {
+        PostingList list = postings.get(gram);
+        if (list != null && list.remove(id) && list.size == 0) {
+            postings.remove(gram);
+        }
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    // Sorted, growable array of ids; appends in id order are O(1), which is what the startup load does
+    static final class PostingList {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            int insertAt = -pos - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+    }
+}
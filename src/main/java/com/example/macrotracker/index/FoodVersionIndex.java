@@ -0,0 +1,71 @@
+package com.example.macrotracker.index;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+
+// Current version of every food, plus a catalog version bumped by every committed change.
+// Lets conditional requests be answered without a database read; lookups take no lock.
+@Component
+public class FoodVersionIndex implements FoodIndex {
+
+    // Deleted foods keep this tombstone, so a change that arrives after the delete is known to be older.
+    // Food ids are not reused
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong catalogChanges = new AtomicLong();
+
+    // Distinguishes catalog versions across restarts, since the change counter starts over
+    private final String instance = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private volatile boolean ready;
+
+    @Override
+    public void put(Food food) {
+        // Commits can be applied out of order; never move a food back to an older version
+        versions.merge(food.getId(), food.getVersion() == null ? 0L : food.getVersion(), Math::max);
+        catalogChanges.incrementAndGet();
+    }
+
+    @Override
+    public void remove(Long id) {
+        versions.put(id, DELETED);
+        catalogChanges.incrementAndGet();
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<Long> version(Long id) {
+        return ready ? Optional.ofNullable(versions.get(id)).filter(version -> version != DELETED) : Optional.empty();
+    }
+
+    // Whether a change is older than one already applied: its food has been deleted since, or is at a later version
+    public boolean isStale(FoodChangedEvent event) {
+        Long current = versions.get(event.foodId());
+        if (current == null || event.type() == FoodChangedEvent.ChangeType.DELETED) {
+            return current != null && current == DELETED;
+        }
+        long version = event.food().getVersion() == null ? 0L : event.food().getVersion();
+        return version < current;
+    }
+
+    public Optional<String> catalogVersion() {
+        return ready ? Optional.of(instance + "-" + catalogChanges.get()) : Optional.empty();
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.macrotracker.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.Macro;
+
+// Columnar snapshot of the four macros for range queries.
+// Rows live in slots holding primitive values. Compacted slots are in id order and each macro has a
+// sorted column over them, so a range is two binary searches. Writes append to an unsorted tail
+// (an update kills the old slot and appends a new one) that is merged in by the next compaction.
+@Component
+public class MacroColumnStore implements FoodIndex {
+
+    private static final int MIN_COMPACTION_TAIL = 1024;
+    private static final int MACROS = Macro.values().length;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    private long[] slotIds = new long[1024];
+    private double[][] slotValues = new double[MACROS][1024];
+    private final BitSet liveSlots = new BitSet();
+    private int slotCount;
+    private int deadSlots;
+
+    // Slots below compactedCount are covered by the sorted columns
+    private int compactedCount;
+    private double[][] sortedValues = new double[MACROS][0];
+    private int[][] sortedSlots = new int[MACROS][0];
+
+    private volatile boolean ready;
+
+    @Override
+    public void put(Food food) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = slotById.get(food.getId());
+            if (previous != null) {
+                killSlot(previous);
+            }
+            int slot = appendSlot(food.getId());
+            for (Macro macro : Macro.values()) {
+                slotValues[macro.ordinal()][slot] = macro.of(food);
+            }
+            slotById.put(food.getId(), slot);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                killSlot(slot);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Ids of foods within every bound of the filter, ascending, at most limit
+    public long[] query(MacroFilter filter, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = null;
+            Macro[] constrained = constrainedBySelectivity(filter);
+            for (Macro macro : constrained) {
+                if (candidates == null) {
+                    // The most selective predicate seeds the bitmap from its sorted column
+                    candidates = rangeBitmap(macro, filter.min(macro), filter.max(macro));
+                } else {
+                    retainInRange(candidates, macro, filter.min(macro), filter.max(macro));
+                }
+            }
+            if (candidates == null) {
+                candidates = (BitSet) liveSlots.clone();
+            } else {
+                candidates.and(liveSlots);
+            }
+            return collectIds(candidates, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Copies the macros of ids[i] into values[macro][i]; the result marks which ids were found
+    public BitSet lookup(long[] ids, double[][] values) {
+        BitSet found = new BitSet(ids.length);
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                Integer slot = slotById.get(ids[i]);
+                if (slot != null) {
+                    for (int macro = 0; macro < MACROS; macro++) {
+                        values[macro][i] = slotValues[macro][slot];
+                    }
+                    found.set(i);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Macro[] constrainedBySelectivity(MacroFilter filter) {
+        return Arrays.stream(Macro.values())
+                .filter(filter::constrains)
+                .sorted((a, b) -> Integer.compare(
+                        compactedRangeSize(a, filter.min(a), filter.max(a)),
+                        compactedRangeSize(b, filter.min(b), filter.max(b))))
+                .toArray(Macro[]::new);
+    }
+
+    private int compactedRangeSize(Macro macro, Double min, Double max) {
+        double[] values = sortedValues[macro.ordinal()];
+        return upperBound(values, max) - lowerBound(values, min);
+    }
+
+    private BitSet rangeBitmap(Macro macro, Double min, Double max) {
+        BitSet matches = new BitSet(slotCount);
+        double[] values = sortedValues[macro.ordinal()];
+        int[] slots = sortedSlots[macro.ordinal()];
+        int to = upperBound(values, max);
+        for (int i = lowerBound(values, min); i < to; i++) {
+            matches.set(slots[i]);
+        }
+        double[] column = slotValues[macro.ordinal()];
+        for (int slot = compactedCount; slot < slotCount; slot++) {
+            if (inRange(column[slot], min, max)) {
+                matches.set(slot);
+            }
+        }
+        return matches;
+    }
+
+    // Once the candidate set is small, checking the remaining predicates row by row beats building more bitmaps
+    private void retainInRange(BitSet candidates, Macro macro, Double min, Double max) {
+        double[] column = slotValues[macro.ordinal()];
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if (!inRange(column[slot], min, max)) {
+                candidates.clear(slot);
+            }
+        }
+    }
+
+    private long[] collectIds(BitSet matches, int limit) {
+        // Compacted slots are in id order, so their first matches are the lowest ids
+        long[] ids = new long[Math.min(limit, matches.cardinality())];
+        int count = 0;
+        for (int slot = matches.nextSetBit(0); slot >= 0 && slot < compactedCount && count < ids.length;
+                slot = matches.nextSetBit(slot + 1)) {
+            ids[count++] = slotIds[slot];
+        }
+        if (slotCount == compactedCount) {
+            return ids;
+        }
+        // Tail slots can carry any id; merge them in and keep the lowest
+        long[] tail = matches.get(compactedCount, slotCount).stream()
+                .mapToLong(offset -> slotIds[compactedCount + offset])
+                .toArray();
+        long[] merged = Arrays.copyOf(ids, count + tail.length);
+        System.arraycopy(tail, 0, merged, count, tail.length);
+        Arrays.sort(merged);
+        return Arrays.copyOf(merged, Math.min(limit, merged.length));
+    }
+
+    private int appendSlot(long id) {
+        if (slotCount == slotIds.length) {
+            int capacity = slotIds.length * 2;
+            slotIds = Arrays.copyOf(slotIds, capacity);
+            for (int m = 0; m < MACROS; m++) {
+                slotValues[m] = Arrays.copyOf(slotValues[m], capacity);
+            }
+        }
+        int slot = slotCount++;
+        slotIds[slot] = id;
+        liveSlots.set(slot);
+        return slot;
+    }
+
+    private void killSlot(int slot) {
+        liveSlots.clear(slot);
+        deadSlots++;
+    }
+
+    private void compactIfNeeded() {
+        if (!ready) {
+            // The startup load compacts once, in markReady
+            return;
+        }
+        int tail = slotCount - compactedCount;
+        if (tail > Math.max(MIN_COMPACTION_TAIL, compactedCount / 16) || deadSlots > Math.max(MIN_COMPACTION_TAIL, slotCount / 4)) {
+            compact();
+        }
+    }
+
+    // Renumbers live rows densely in id order and rebuilds the sorted columns
+    private void compact() {
+        long[] ids = new long[slotById.size()];
+        int n = 0;
+        for (int slot = liveSlots.nextSetBit(0); slot >= 0; slot = liveSlots.nextSetBit(slot + 1)) {
+            ids[n++] = slotIds[slot];
+        }
+        Arrays.sort(ids, 0, n);
+
+        long[] newIds = new long[Math.max(1024, n + n / 4)];
+        double[][] newValues = new double[MACROS][newIds.length];
+        for (int newSlot = 0; newSlot < n; newSlot++) {
+            int oldSlot = slotById.get(ids[newSlot]);
+            newIds[newSlot] = ids[newSlot];
+            for (int m = 0; m < MACROS; m++) {
+                newValues[m][newSlot] = slotValues[m][oldSlot];
+            }
+            slotById.put(ids[newSlot], newSlot);
+        }
+        slotIds = newIds;
+        slotValues = newValues;
+        liveSlots.clear();
+        liveSlots.set(0, n);
+        slotCount = n;
+        compactedCount = n;
+        deadSlots = 0;
+
+        for (int m = 0; m < MACROS; m++) {
+            double[] values = Arrays.copyOf(newValues[m], n);
+            int[] slots = new int[n];
+            for (int i = 0; i < n; i++) {
+                slots[i] = i;
+            }
+            sortByValue(values, slots, 0, n - 1);
+            sortedValues[m] = values;
+            sortedSlots[m] = slots;
+        }
+    }
+
+    private static boolean inRange(double value, Double min, Double max) {
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    // First index whose value is >= min
+    static int lowerBound(double[] values, Double min) {
+        if (min == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index whose value is > max
+    static int upperBound(double[] values, Double max) {
+        if (max == null) {
+            return values.length;
+        }
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Quicksort on the values array carrying the slot array along, without boxing
+    private static void sortByValue(double[] values, int[] slots, int low, int high) {
+        while (high - low > 16) {
+            double pivot = values[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, slots, i++, j--);
+                }
+            }
+            // Recurse into the smaller half to bound stack depth
+            if (j - low < high - i) {
+                sortByValue(values, slots, low, j);
+                low = i;
+            } else {
+                sortByValue(values, slots, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int k = i; k > low && values[k - 1] > values[k]; k--) {
+                swap(values, slots, k, k - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] values, int[] slots, int a, int b) {
+        double value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.macrotracker.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.Macro;
+
+// k-nearest-neighbour index over the (fat, carbohydrates, protein, calories) vector of each food.
+// A balanced KD-tree is laid out implicitly in one interleaved coordinate array: the range [lo, hi)
+// splits at mid = (lo + hi) / 2 on splitAxis[mid]. Writes go to an unsorted tail that queries scan,
+// deletes of tree points are tombstones, and the tree is rebuilt once either grows too large.
+@Component
+public class MacroKdTree implements FoodIndex {
+
+    public record Neighbors(long[] ids, double[] distances) {
+    }
+
+    private static final int DIMS = Macro.values().length;
+    private static final int LEAF_SIZE = 8;
+    private static final int MIN_REBUILD_TAIL = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] treeIds = new long[0];
+    private double[] treeCoords = new double[0];
+    private byte[] splitAxis = new byte[0];
+    private final BitSet deadInTree = new BitSet();
+    private int deadCount;
+
+    // Tree ids in ascending order with their tree positions, for deletes without a boxed map
+    private long[] sortedTreeIds = new long[0];
+    private int[] sortedTreePositions = new int[0];
+
+    private long[] tailIds = new long[1024];
+    private double[] tailCoords = new double[1024 * DIMS];
+    private int tailSize;
+    private final Map<Long, Integer> tailPositionById = new HashMap<>();
+
+    // 1 / standard deviation per macro over the catalog as of the last rebuild
+    private final double[] normalization = new double[DIMS];
+
+    private volatile boolean ready;
+
+    public MacroKdTree() {
+        Arrays.fill(normalization, 1.0);
+    }
+
+    @Override
+    public void put(Food food) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(food.getId());
+            if (tailSize == tailIds.length) {
+                tailIds = Arrays.copyOf(tailIds, tailSize * 2);
+                tailCoords = Arrays.copyOf(tailCoords, tailSize * 2 * DIMS);
+            }
+            tailIds[tailSize] = food.getId();
+            for (Macro macro : Macro.values()) {
+                tailCoords[tailSize * DIMS + macro.ordinal()] = macro.of(food);
+            }
+            tailPositionById.put(food.getId(), tailSize++);
+            rebuildIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            rebuildIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            rebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return treeIds.length - deadCount + tailSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The k foods closest to target under sqrt(sum((weight * scale * (x - target))^2)), nearest first.
+    // scale is 1 / standard deviation of the macro when normalized, else 1; a zero weight ignores a macro.
+    public Neighbors nearest(double[] target, double[] weights, boolean normalize, int k) {
+        lock.readLock().lock();
+        try {
+            double[] factors = new double[DIMS];
+            for (int d = 0; d < DIMS; d++) {
+                factors[d] = weights[d] * (normalize ? normalization[d] : 1.0);
+            }
+            BoundedHeap heap = new BoundedHeap(k);
+            for (int i = 0; i < tailSize; i++) {
+                heap.offer(tailIds[i], distance(tailCoords, i, target, factors));
+            }
+            search(0, treeIds.length, target, factors, heap);
+            return heap.sorted();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void search(int lo, int hi, double[] target, double[] factors, BoundedHeap heap) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                if (!deadInTree.get(i)) {
+                    heap.offer(treeIds[i], distance(treeCoords, i, target, factors));
+                }
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int axis = splitAxis[mid];
+        if (!deadInTree.get(mid)) {
+            heap.offer(treeIds[mid], distance(treeCoords, mid, target, factors));
+        }
+        double offset = factors[axis] * (target[axis] - treeCoords[mid * DIMS + axis]);
+        // Descend into the side holding the target first; the other side only matters if the
+        // splitting plane is closer than the current k-th neighbour
+        if (offset < 0) {
+            search(lo, mid, target, factors, heap);
+            if (offset * offset < heap.worst()) {
+                search(mid + 1, hi, target, factors, heap);
+            }
+        } else {
+            search(mid + 1, hi, target, factors, heap);
+            if (offset * offset < heap.worst()) {
+                search(lo, mid, target, factors, heap);
+            }
+        }
+    }
+
+    // Squared weighted distance
+    private static double distance(double[] coords, int point, double[] target, double[] factors) {
+        int base = point * DIMS;
+        double sum = 0;
+        for (int d = 0; d < DIMS; d++) {
+            double delta = factors[d] * (coords[base + d] - target[d]);
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    private void removeLocked(long id) {
+        Integer tailPosition = tailPositionById.remove(id);
+        if (tailPosition != null) {
+            // Move the last tail point into the hole
+            int last = --tailSize;
+            if (tailPosition != last) {
+                tailIds[tailPosition] = tailIds[last];
+                System.arraycopy(tailCoords, last * DIMS, tailCoords, tailPosition * DIMS, DIMS);
+                tailPositionById.put(tailIds[tailPosition], tailPosition);
+            }
+            return;
+        }
+        int sorted = Arrays.binarySearch(sortedTreeIds, id);
+        if (sorted >= 0) {
+            int position = sortedTreePositions[sorted];
+            if (!deadInTree.get(position)) {
+                deadInTree.set(position);
+                deadCount++;
+            }
+        }
+    }
+
+    private void rebuildIfNeeded() {
+        if (!ready) {
+            // The startup load builds the tree once, in markReady
+            return;
+        }
+        int live = treeIds.length - deadCount;
+        if (tailSize > Math.max(MIN_REBUILD_TAIL, live / 64) || deadCount > Math.max(MIN_REBUILD_TAIL, treeIds.length / 4)) {
+            rebuild();
+        }
+    }
+
+    // Gathers live tree and tail points, recomputes the normalization and builds a balanced tree
+    private void rebuild() {
+        int n = treeIds.length - deadCount + tailSize;
+        long[] ids = new long[n];
+        double[] coords = new double[n * DIMS];
+        int count = 0;
+        for (int i = 0; i < treeIds.length; i++) {
+            if (!deadInTree.get(i)) {
+                ids[count] = treeIds[i];
+                System.arraycopy(treeCoords, i * DIMS, coords, count * DIMS, DIMS);
+                count++;
+            }
+        }
+        System.arraycopy(tailIds, 0, ids, count, tailSize);
+        System.arraycopy(tailCoords, 0, coords, count * DIMS, tailSize * DIMS);
+
+        updateNormalization(coords, n);
+        treeIds = ids;
+        treeCoords = coords;
+        splitAxis = new byte[n];
+        build(0, n);
+
+        sortedTreeIds = ids.clone();
+        Arrays.sort(sortedTreeIds);
+        sortedTreePositions = new int[n];
+        for (int position = 0; position < n; position++) {
+            sortedTreePositions[Arrays.binarySearch(sortedTreeIds, ids[position])] = position;
+        }
+
+        deadInTree.clear();
+        deadCount = 0;
+        tailSize = 0;
+        tailPositionById.clear();
+    }
+
+    private void updateNormalization(double[] coords, int n) {
+        for (int d = 0; d < DIMS; d++) {
+            double mean = 0;
+            for (int i = 0; i < n; i++) {
+                mean += coords[i * DIMS + d];
+            }
+            mean /= Math.max(1, n);
+            double variance = 0;
+            for (int i = 0; i < n; i++) {
+                double delta = coords[i * DIMS + d] - mean;
+                variance += delta * delta;
+            }
+            double deviation = Math.sqrt(variance / Math.max(1, n));
+            normalization[d] = deviation > 0 ? 1.0 / deviation : 1.0;
+        }
+    }
+
+    // Splits each range at its median on the macro with the widest normalized spread
+    private void build(int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        int axis = widestAxis(lo, hi);
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis);
+        splitAxis[mid] = (byte) axis;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    private int widestAxis(int lo, int hi) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int d = 0; d < DIMS; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double value = treeCoords[i * DIMS + d];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            double spread = (max - min) * normalization[d];
+            if (spread > widestSpread) {
+                widestSpread = spread;
+                widest = d;
+            }
+        }
+        return widest;
+    }
+
+    // Quickselect: afterwards position k holds the value that belongs there on the axis,
+    // with no greater value before it and no smaller value after it
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            int middle = (left + right) >>> 1;
+            double pivot = treeCoords[middle * DIMS + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (treeCoords[i * DIMS + axis] < pivot) {
+                    i++;
+                }
+                while (treeCoords[j * DIMS + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = treeIds[a];
+        treeIds[a] = treeIds[b];
+        treeIds[b] = id;
+        for (int d = 0; d < DIMS; d++) {
+            double value = treeCoords[a * DIMS + d];
+            treeCoords[a * DIMS + d] = treeCoords[b * DIMS + d];
+            treeCoords[b * DIMS + d] = value;
+        }
+    }
+
+    // Bounded max-heap of the k best candidates on primitive arrays
+    private static final class BoundedHeap {
+
+        private final long[] ids;
+        private final double[] distances;
+        private int size;
+
+        BoundedHeap(int capacity) {
+            ids = new long[capacity];
+            distances = new double[capacity];
+        }
+
+        double worst() {
+            return size < ids.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(long id, double distance) {
+            if (size < ids.length) {
+                ids[size] = id;
+                distances[size] = distance;
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                ids[0] = id;
+                distances[0] = distance;
+                siftDown(0);
+            }
+        }
+
+        // Nearest first, ties by id; distances are returned unsquared
+        Neighbors sorted() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> distances[a] != distances[b]
+                    ? Double.compare(distances[a], distances[b])
+                    : Long.compare(ids[a], ids[b]));
+            long[] sortedIds = new long[size];
+            double[] sortedDistances = new double[size];
+            for (int i = 0; i < size; i++) {
+                sortedIds[i] = ids[order[i]];
+                sortedDistances[i] = Math.sqrt(distances[order[i]]);
+            }
+            return new Neighbors(sortedIds, sortedDistances);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distances[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && distances[left] > distances[largest]) {
+                    largest = left;
+                }
+                if (right < size && distances[right] > distances[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+        }
+    }
+}
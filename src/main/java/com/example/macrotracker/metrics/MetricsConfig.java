@@ -0,0 +1,68 @@
+package com.example.macrotracker.metrics;
+
+import java.time.Duration;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public ServiceMetricsAspect serviceMetricsAspect(MeterRegistry meterRegistry) {
+        return new ServiceMetricsAspect(meterRegistry);
+    }
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public SlowQueryLog slowQueryLog(@Value("${macrotracker.sql.slow-log.queue-capacity:1000}") int queueCapacity,
+            @Value("${macrotracker.sql.slow-log.recent:100}") int recent) {
+        return new SlowQueryLog(queueCapacity, recent);
+    }
+
+    @Bean
+    public SqlStatementStats sqlStatementStats(SlowQueryLog slowQueryLog,
+            @Value("${macrotracker.sql.slow-threshold:100ms}") Duration slowThreshold,
+            @Value("${macrotracker.sql.repeat-threshold:10}") int repeatThreshold,
+            @Value("${macrotracker.sql.stats.max-shapes:1000}") int maxShapes) {
+        return new SqlStatementStats(slowQueryLog, slowThreshold.toNanos(), repeatThreshold, maxShapes);
+    }
+
+    // Static so that DataSource beans are post-processed; the stats are looked up when the first one is
+    @Bean
+    @ConditionalOnProperty(name = "macrotracker.sql.stats.enabled", havingValue = "true", matchIfMissing = true)
+    public static StatementStatsPostProcessor statementStatsPostProcessor(ObjectProvider<SqlStatementStats> stats) {
+        return new StatementStatsPostProcessor(stats);
+    }
+
+    @Bean
+    public RepositoryStatementsAspect repositoryStatementsAspect(SqlStatementStats sqlStatementStats) {
+        return new RepositoryStatementsAspect(sqlStatementStats);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(
+            SqlStatementCounter sqlStatementCounter, SqlStatementStats sqlStatementStats, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementMetricsFilter> registration = new FilterRegistrationBean<>(
+                new SqlStatementMetricsFilter(sqlStatementCounter, sqlStatementStats, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
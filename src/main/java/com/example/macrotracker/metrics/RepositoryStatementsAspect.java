@@ -0,0 +1,42 @@
+package com.example.macrotracker.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.repository.Repository;
+
+// Attributes the SQL statements a Spring Data repository call executes to that call, e.g.
+// FoodRepository.findByNameContainingIgnoreCase, including the methods repositories inherit
+@Aspect
+public class RepositoryStatementsAspect {
+
+    // The application's repository interface a repository proxy class implements
+    private static final ClassValue<String> REPOSITORY_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(candidate) && !candidate.getName().startsWith("org.springframework.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        }
+    };
+
+    private final SqlStatementStats stats;
+
+    public RepositoryStatementsAspect(SqlStatementStats stats) {
+        this.stats = stats;
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object attribute(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = REPOSITORY_NAMES.get(joinPoint.getThis().getClass()) + "." + joinPoint.getSignature().getName();
+        String previous = stats.enter(method);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            stats.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.macrotracker.metrics;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import com.example.macrotracker.dto.FoodPage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Latency, call and error counts and rows returned for every FoodService, FoodImportService and MealService method.
+// Calls and errors are the counts of the timer tagged outcome=success and outcome=error.
+@Aspect
+public class ServiceMetricsAspect {
+
+    static final String CALLS = "macrotracker.service.calls";
+    static final String ROWS = "macrotracker.service.rows";
+
+    private static final double[] PERCENTILES = { 0.5, 0.99, 0.999 };
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.example.macrotracker.service.FoodService.*(..))"
+            + " || execution(* com.example.macrotracker.service.FoodImportService.*(..))"
+            + " || execution(* com.example.macrotracker.service.MealService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            sample.stop(timer(method, "error", e.getClass().getSimpleName()));
+            throw e;
+        }
+        sample.stop(timer(method, "success", "none"));
+        int rows = rows(result);
+        if (rows >= 0) {
+            DistributionSummary.builder(ROWS)
+                    .tag("method", method)
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+        return result;
+    }
+
+    private Timer timer(String method, String outcome, String exception) {
+        return Timer.builder(CALLS)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+
+    // -1 for results that are not rows
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof FoodPage page) {
+            return page.items().size();
+        }
+        return -1;
+    }
+}
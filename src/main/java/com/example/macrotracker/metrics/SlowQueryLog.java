@@ -0,0 +1,102 @@
+package com.example.macrotracker.metrics;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Slow statements and repeated (N+1) selects, written to the log by a background thread so the threads
+// running the statements never wait on log I/O. When the queue is full entries are dropped and counted.
+public class SlowQueryLog {
+
+    public enum Kind { SLOW, REPEATED }
+
+    // sql is the statement's shape, with literals replaced by ?; request is set for REPEATED entries
+    public record Entry(Instant time, Kind kind, String repositoryMethod, String sql, int executions, double millis,
+            String request) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final BlockingQueue<Entry> queue;
+    private final int recentCapacity;
+    private final Deque<Entry> recent = new ArrayDeque<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running;
+    private Thread writer;
+
+    public SlowQueryLog(int queueCapacity, int recentCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.recentCapacity = recentCapacity;
+    }
+
+    public void submit(Entry entry) {
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    // Most recent first
+    public List<Entry> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    void start() {
+        running = true;
+        writer = new Thread(this::run, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void close() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            Entry entry;
+            try {
+                entry = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (entry != null) {
+                write(entry);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        synchronized (recent) {
+            recent.addFirst(entry);
+            if (recent.size() > recentCapacity) {
+                recent.removeLast();
+            }
+        }
+        if (entry.kind() == Kind.SLOW) {
+            log.warn("Slow statement ({} ms) from {}: {}", String.format("%.1f", entry.millis()),
+                    entry.repositoryMethod(), entry.sql());
+        } else {
+            log.warn("Statement repeated {} times ({} ms) by {} from {}, possible N+1 select: {}", entry.executions(),
+                    String.format("%.1f", entry.millis()), entry.request(), entry.repositoryMethod(), entry.sql());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.macrotracker.metrics;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Records how many SQL statements each request issued, tagged like http.server.requests, and reports the
+// selects it repeated to SqlStatementStats
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS = "macrotracker.http.sql.statements";
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final SqlStatementStats sqlStatementStats;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatementMetricsFilter(SqlStatementCounter sqlStatementCounter, SqlStatementStats sqlStatementStats,
+            MeterRegistry meterRegistry) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.sqlStatementStats = sqlStatementStats;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        sqlStatementCounter.start();
+        sqlStatementStats.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = sqlStatementCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            sqlStatementStats.endRequest(request.getMethod() + " " + (pattern == null ? request.getRequestURI() : pattern));
+            DistributionSummary.builder(STATEMENTS)
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.macrotracker.metrics;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Execution counts, time, rows fetched and repeated selects per statement shape and repository method.
+// A shape is the SQL with literals and IN lists replaced by placeholders, so statements that differ only
+// in their values share one entry. Statements slower than the threshold, and selects one request runs at
+// least repeatThreshold times (the N+1 pattern), go to the slow query log.
+public class SqlStatementStats {
+
+    public record QueryStats(String repositoryMethod, String sql, long executions, long errors, double totalMillis,
+            double meanMillis, double maxMillis, long rows, long repeatedRequests, long maxPerRequest) {
+    }
+
+    static final String OTHER = "(other statements)";
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final int MAX_CACHED_SHAPES = 10_000;
+
+    private final SlowQueryLog slowQueryLog;
+    private final long slowThresholdNanos;
+    private final int repeatThreshold;
+    private final int maxShapes;
+    private final Map<String, String> shapes = new ConcurrentHashMap<>();
+    private final Map<Key, Shape> entries = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> repositoryMethod = new ThreadLocal<>();
+    private final ThreadLocal<Map<Shape, long[]>> requestExecutions = new ThreadLocal<>();
+
+    public SqlStatementStats(SlowQueryLog slowQueryLog, long slowThresholdNanos, int repeatThreshold, int maxShapes) {
+        this.slowQueryLog = slowQueryLog;
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.repeatThreshold = repeatThreshold;
+        this.maxShapes = maxShapes;
+    }
+
+    // Statements run until exit are attributed to the repository method; returns the one to restore
+    String enter(String method) {
+        String previous = repositoryMethod.get();
+        repositoryMethod.set(method);
+        return previous;
+    }
+
+    void exit(String previous) {
+        if (previous == null) {
+            repositoryMethod.remove();
+        } else {
+            repositoryMethod.set(previous);
+        }
+    }
+
+    void beginRequest() {
+        requestExecutions.set(new HashMap<>());
+    }
+
+    void endRequest(String request) {
+        Map<Shape, long[]> executions = requestExecutions.get();
+        requestExecutions.remove();
+        if (executions == null) {
+            return;
+        }
+        executions.forEach((shape, count) -> {
+            if (shape.select && count[0] >= repeatThreshold) {
+                shape.repeatedRequests.increment();
+                shape.maxPerRequest.accumulateAndGet(count[0], Math::max);
+                slowQueryLog.submit(new SlowQueryLog.Entry(Instant.now(), SlowQueryLog.Kind.REPEATED,
+                        shape.key.repositoryMethod(), shape.key.sql(), (int) count[0], count[1] / 1_000_000.0, request));
+            }
+        });
+    }
+
+    // The entry for a statement about to run on the current thread
+    Shape shape(String sql) {
+        Key key = new Key(repositoryMethod.get(), shapeOf(sql));
+        Shape shape = entries.get(key);
+        if (shape != null) {
+            return shape;
+        }
+        if (entries.size() >= maxShapes) {
+            key = new Key(null, OTHER);
+        }
+        return entries.computeIfAbsent(key, Shape::new);
+    }
+
+    void record(Shape shape, long nanos, boolean failed) {
+        shape.executions.increment();
+        shape.totalNanos.add(nanos);
+        shape.maxNanos.accumulateAndGet(nanos, Math::max);
+        if (failed) {
+            shape.errors.increment();
+        }
+        Map<Shape, long[]> executions = requestExecutions.get();
+        if (executions != null) {
+            long[] count = executions.computeIfAbsent(shape, key -> new long[2]);
+            count[0]++;
+            count[1] += nanos;
+        }
+        if (nanos >= slowThresholdNanos) {
+            slowQueryLog.submit(new SlowQueryLog.Entry(Instant.now(), SlowQueryLog.Kind.SLOW,
+                    shape.key.repositoryMethod(), shape.key.sql(), 1, nanos / 1_000_000.0, null));
+        }
+    }
+
+    // Most database time first
+    public List<QueryStats> top(int limit) {
+        return entries.values().stream()
+                .map(Shape::stats)
+                .sorted(Comparator.comparingDouble(QueryStats::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        entries.clear();
+    }
+
+    String shapeOf(String sql) {
+        String shape = shapes.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            if (shapes.size() < MAX_CACHED_SHAPES) {
+                shapes.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    // Collapses whitespace and replaces string and number literals, then IN lists, with placeholders
+    static String normalize(String sql) {
+        StringBuilder shape = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (shape.length() > 0) {
+                    shape.append(' ');
+                }
+            } else if (c == '\'') {
+                // '' is an escaped quote inside the literal
+                i++;
+                while (i < sql.length() && (sql.charAt(i) != '\'' || (i + 1 < sql.length() && sql.charAt(i + 1) == '\''))) {
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+                i++;
+                shape.append('?');
+            } else if (Character.isDigit(c)) {
+                while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                shape.append('?');
+            } else if (isIdentifierPart(c)) {
+                while (i < sql.length() && isIdentifierPart(sql.charAt(i))) {
+                    shape.append(sql.charAt(i++));
+                }
+            } else {
+                shape.append(c);
+                i++;
+            }
+        }
+        int end = shape.length();
+        while (end > 0 && shape.charAt(end - 1) == ' ') {
+            end--;
+        }
+        shape.setLength(end);
+        return IN_LIST.matcher(shape).replaceAll("in (...)");
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private record Key(String repositoryMethod, String sql) {
+    }
+
+    static final class Shape {
+        final Key key;
+        final boolean select;
+        final LongAdder executions = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder rows = new LongAdder();
+        final LongAdder repeatedRequests = new LongAdder();
+        final AtomicLong maxPerRequest = new AtomicLong();
+
+        Shape(Key key) {
+            this.key = key;
+            this.select = key.sql().toLowerCase(Locale.ROOT).startsWith("select");
+        }
+
+        void addRows(long count) {
+            rows.add(count);
+        }
+
+        QueryStats stats() {
+            long count = executions.sum();
+            double totalMillis = totalNanos.sum() / 1_000_000.0;
+            return new QueryStats(key.repositoryMethod(), key.sql(), count, errors.sum(), totalMillis,
+                    count == 0 ? 0 : totalMillis / count, maxNanos.get() / 1_000_000.0, rows.sum(),
+                    repeatedRequests.sum(), maxPerRequest.get());
+        }
+    }
+}
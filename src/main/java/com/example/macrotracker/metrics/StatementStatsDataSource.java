@@ -0,0 +1,202 @@
+package com.example.macrotracker.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Times every statement executed through the DataSource and counts the rows read from its result sets,
+// recording both in SqlStatementStats. Only execution is timed; fetching rows is not.
+public class StatementStatsDataSource extends DelegatingDataSource {
+
+    private final SqlStatementStats stats;
+
+    public StatementStatsDataSource(DataSource target, SqlStatementStats stats) {
+        super(target);
+        this.stats = stats;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection target) {
+        return proxy(Connection.class, new ConnectionHandler(target));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementStatsDataSource.class.getClassLoader(), new Class<?>[] { type },
+                handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Timed " + target;
+                case "createStatement":
+                    return proxy(Statement.class,
+                            new StatementHandler((Statement) StatementStatsDataSource.invoke(target, method, args), null));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler(
+                            (Statement) StatementStatsDataSource.invoke(target, method, args), (String) args[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler(
+                            (Statement) StatementStatsDataSource.invoke(target, method, args), (String) args[0]));
+                default:
+                    return StatementStatsDataSource.invoke(target, method, args);
+            }
+        }
+    }
+
+    // sql is null for a plain Statement, whose executions name their own SQL
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+        private String batchSql;
+        private SqlStatementStats.Shape lastShape;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "addBatch":
+                    if (args != null && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                    return StatementStatsDataSource.invoke(target, method, args);
+                case "clearBatch":
+                    batchSql = null;
+                    return StatementStatsDataSource.invoke(target, method, args);
+                case "executeBatch":
+                case "executeLargeBatch": {
+                    // A plain statement's batch is recorded under its first statement
+                    String executed = sql != null ? sql : batchSql;
+                    batchSql = null;
+                    return executed == null ? StatementStatsDataSource.invoke(target, method, args)
+                            : execute(executed, method, args);
+                }
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeQuery":
+                    return execute(sql != null ? sql : (String) args[0], method, args);
+                case "getResultSet": {
+                    Object resultSet = StatementStatsDataSource.invoke(target, method, args);
+                    return resultSet == null || lastShape == null ? resultSet : wrap((ResultSet) resultSet, lastShape);
+                }
+                default:
+                    return StatementStatsDataSource.invoke(target, method, args);
+            }
+        }
+
+        private Object execute(String executed, Method method, Object[] args) throws Throwable {
+            SqlStatementStats.Shape shape = stats.shape(executed);
+            lastShape = shape;
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = StatementStatsDataSource.invoke(target, method, args);
+                failed = false;
+                return result instanceof ResultSet resultSet ? wrap(resultSet, shape) : result;
+            } finally {
+                stats.record(shape, System.nanoTime() - start, failed);
+            }
+        }
+
+        private ResultSet wrap(ResultSet resultSet, SqlStatementStats.Shape shape) {
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, shape));
+        }
+    }
+
+    // Counts rows locally and adds them to the shape once, when the result set is exhausted or closed
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final SqlStatementStats.Shape shape;
+        private long rows;
+        private boolean counted;
+
+        ResultSetHandler(ResultSet target, SqlStatementStats.Shape shape) {
+            this.target = target;
+            this.shape = shape;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "next": {
+                    boolean hasRow = (Boolean) StatementStatsDataSource.invoke(target, method, args);
+                    if (hasRow) {
+                        rows++;
+                    } else {
+                        count();
+                    }
+                    return hasRow;
+                }
+                case "close":
+                    count();
+                    return StatementStatsDataSource.invoke(target, method, args);
+                default:
+                    return StatementStatsDataSource.invoke(target, method, args);
+            }
+        }
+
+        private void count() {
+            if (!counted) {
+                counted = true;
+                shape.addRows(rows);
+            }
+        }
+    }
+}
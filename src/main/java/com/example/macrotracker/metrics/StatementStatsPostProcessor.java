@@ -0,0 +1,24 @@
+package com.example.macrotracker.metrics;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+// Routes the application's DataSource beans through StatementStatsDataSource
+public class StatementStatsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlStatementStats> stats;
+
+    public StatementStatsPostProcessor(ObjectProvider<SqlStatementStats> stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof StatementStatsDataSource)) {
+            return new StatementStatsDataSource(dataSource, stats.getObject());
+        }
+        return bean;
+    }
+}
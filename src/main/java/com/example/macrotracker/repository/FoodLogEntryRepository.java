@@ -0,0 +1,10 @@
+package com.example.macrotracker.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.macrotracker.entity.FoodLogEntry;
+
+@Repository
+public interface FoodLogEntryRepository extends JpaRepository<FoodLogEntry, Long> {
+}
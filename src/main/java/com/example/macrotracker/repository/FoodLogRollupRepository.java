@@ -0,0 +1,33 @@
+package com.example.macrotracker.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.macrotracker.entity.FoodLogRollup;
+
+@Repository
+public interface FoodLogRollupRepository extends JpaRepository<FoodLogRollup, Long> {
+
+    // Adds a delta to one rollup row in place; returns 0 when the row does not exist yet
+    @Modifying
+    @Query("update FoodLogRollup r set r.entries = r.entries + :entries, r.grams = r.grams + :grams, "
+            + "r.fat = r.fat + :fat, r.carbohydrates = r.carbohydrates + :carbohydrates, "
+            + "r.protein = r.protein + :protein, r.calories = r.calories + :calories "
+            + "where r.userId = :userId and r.period = :period and r.periodStart = :periodStart")
+    int addToRollup(@Param("userId") String userId, @Param("period") FoodLogRollup.Period period,
+            @Param("periodStart") LocalDate periodStart, @Param("entries") long entries, @Param("grams") double grams,
+            @Param("fat") double fat, @Param("carbohydrates") double carbohydrates,
+            @Param("protein") double protein, @Param("calories") double calories);
+
+    // One row per day or week with entries in the range, read through the unique key
+    @Query("select r from FoodLogRollup r where r.userId = :userId and r.period = :period "
+            + "and r.periodStart between :from and :to and r.entries > 0 order by r.periodStart")
+    List<FoodLogRollup> findRollups(@Param("userId") String userId, @Param("period") FoodLogRollup.Period period,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -1,16 +1,36 @@
 package com.example.macrotracker.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.macrotracker.entity.Food;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface FoodRepository extends JpaRepository<Food, Long> {
+public interface FoodRepository extends JpaRepository<Food, Long>, FoodUpdateRepository {
+
+    String MACRO_FILTER_QUERY = "select f from Food f where (:minFat is null or f.fat >= :minFat) and (:maxFat is null or f.fat <= :maxFat) "
+            + "and (:minCarbohydrates is null or f.carbohydrates >= :minCarbohydrates) "
+            + "and (:maxCarbohydrates is null or f.carbohydrates <= :maxCarbohydrates) "
+            + "and (:minProtein is null or f.protein >= :minProtein) and (:maxProtein is null or f.protein <= :maxProtein) "
+            + "and (:minCalories is null or f.calories >= :minCalories) and (:maxCalories is null or f.calories <= :maxCalories) "
+            + "order by f.id";
+
     // Find foods by name containing the search string (case-insensitive)
     List<Food> findByNameContainingIgnoreCase(String name);
+    List<Food> findByNameContainingIgnoreCaseOrderByIdAsc(String name, Limit limit);
     
     // Find foods with calories less than or equal to the specified value
     List<Food> findByCaloriesLessThanEqual(Double calories);
@@ -18,6 +38,44 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
     // Find foods within a protein range
     List<Food> findByProteinBetween(Double minProtein, Double maxProtein);
     
+    // Multi-macro range filter; null bounds are ignored
+    @Query(MACRO_FILTER_QUERY)
+    List<Food> findByMacroFilter(@Param("minFat") Double minFat, @Param("maxFat") Double maxFat,
+            @Param("minCarbohydrates") Double minCarbohydrates, @Param("maxCarbohydrates") Double maxCarbohydrates,
+            @Param("minProtein") Double minProtein, @Param("maxProtein") Double maxProtein,
+            @Param("minCalories") Double minCalories, @Param("maxCalories") Double maxCalories, Pageable pageable);
+    
     // Check if a food with exact name exists
     boolean existsByNameIgnoreCase(String name);
-}
\ No newline at end of file
+
+    // Same check served by the unique index on name_key
+    boolean existsByNameKey(String nameKey);
+
+    // Set-based duplicate check: which of the given lower-cased names are already taken
+    @Query("select f.nameKey from Food f where f.nameKey in :names")
+    List<String> findExistingNamesIgnoreCase(@Param("names") Collection<String> names);
+
+    // Deletes only the expected version; returns the number of rows deleted (0 or 1)
+    @Modifying
+    @Query("delete from Food f where f.id = :id and f.version = :expectedVersion")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("expectedVersion") Long expectedVersion);
+
+    // Keyset page: the next foods after the given id, in id order
+    List<Food> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Cursor-backed stream of the whole catalog; must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select f from Food f order by f.id")
+    Stream<Food> streamAllByOrderByIdAsc();
+
+    // Cursor-backed stream for exports; the fetch size comes from hibernate.jdbc.fetch_size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query(MACRO_FILTER_QUERY)
+    Stream<Food> streamByMacroFilter(@Param("minFat") Double minFat, @Param("maxFat") Double maxFat,
+            @Param("minCarbohydrates") Double minCarbohydrates, @Param("maxCarbohydrates") Double maxCarbohydrates,
+            @Param("minProtein") Double minProtein, @Param("maxProtein") Double maxProtein,
+            @Param("minCalories") Double minCalories, @Param("maxCalories") Double maxCalories);
+}
@@ -0,0 +1,9 @@
+package com.example.macrotracker.repository;
+
+public interface FoodUpdateRepository {
+
+    // Overwrites a food in a single statement and bumps its version; with a non-null expected version
+    // only that version is overwritten. Returns the version written, or null when no row was updated
+    Long updateFoodById(Long id, String name, String nameKey, Double fat, Double carbohydrates, Double protein,
+            Double calories, Long expectedVersion);
+}
@@ -0,0 +1,50 @@
+package com.example.macrotracker.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import org.hibernate.Session;
+
+import jakarta.persistence.EntityManager;
+
+// The UPDATE hands back the version it wrote as a generated key, so the caller learns the new version
+// without reading the row again. It stays a plain UPDATE, which statement stats and replication record as a write.
+class FoodUpdateRepositoryImpl implements FoodUpdateRepository {
+
+    static final String UPDATE_FOOD = "update foods set name = ?, name_key = ?, fat = ?, carbohydrates = ?, "
+            + "protein = ?, calories = ?, version = coalesce(version, 0) + 1 "
+            + "where id = ? and (cast(? as bigint) is null or version = ?)";
+
+    private final EntityManager entityManager;
+
+    FoodUpdateRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Long updateFoodById(Long id, String name, String nameKey, Double fat, Double carbohydrates,
+            Double protein, Double calories, Long expectedVersion) {
+        // Pending inserts and updates must reach the table first, as they would before a JPQL bulk update
+        entityManager.flush();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_FOOD, new String[] { "version" })) {
+                statement.setString(1, name);
+                statement.setString(2, nameKey);
+                statement.setObject(3, fat, Types.DOUBLE);
+                statement.setObject(4, carbohydrates, Types.DOUBLE);
+                statement.setObject(5, protein, Types.DOUBLE);
+                statement.setObject(6, calories, Types.DOUBLE);
+                statement.setLong(7, id);
+                statement.setObject(8, expectedVersion, Types.BIGINT);
+                statement.setObject(9, expectedVersion, Types.BIGINT);
+                if (statement.executeUpdate() == 0) {
+                    return null;
+                }
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    return keys.next() ? keys.getLong(1) : null;
+                }
+            }
+        });
+    }
+}
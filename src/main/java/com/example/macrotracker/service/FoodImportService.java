@@ -0,0 +1,11 @@
+package com.example.macrotracker.service;
+
+import java.util.Iterator;
+
+import com.example.macrotracker.dto.ImportReport;
+import com.example.macrotracker.importer.ImportRow;
+
+public interface FoodImportService {
+    // Imports rows in chunks, each in its own transaction; rejected rows never fail their chunk
+    ImportReport importFoods(Iterator<ImportRow> rows);
+}
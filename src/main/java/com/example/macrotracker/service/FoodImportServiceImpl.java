@@ -0,0 +1,135 @@
+package com.example.macrotracker.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.macrotracker.dto.ImportReport;
+import com.example.macrotracker.dto.ImportReport.ChunkReport;
+import com.example.macrotracker.dto.ImportReport.RowError;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.importer.ImportRow;
+import com.example.macrotracker.repository.FoodRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+@Service
+public class FoodImportServiceImpl implements FoodImportService {
+
+    private final FoodRepository foodRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public FoodImportServiceImpl(FoodRepository foodRepository, EntityManager entityManager, Validator validator,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+            @Value("${macrotracker.import.chunk-size:500}") int chunkSize) {
+        this.foodRepository = foodRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public ImportReport importFoods(Iterator<ImportRow> rows) {
+        List<ChunkReport> chunks = new ArrayList<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                chunks.add(importChunk(chunks.size() + 1, chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(importChunk(chunks.size() + 1, chunk));
+        }
+        return ImportReport.of(chunks);
+    }
+
+    private ChunkReport importChunk(int chunkNumber, List<ImportRow> rows) {
+        long firstRow = rows.get(0).rowNumber();
+        long lastRow = rows.get(rows.size() - 1).rowNumber();
+        try {
+            return transactionTemplate.execute(status -> {
+                List<RowError> errors = new ArrayList<>();
+                Map<String, ImportRow> candidates = selectCandidates(rows, errors);
+
+                // One query for the whole chunk instead of one existence check per row
+                if (!candidates.isEmpty()) {
+                    for (String takenName : foodRepository.findExistingNamesIgnoreCase(candidates.keySet())) {
+                        ImportRow row = candidates.remove(takenName);
+                        if (row != null) {
+                            errors.add(rejection(row, "A food with name '" + row.food().getName() + "' already exists"));
+                        }
+                    }
+                }
+
+                List<Food> foods = candidates.values().stream().map(ImportRow::food).toList();
+                foodRepository.saveAll(foods);
+                entityManager.flush();
+                entityManager.clear();
+                foods.forEach(food -> eventPublisher.publishEvent(FoodChangedEvent.created(food)));
+
+                errors.sort(Comparator.comparingLong(RowError::row));
+                return new ChunkReport(chunkNumber, firstRow, lastRow, foods.size(), errors.size(), errors);
+            });
+        } catch (DataAccessException e) {
+            // The chunk rolled back as a whole; later chunks are still attempted
+            String reason = "Chunk failed: " + e.getMostSpecificCause().getMessage();
+            List<RowError> errors = rows.stream().map(row -> rejection(row, reason)).toList();
+            return new ChunkReport(chunkNumber, firstRow, lastRow, 0, errors.size(), errors);
+        }
+    }
+
+    // Drops parse failures, invalid foods and names repeated within the chunk; keys are lower-cased names
+    private Map<String, ImportRow> selectCandidates(List<ImportRow> rows, List<RowError> errors) {
+        Map<String, ImportRow> candidates = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            if (row.error() != null) {
+                errors.add(new RowError(row.rowNumber(), null, row.error()));
+                continue;
+            }
+            Food food = row.food();
+            food.setId(null);
+            Set<ConstraintViolation<Food>> violations = validator.validate(food);
+            if (!violations.isEmpty()) {
+                String reason = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                errors.add(rejection(row, reason));
+                continue;
+            }
+            String key = food.getName().toLowerCase(Locale.ROOT);
+            if (candidates.putIfAbsent(key, row) != null) {
+                errors.add(rejection(row, "Duplicate name '" + food.getName() + "' within the import"));
+            }
+        }
+        return candidates;
+    }
+
+    private static RowError rejection(ImportRow row, String reason) {
+        return new RowError(row.rowNumber(), row.food() == null ? null : row.food().getName(), reason);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.macrotracker.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.macrotracker.dto.FoodLogRequest;
+import com.example.macrotracker.entity.FoodLogEntry;
+import com.example.macrotracker.entity.FoodLogRollup;
+
+public interface FoodLogService {
+    FoodLogEntry logFood(FoodLogRequest request);
+    Optional<FoodLogEntry> getEntryById(Long id);
+    FoodLogEntry updateEntry(Long id, FoodLogRequest request);
+    void deleteEntry(Long id);
+
+    // Precomputed totals, one per day or ISO week (starting Monday) that has entries
+    List<FoodLogRollup> getDailyTotals(String userId, LocalDate from, LocalDate to);
+    List<FoodLogRollup> getWeeklyTotals(String userId, LocalDate from, LocalDate to);
+}
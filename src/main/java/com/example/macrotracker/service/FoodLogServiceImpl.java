@@ -0,0 +1,161 @@
+package com.example.macrotracker.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.macrotracker.dto.FoodLogRequest;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.FoodLogEntry;
+import com.example.macrotracker.entity.FoodLogRollup;
+import com.example.macrotracker.exception.BadRequestException;
+import com.example.macrotracker.repository.FoodLogEntryRepository;
+import com.example.macrotracker.repository.FoodLogRollupRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+// Every entry write applies its macros as a delta to the user's day and week rollups in the same
+// transaction, so totals are read back without touching the entries.
+@Service
+@Transactional
+public class FoodLogServiceImpl implements FoodLogService {
+
+    // Inserts the zero row of a period unless it exists. Runs on the transaction's own connection through
+    // JdbcTemplate, so a failed attempt fails only its statement and not the surrounding transaction
+    static final String CREATE_ROLLUP = "merge into food_log_rollups r using (select 1) s "
+            + "on r.user_id = ? and r.period_type = ? and r.period_start = ? "
+            + "when not matched then insert "
+            + "(id, user_id, period_type, period_start, entries, grams, fat, carbohydrates, protein, calories) "
+            + "values (next value for food_log_rollups_seq, ?, ?, ?, 0, 0, 0, 0, 0, 0)";
+
+    private static final int CREATE_ROLLUP_ATTEMPTS = 3;
+
+    private final FoodLogEntryRepository entryRepository;
+    private final FoodLogRollupRepository rollupRepository;
+    private final FoodService foodService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ZoneId zone;
+
+    @Autowired
+    public FoodLogServiceImpl(FoodLogEntryRepository entryRepository, FoodLogRollupRepository rollupRepository,
+            FoodService foodService, JdbcTemplate jdbcTemplate,
+            @Value("${macrotracker.log.zone:UTC}") ZoneId zone) {
+        this.entryRepository = entryRepository;
+        this.rollupRepository = rollupRepository;
+        this.foodService = foodService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.zone = zone;
+    }
+
+    @Override
+    public FoodLogEntry logFood(FoodLogRequest request) {
+        FoodLogEntry entry = entryRepository.save(
+                new FoodLogEntry(request.userId(), request.loggedAt(), findFood(request.foodId()), request.grams()));
+        applyToRollups(entry, 1);
+        return entry;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<FoodLogEntry> getEntryById(Long id) {
+        return entryRepository.findById(id);
+    }
+
+    @Override
+    public FoodLogEntry updateEntry(Long id, FoodLogRequest request) {
+        FoodLogEntry entry = entryRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Food log entry not found with id: " + id));
+        applyToRollups(entry, -1);
+        entry.setUserId(request.userId());
+        entry.setLoggedAt(request.loggedAt());
+        entry.setFood(findFood(request.foodId()), request.grams());
+        applyToRollups(entry, 1);
+        return entry;
+    }
+
+    @Override
+    public void deleteEntry(Long id) {
+        FoodLogEntry entry = entryRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Food log entry not found with id: " + id));
+        applyToRollups(entry, -1);
+        entryRepository.delete(entry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FoodLogRollup> getDailyTotals(String userId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return rollupRepository.findRollups(userId, FoodLogRollup.Period.DAY, from, to);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FoodLogRollup> getWeeklyTotals(String userId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return rollupRepository.findRollups(userId, FoodLogRollup.Period.WEEK, weekStart(from), weekStart(to));
+    }
+
+    private Food findFood(Long foodId) {
+        return foodService.getFoodById(foodId)
+                .orElseThrow(() -> new EntityNotFoundException("Food not found with id: " + foodId));
+    }
+
+    private void applyToRollups(FoodLogEntry entry, int sign) {
+        LocalDate day = LocalDate.ofInstant(entry.getLoggedAt(), zone);
+        addToRollup(entry, sign, FoodLogRollup.Period.DAY, day);
+        addToRollup(entry, sign, FoodLogRollup.Period.WEEK, weekStart(day));
+    }
+
+    // An in-place UPDATE; the first write to a period creates its zero row in the same transaction, so a
+    // write never needs a second pooled connection, and then updates it
+    private void addToRollup(FoodLogEntry entry, int sign, FoodLogRollup.Period period, LocalDate periodStart) {
+        if (updateRollup(entry, sign, period, periodStart) > 0) {
+            return;
+        }
+        createRollup(entry.getUserId(), period, periodStart);
+        if (updateRollup(entry, sign, period, periodStart) == 0) {
+            throw new IllegalStateException("Rollup row for " + period + " " + periodStart + " could not be created");
+        }
+    }
+
+    // A concurrent transaction may insert the same row before committing it; its insert holds the unique key,
+    // so ours fails once that commits and the retry then finds the row
+    private void createRollup(String userId, FoodLogRollup.Period period, LocalDate periodStart) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbcTemplate.update(CREATE_ROLLUP, userId, period.name(), periodStart, userId, period.name(), periodStart);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt == CREATE_ROLLUP_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private int updateRollup(FoodLogEntry entry, int sign, FoodLogRollup.Period period, LocalDate periodStart) {
+        return rollupRepository.addToRollup(entry.getUserId(), period, periodStart, sign,
+                sign * entry.getGrams(), sign * entry.getFat(), sign * entry.getCarbohydrates(),
+                sign * entry.getProtein(), sign * entry.getCalories());
+    }
+
+    private static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Range start " + from + " is after its end " + to);
+        }
+    }
+}
@@ -2,22 +2,49 @@ package com.example.macrotracker.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.example.macrotracker.dto.FoodMatch;
+import com.example.macrotracker.dto.FoodNeighbor;
+import com.example.macrotracker.dto.FoodPage;
+import com.example.macrotracker.dto.FoodPatch;
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.dto.NearestFoodQuery;
 import com.example.macrotracker.entity.Food;
 
 public interface FoodService {
     // Basic CRUD operations
     Food saveFood(Food food);
     Optional<Food> getFoodById(Long id);
+    List<Food> getFoodsByIds(List<Long> ids);
     List<Food> getAllFoods();
     Food updateFood(Long id, Food food);
     void deleteFood(Long id);
+
+    // Conditional writes: a non-null expected version must match the stored one
+    Food updateFood(Long id, Food food, Long expectedVersion);
+    void deleteFood(Long id, Long expectedVersion);
+    Food patchFood(Long id, FoodPatch patch, Long expectedVersion);
+
+    // Versions for ETags, known without a database read once the version index has loaded
+    Optional<Long> getFoodVersion(Long id);
+    Optional<String> getCatalogVersion();
+    
+    // Paged and streamed listing
+    FoodPage getFoodsPage(String cursor, int limit);
+    void streamAllFoods(Consumer<Food> consumer);
+    void exportFoods(MacroFilter filter, Consumer<Food> consumer);
     
     // Search and filter operations
     List<Food> searchFoodsByName(String name);
+    List<Food> searchFoodsByName(String name, int limit);
     List<Food> getFoodsByCaloriesLessThan(Double calories);
     List<Food> getFoodsByProteinRange(Double minProtein, Double maxProtein);
+    List<Food> filterFoods(MacroFilter filter, int limit);
+    List<FoodNeighbor> findNearestFoods(NearestFoodQuery query, int k);
+    // Typo-tolerant name search, closest first; a null maxDistance uses the configured maximum
+    List<FoodMatch> fuzzySearchFoods(String query, Integer maxDistance, int limit);
     
     // Validation
     boolean isFoodNameTaken(String name);
-}
\ No newline at end of file
+}
@@ -1,59 +1,226 @@
 package com.example.macrotracker.service;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import com.example.macrotracker.cache.FoodBatchLoader;
+import com.example.macrotracker.cache.FoodCache;
+import com.example.macrotracker.datasource.ReadConsistency;
+import com.example.macrotracker.dto.FoodMatch;
+import com.example.macrotracker.dto.FoodNeighbor;
+import com.example.macrotracker.dto.FoodPage;
+import com.example.macrotracker.dto.FoodPatch;
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.dto.NearestFoodQuery;
 import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.exception.BadRequestException;
+import com.example.macrotracker.exception.DuplicateFoodNameException;
+import com.example.macrotracker.exception.FoodInUseException;
+import com.example.macrotracker.exception.PreconditionFailedException;
+import com.example.macrotracker.index.FoodFuzzyIndex;
+import com.example.macrotracker.index.FoodNameIndex;
+import com.example.macrotracker.index.FoodVersionIndex;
+import com.example.macrotracker.index.MacroColumnStore;
+import com.example.macrotracker.index.MacroKdTree;
 import com.example.macrotracker.repository.FoodRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class FoodServiceImpl implements FoodService {
 
+    static final int MAX_PAGE_SIZE = 500;
+    // Foods read by id are fetched this many per query, so IN lists stay short
+    static final int ID_CHUNK_SIZE = 1000;
+    // Unbounded lookups matching more than 1/SCAN_FRACTION of the catalog read it in one scan instead of by id
+    static final int SCAN_FRACTION = 10;
+
     private final FoodRepository foodRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FoodNameIndex foodNameIndex;
+    private final FoodCache foodCache;
+    private final MacroColumnStore macroColumnStore;
+    private final MacroKdTree macroKdTree;
+    private final FoodVersionIndex foodVersionIndex;
+    private final FoodFuzzyIndex foodFuzzyIndex;
+    private final FoodBatchLoader foodBatchLoader;
 
-    public FoodServiceImpl(FoodRepository foodRepository) {
+    public FoodServiceImpl(FoodRepository foodRepository, EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher, FoodNameIndex foodNameIndex, FoodCache foodCache,
+            MacroColumnStore macroColumnStore, MacroKdTree macroKdTree, FoodVersionIndex foodVersionIndex,
+            FoodFuzzyIndex foodFuzzyIndex, FoodBatchLoader foodBatchLoader) {
         this.foodRepository = foodRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.foodNameIndex = foodNameIndex;
+        this.foodCache = foodCache;
+        this.macroColumnStore = macroColumnStore;
+        this.macroKdTree = macroKdTree;
+        this.foodVersionIndex = foodVersionIndex;
+        this.foodFuzzyIndex = foodFuzzyIndex;
+        this.foodBatchLoader = foodBatchLoader;
     }
 
+    // A single INSERT: the unique constraint on name_key rejects duplicates, even under concurrent creates
     @Override
     public Food saveFood(Food food) {
-        if (isFoodNameTaken(food.getName())) {
-            throw new IllegalArgumentException("A food with name '" + food.getName() + "' already exists");
+        food.setId(null);
+        Food savedFood;
+        try {
+            savedFood = foodRepository.saveAndFlush(food);
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(food.getName(), e);
         }
-        return foodRepository.save(food);
+        eventPublisher.publishEvent(FoodChangedEvent.created(savedFood));
+        return savedFood;
     }
 
+    // No transaction of its own: a cache hit should not borrow a database connection.
+    // Concurrent misses share reads through the batch loader
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Food> getFoodById(Long id) {
-        return foodRepository.findById(id);
+        return foodCache.get(id, key -> foodBatchLoader.load(key, this::findAllOnPrimary));
     }
 
+    // In the order asked for, without unknown or repeated ids; the misses are read in one query
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Food> getFoodsByIds(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(uniqueIds::add);
+        if (uniqueIds.size() > MAX_PAGE_SIZE) {
+            throw new BadRequestException("At most " + MAX_PAGE_SIZE + " ids can be fetched at once");
+        }
+        if (uniqueIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Food> foods = foodCache.getAll(uniqueIds,
+                missing -> foodBatchLoader.loadAll(missing, this::findAllOnPrimary));
+        return uniqueIds.stream().map(foods::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Food> getAllFoods() {
         return foodRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public FoodPage getFoodsPage(String cursor, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Page limit must be at least 1");
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        long afterId = cursor == null || cursor.isBlank() ? 0L : FoodPage.decodeCursor(cursor);
+
+        // Fetch one extra row to learn whether another page follows
+        List<Food> foods = foodRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+        if (foods.size() <= pageSize) {
+            return new FoodPage(foods, null);
+        }
+        List<Food> page = foods.subList(0, pageSize);
+        return new FoodPage(page, FoodPage.encodeCursor(page.get(pageSize - 1).getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllFoods(Consumer<Food> consumer) {
+        try (Stream<Food> foods = foodRepository.streamAllByOrderByIdAsc()) {
+            foods.forEach(food -> {
+                consumer.accept(food);
+                // Keep the persistence context from growing with the catalog
+                entityManager.detach(food);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportFoods(MacroFilter filter, Consumer<Food> consumer) {
+        try (Stream<Food> foods = foodRepository.streamByMacroFilter(filter.minFat(), filter.maxFat(),
+                filter.minCarbohydrates(), filter.maxCarbohydrates(), filter.minProtein(), filter.maxProtein(),
+                filter.minCalories(), filter.maxCalories())) {
+            foods.forEach(food -> {
+                consumer.accept(food);
+                entityManager.detach(food);
+            });
+        }
+    }
+
     @Override
     public Food updateFood(Long id, Food foodDetails) {
-        Food food = foodRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException("Food not found with id: " + id));
-            
-        // Check if the new name is taken by a different food
-        if (!food.getName().equalsIgnoreCase(foodDetails.getName()) && 
-            isFoodNameTaken(foodDetails.getName())) {
-            throw new IllegalArgumentException("A food with name '" + foodDetails.getName() + "' already exists");
+        return updateFood(id, foodDetails, null);
+    }
+
+    // A single UPDATE without a prior read; zero rows updated means the food does not exist
+    // or, for a conditional update, is no longer at the expected version
+    @Override
+    public Food updateFood(Long id, Food foodDetails, Long expectedVersion) {
+        failFastIfStale(id, expectedVersion);
+        Long version;
+        try {
+            version = foodRepository.updateFoodById(id, foodDetails.getName(), Food.normalizeName(foodDetails.getName()),
+                    foodDetails.getFat(), foodDetails.getCarbohydrates(), foodDetails.getProtein(), foodDetails.getCalories(),
+                    expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(foodDetails.getName(), e);
+        }
+        if (version == null) {
+            throw notUpdated(id, expectedVersion);
         }
 
-        food.setName(foodDetails.getName());
-        food.setCalories(foodDetails.getCalories());
-        food.setProtein(foodDetails.getProtein());
-        food.setCarbohydrates(foodDetails.getCarbohydrates());
-        food.setFat(foodDetails.getFat());
+        foodDetails.setId(id);
+        foodDetails.setVersion(version);
+        eventPublisher.publishEvent(FoodChangedEvent.updated(foodDetails));
+        return foodDetails;
+    }
 
-        return foodRepository.save(food);
+    // Only the supplied fields that differ are set on the managed entity, so with @DynamicUpdate the flush
+    // writes just those columns (name_key, and with it the uniqueness check, only on a rename) plus the version.
+    // The entity is current after the flush, so it is returned without being read again.
+    @Override
+    public Food patchFood(Long id, FoodPatch patch, Long expectedVersion) {
+        failFastIfStale(id, expectedVersion);
+        Food food = foodRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Food not found with id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(food.getVersion())) {
+            throw new PreconditionFailedException(id, expectedVersion);
+        }
+        if (!patch.applyTo(food)) {
+            return food;
+        }
+        try {
+            foodRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(food.getName(), e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Another write landed between our read and our flush
+            throw expectedVersion != null ? new PreconditionFailedException(id, expectedVersion) : e;
+        }
+        eventPublisher.publishEvent(FoodChangedEvent.updated(food));
+        return food;
     }
 
     @Override
@@ -61,26 +228,240 @@ public class FoodServiceImpl implements FoodService {
         if (!foodRepository.existsById(id)) {
             throw new EntityNotFoundException("Food not found with id: " + id);
         }
-        foodRepository.deleteById(id);
+        try {
+            foodRepository.deleteById(id);
+            // Flushed here rather than at commit, so a logged food fails with FoodInUseException
+            foodRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new FoodInUseException(id, e);
+        }
+        eventPublisher.publishEvent(FoodChangedEvent.deleted(id));
+    }
+
+    @Override
+    public void deleteFood(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            deleteFood(id);
+            return;
+        }
+        failFastIfStale(id, expectedVersion);
+        int deleted;
+        try {
+            deleted = foodRepository.deleteByIdAndVersion(id, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw new FoodInUseException(id, e);
+        }
+        if (deleted == 0) {
+            throw notUpdated(id, expectedVersion);
+        }
+        eventPublisher.publishEvent(FoodChangedEvent.deleted(id));
+    }
+
+    @Override
+    public Optional<Long> getFoodVersion(Long id) {
+        return foodVersionIndex.version(id);
+    }
+
+    @Override
+    public Optional<String> getCatalogVersion() {
+        return foodVersionIndex.catalogVersion();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Food> searchFoodsByName(String name) {
-        return foodRepository.findByNameContainingIgnoreCase(name);
+        // The LIKE '%x%' query scans the whole table; it is only used until the index has loaded
+        if (!foodNameIndex.isReady()) {
+            return foodRepository.findByNameContainingIgnoreCase(name);
+        }
+        List<Long> ids = foodNameIndex.search(name, Integer.MAX_VALUE);
+        if (isBroad(ids.size(), foodNameIndex.size())) {
+            return foodRepository.findByNameContainingIgnoreCase(name);
+        }
+        return findAllInIdOrder(ids);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Food> searchFoodsByName(String name, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Search limit must be at least 1");
+        }
+        int maxResults = Math.min(limit, MAX_PAGE_SIZE);
+        if (!foodNameIndex.isReady()) {
+            return foodRepository.findByNameContainingIgnoreCaseOrderByIdAsc(name, Limit.of(maxResults));
+        }
+        return findAllInIdOrder(foodNameIndex.search(name, maxResults));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Food> getFoodsByCaloriesLessThan(Double calories) {
-        return foodRepository.findByCaloriesLessThanEqual(calories);
+        if (!macroColumnStore.isReady()) {
+            return foodRepository.findByCaloriesLessThanEqual(calories);
+        }
+        long[] ids = macroColumnStore.query(new MacroFilter(null, null, null, null, null, null, null, calories),
+                Integer.MAX_VALUE);
+        if (isBroad(ids.length, macroColumnStore.size())) {
+            return foodRepository.findByCaloriesLessThanEqual(calories);
+        }
+        return findAllInIdOrder(ids);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Food> getFoodsByProteinRange(Double minProtein, Double maxProtein) {
-        return foodRepository.findByProteinBetween(minProtein, maxProtein);
+        if (!macroColumnStore.isReady()) {
+            return foodRepository.findByProteinBetween(minProtein, maxProtein);
+        }
+        long[] ids = macroColumnStore.query(new MacroFilter(null, null, null, null, minProtein, maxProtein, null, null),
+                Integer.MAX_VALUE);
+        if (isBroad(ids.length, macroColumnStore.size())) {
+            return foodRepository.findByProteinBetween(minProtein, maxProtein);
+        }
+        return findAllInIdOrder(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Food> filterFoods(MacroFilter filter, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Filter limit must be at least 1");
+        }
+        int maxResults = Math.min(limit, MAX_PAGE_SIZE);
+        if (!macroColumnStore.isReady()) {
+            return foodRepository.findByMacroFilter(filter.minFat(), filter.maxFat(),
+                    filter.minCarbohydrates(), filter.maxCarbohydrates(), filter.minProtein(), filter.maxProtein(),
+                    filter.minCalories(), filter.maxCalories(), PageRequest.of(0, maxResults));
+        }
+        // Only the matching rows are read from the database, by primary key
+        return findAllInIdOrder(macroColumnStore.query(filter, maxResults));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FoodNeighbor> findNearestFoods(NearestFoodQuery query, int k) {
+        if (k < 1) {
+            throw new BadRequestException("k must be at least 1");
+        }
+        double[] target = query.target();
+        double[] weights = query.weights();
+        int count = Math.min(k, MAX_PAGE_SIZE);
+        MacroKdTree.Neighbors neighbors = macroKdTree.isReady()
+                ? macroKdTree.nearest(target, weights, query.isNormalized(), count)
+                : scanNearest(target, weights, query.isNormalized(), count);
+
+        List<Long> ids = new ArrayList<>(neighbors.ids().length);
+        for (long id : neighbors.ids()) {
+            ids.add(id);
+        }
+        Map<Long, Food> foodsById = new HashMap<>();
+        foodRepository.findAllById(ids).forEach(food -> foodsById.put(food.getId(), food));
+        List<FoodNeighbor> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Food food = foodsById.get(ids.get(i));
+            // Absent if deleted since the index answered
+            if (food != null) {
+                result.add(new FoodNeighbor(food, neighbors.distances()[i]));
+            }
+        }
+        return result;
+    }
+
+    // Until the index has loaded only exact substring matches, at distance 0, are found
+    @Override
+    @Transactional(readOnly = true)
+    public List<FoodMatch> fuzzySearchFoods(String query, Integer maxDistance, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Search limit must be at least 1");
+        }
+        if (maxDistance != null && maxDistance < 0) {
+            throw new BadRequestException("maxDistance must be at least 0");
+        }
+        int maxResults = Math.min(limit, MAX_PAGE_SIZE);
+        if (!foodFuzzyIndex.isReady()) {
+            return foodRepository.findByNameContainingIgnoreCaseOrderByIdAsc(query, Limit.of(maxResults)).stream()
+                    .map(food -> new FoodMatch(food, 0))
+                    .toList();
+        }
+        FoodFuzzyIndex.Matches matches = foodFuzzyIndex.search(query,
+                maxDistance == null ? foodFuzzyIndex.maxDistance() : maxDistance, maxResults);
+
+        List<Long> ids = new ArrayList<>(matches.ids().length);
+        for (long id : matches.ids()) {
+            ids.add(id);
+        }
+        Map<Long, Food> foodsById = new HashMap<>();
+        foodRepository.findAllById(ids).forEach(food -> foodsById.put(food.getId(), food));
+        List<FoodMatch> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Food food = foodsById.get(ids.get(i));
+            if (food != null) {
+                result.add(new FoodMatch(food, matches.distances()[i]));
+            }
+        }
+        return result;
+    }
+
+    // Until the tree has loaded, answer from a throwaway one built by a catalog scan
+    private MacroKdTree.Neighbors scanNearest(double[] target, double[] weights, boolean normalize, int k) {
+        MacroKdTree scan = new MacroKdTree();
+        streamAllFoods(scan::put);
+        scan.markReady();
+        return scan.nearest(target, weights, normalize, k);
     }
 
     @Override
     public boolean isFoodNameTaken(String name) {
-        return foodRepository.existsByNameIgnoreCase(name);
+        return foodRepository.existsByNameKey(Food.normalizeName(name));
+    }
+
+    // The index can trail the database but never lead it, so a newer indexed version is a sure mismatch
+    private void failFastIfStale(Long id, Long expectedVersion) {
+        if (expectedVersion != null
+                && foodVersionIndex.version(id).filter(current -> current > expectedVersion).isPresent()) {
+            throw new PreconditionFailedException(id, expectedVersion);
+        }
+    }
+
+    private RuntimeException notUpdated(Long id, Long expectedVersion) {
+        if (expectedVersion != null && foodRepository.existsById(id)) {
+            return new PreconditionFailedException(id, expectedVersion);
+        }
+        return new EntityNotFoundException("Food not found with id: " + id);
+    }
+
+    private static RuntimeException translateNameConflict(String name, DataIntegrityViolationException e) {
+        return DuplicateFoodNameException.isNameConflict(e) ? new DuplicateFoodNameException(name, e) : e;
+    }
+
+    // Cache misses load from the primary, since a row read from a lagging replica would stay cached after its update
+    private List<Food> findAllOnPrimary(Collection<Long> ids) {
+        return ReadConsistency.onPrimary(() -> foodRepository.findAllById(ids));
+    }
+
+    private List<Food> findAllInIdOrder(long[] ids) {
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        return findAllInIdOrder(boxed);
+    }
+
+    private List<Food> findAllInIdOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Food> foods = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            foods.addAll(foodRepository.findAllById(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()))));
+        }
+        foods.sort(Comparator.comparing(Food::getId));
+        return foods;
+    }
+
+    // Past a few chunks, reading most of the catalog by id costs more than one scan
+    private static boolean isBroad(int matches, int catalogSize) {
+        return matches > ID_CHUNK_SIZE && matches > catalogSize / SCAN_FRACTION;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.example.macrotracker.service;
+
+import java.util.Optional;
+
+import com.example.macrotracker.dto.FoodWriteStatus;
+import com.example.macrotracker.entity.Food;
+
+public interface FoodWriteBehindService {
+    boolean isEnabled();
+
+    // Queues a create for the next group commit; throws WriteQueueFullException when the queue stays full
+    FoodWriteStatus submit(Food food);
+
+    // Blocks until the create's group commits when configured to; empty when not waiting or on timeout.
+    // A rejected create rethrows its failure, e.g. DuplicateFoodNameException
+    Optional<Food> awaitCommit(String trackingId);
+
+    Optional<FoodWriteStatus> getStatus(String trackingId);
+}
@@ -0,0 +1,282 @@
+package com.example.macrotracker.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.macrotracker.dto.FoodWriteStatus;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.exception.DuplicateFoodNameException;
+import com.example.macrotracker.exception.WriteQueueFullException;
+import com.example.macrotracker.repository.FoodRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+// Group commit for creates: one writer thread drains the queue into groups of up to max-batch creates,
+// waiting at most max-delay after the oldest one, and inserts each group in a single transaction.
+// Under load the queue refills while a group commits, so groups grow and commits per create shrink.
+@Service
+public class FoodWriteBehindServiceImpl implements FoodWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(FoodWriteBehindServiceImpl.class);
+
+    private final FoodRepository foodRepository;
+    private final FoodService foodService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean waitForCommit;
+    private final Duration commitTimeout;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long offerTimeoutNanos;
+    private final int capacity;
+    private final BlockingQueue<PendingCreate> queue;
+    private final Map<String, PendingCreate> tracked;
+    private final Thread writer;
+    private volatile boolean accepting = true;
+
+    public FoodWriteBehindServiceImpl(FoodRepository foodRepository, FoodService foodService,
+            EntityManager entityManager, ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${macrotracker.write-behind.enabled:false}") boolean enabled,
+            @Value("${macrotracker.write-behind.wait-for-commit:false}") boolean waitForCommit,
+            @Value("${macrotracker.write-behind.commit-timeout:5s}") Duration commitTimeout,
+            @Value("${macrotracker.write-behind.max-batch:500}") int maxBatch,
+            @Value("${macrotracker.write-behind.max-delay:5ms}") Duration maxDelay,
+            @Value("${macrotracker.write-behind.queue-capacity:10000}") int capacity,
+            @Value("${macrotracker.write-behind.offer-timeout:100ms}") Duration offerTimeout,
+            @Value("${macrotracker.write-behind.tracking-capacity:100000}") int trackingCapacity) {
+        this.foodRepository = foodRepository;
+        this.foodService = foodService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.waitForCommit = waitForCommit;
+        this.commitTimeout = commitTimeout;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(enabled ? capacity : 1);
+        // Statuses of the most recent creates; older ones are forgotten, committed or not
+        this.tracked = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PendingCreate> eldest) {
+                return size() > trackingCapacity;
+            }
+        });
+        this.writer = new Thread(this::drain, "food-write-behind");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    // Commits everything already queued before the context closes
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        accepting = false;
+        writer.join(TimeUnit.MINUTES.toMillis(1));
+        List<PendingCreate> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(create -> create.result.completeExceptionally(
+                new IllegalStateException("The application shut down before the food was written")));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public FoodWriteStatus submit(Food food) {
+        if (!enabled || !accepting) {
+            throw new IllegalStateException("Write-behind is not accepting creates");
+        }
+        food.setId(null);
+        PendingCreate create = new PendingCreate(UUID.randomUUID().toString(), food, System.nanoTime());
+        tracked.put(create.trackingId, create);
+        boolean queued;
+        try {
+            queued = queue.offer(create, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            tracked.remove(create.trackingId);
+            throw new WriteQueueFullException(capacity);
+        }
+        return create.status();
+    }
+
+    @Override
+    public Optional<Food> awaitCommit(String trackingId) {
+        PendingCreate create = tracked.get(trackingId);
+        if (!waitForCommit || create == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(create.result.get(commitTimeout.toNanos(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public Optional<FoodWriteStatus> getStatus(String trackingId) {
+        return Optional.ofNullable(tracked.get(trackingId)).map(PendingCreate::status);
+    }
+
+    private void drain() {
+        List<PendingCreate> group = new ArrayList<>(maxBatch);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingCreate first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = first.submittedNanos + maxDelayNanos;
+                queue.drainTo(group, maxBatch - group.size());
+                while (group.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCreate next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    queue.drainTo(group, maxBatch - group.size());
+                }
+            } catch (InterruptedException e) {
+                commit(group);
+                return;
+            }
+            commit(group);
+            group.clear();
+        }
+    }
+
+    private void commit(List<PendingCreate> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            List<PendingCreate> inserted = transactionTemplate.execute(status -> insertGroup(group));
+            inserted.forEach(create -> create.result.complete(create.food));
+        } catch (DataAccessException e) {
+            // A name taken after the check rolled back the whole group; retrying each create in its own
+            // transaction fails only the conflicting one
+            group.stream().filter(create -> !create.result.isDone()).forEach(this::commitAlone);
+        } catch (RuntimeException e) {
+            log.error("Write-behind group of {} creates failed", group.size(), e);
+            group.forEach(create -> create.result.completeExceptionally(e));
+        }
+    }
+
+    // Keys are lower-cased names; names repeated within the group or already taken are rejected up front
+    private List<PendingCreate> insertGroup(List<PendingCreate> group) {
+        Map<String, PendingCreate> candidates = new LinkedHashMap<>();
+        for (PendingCreate create : group) {
+            if (candidates.putIfAbsent(Food.normalizeName(create.food.getName()), create) != null) {
+                create.result.completeExceptionally(new DuplicateFoodNameException(create.food.getName(), null));
+            }
+        }
+        for (String takenName : foodRepository.findExistingNamesIgnoreCase(candidates.keySet())) {
+            PendingCreate create = candidates.remove(takenName);
+            if (create != null) {
+                create.result.completeExceptionally(new DuplicateFoodNameException(create.food.getName(), null));
+            }
+        }
+
+        List<PendingCreate> inserts = new ArrayList<>(candidates.values());
+        // Sequence ids mean saveAll defers the inserts to this flush; the repository translates its failures
+        // into DataAccessExceptions, which a flush on the shared EntityManager would not
+        foodRepository.saveAll(inserts.stream().map(PendingCreate::food).toList());
+        foodRepository.flush();
+        entityManager.clear();
+        inserts.forEach(create -> eventPublisher.publishEvent(FoodChangedEvent.created(create.food)));
+        return inserts;
+    }
+
+    private void commitAlone(PendingCreate create) {
+        // The rolled-back group left an id and version on the entity
+        create.food.setId(null);
+        create.food.setVersion(null);
+        try {
+            create.result.complete(foodService.saveFood(create.food));
+        } catch (RuntimeException e) {
+            create.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingCreate {
+        final String trackingId;
+        final Food food;
+        final long submittedNanos;
+        final CompletableFuture<Food> result = new CompletableFuture<>();
+
+        PendingCreate(String trackingId, Food food, long submittedNanos) {
+            this.trackingId = trackingId;
+            this.food = food;
+            this.submittedNanos = submittedNanos;
+        }
+
+        Food food() {
+            return food;
+        }
+
+        FoodWriteStatus status() {
+            if (!result.isDone()) {
+                return new FoodWriteStatus(trackingId, FoodWriteStatus.State.PENDING, null, null);
+            }
+            try {
+                return new FoodWriteStatus(trackingId, FoodWriteStatus.State.COMMITTED, result.join().getId(), null);
+            } catch (CompletionException e) {
+                return new FoodWriteStatus(trackingId, FoodWriteStatus.State.FAILED, null, e.getCause().getMessage());
+            }
+        }
+    }
+}
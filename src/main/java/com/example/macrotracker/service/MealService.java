@@ -0,0 +1,11 @@
+package com.example.macrotracker.service;
+
+import java.util.List;
+
+import com.example.macrotracker.dto.MealRequest;
+import com.example.macrotracker.dto.MealTotals;
+
+public interface MealService {
+    MealTotals totalMeal(MealRequest meal);
+    List<MealTotals> totalMeals(List<MealRequest> meals);
+}
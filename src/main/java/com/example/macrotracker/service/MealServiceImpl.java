@@ -0,0 +1,141 @@
+package com.example.macrotracker.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.macrotracker.dto.MealRequest;
+import com.example.macrotracker.dto.MealTotals;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.Macro;
+import com.example.macrotracker.exception.BadRequestException;
+import com.example.macrotracker.index.MacroColumnStore;
+import com.example.macrotracker.repository.FoodRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+// Totals meals from one lookup of all distinct food ids across the request. Macros are copied into
+// primitive columns up front, so summing an ingredient is a binary search and four multiply-adds.
+@Service
+@Transactional(readOnly = true)
+public class MealServiceImpl implements MealService {
+
+    static final int MAX_INGREDIENTS = 100_000;
+
+    private static final int FAT = Macro.FAT.ordinal();
+    private static final int CARBOHYDRATES = Macro.CARBOHYDRATES.ordinal();
+    private static final int PROTEIN = Macro.PROTEIN.ordinal();
+    private static final int CALORIES = Macro.CALORIES.ordinal();
+
+    private final FoodRepository foodRepository;
+    private final MacroColumnStore macroColumnStore;
+
+    public MealServiceImpl(FoodRepository foodRepository, MacroColumnStore macroColumnStore) {
+        this.foodRepository = foodRepository;
+        this.macroColumnStore = macroColumnStore;
+    }
+
+    @Override
+    public MealTotals totalMeal(MealRequest meal) {
+        return totalMeals(List.of(meal)).get(0);
+    }
+
+    @Override
+    public List<MealTotals> totalMeals(List<MealRequest> meals) {
+        if (meals == null || meals.isEmpty()) {
+            throw new BadRequestException("At least one meal is required");
+        }
+        long[] ids = distinctFoodIds(meals);
+        double[][] macros = loadMacros(ids);
+
+        List<MealTotals> totals = new ArrayList<>(meals.size());
+        for (MealRequest meal : meals) {
+            double grams = 0, fat = 0, carbohydrates = 0, protein = 0, calories = 0;
+            for (MealRequest.Ingredient ingredient : meal.ingredients()) {
+                int row = Arrays.binarySearch(ids, ingredient.foodId());
+                double quantity = ingredient.grams();
+                double factor = quantity / 100.0;
+                grams += quantity;
+                fat += macros[FAT][row] * factor;
+                carbohydrates += macros[CARBOHYDRATES][row] * factor;
+                protein += macros[PROTEIN][row] * factor;
+                calories += macros[CALORIES][row] * factor;
+            }
+            totals.add(new MealTotals(meal.name(), grams, fat, carbohydrates, protein, calories));
+        }
+        return totals;
+    }
+
+    // Sorted distinct ids of every ingredient, validating the request on the way
+    private static long[] distinctFoodIds(List<MealRequest> meals) {
+        int count = 0;
+        for (MealRequest meal : meals) {
+            if (meal == null || meal.ingredients() == null || meal.ingredients().isEmpty()) {
+                throw new BadRequestException("Every meal needs at least one ingredient");
+            }
+            count += meal.ingredients().size();
+        }
+        if (count > MAX_INGREDIENTS) {
+            throw new BadRequestException("At most " + MAX_INGREDIENTS + " ingredients per request, got " + count);
+        }
+        long[] ids = new long[count];
+        int n = 0;
+        for (MealRequest meal : meals) {
+            for (MealRequest.Ingredient ingredient : meal.ingredients()) {
+                if (ingredient == null || ingredient.foodId() == null) {
+                    throw new BadRequestException("Every ingredient needs a foodId");
+                }
+                if (ingredient.grams() == null || !(ingredient.grams() >= 0)) {
+                    throw new BadRequestException("Ingredient grams must be zero or more for food " + ingredient.foodId());
+                }
+                ids[n++] = ingredient.foodId();
+            }
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    // values[macro][i] for ids[i]; from the column store once it is loaded, else one findAllById
+    private double[][] loadMacros(long[] ids) {
+        double[][] values = new double[Macro.values().length][ids.length];
+        BitSet found = macroColumnStore.isReady()
+                ? macroColumnStore.lookup(ids, values)
+                : findMacros(ids, values);
+        if (found.cardinality() < ids.length) {
+            String missing = IntStream.range(0, ids.length)
+                    .filter(row -> !found.get(row))
+                    .mapToObj(row -> Long.toString(ids[row]))
+                    .collect(Collectors.joining(", "));
+            throw new EntityNotFoundException("Food not found with id: " + missing);
+        }
+        return values;
+    }
+
+    private BitSet findMacros(long[] ids, double[][] values) {
+        BitSet found = new BitSet(ids.length);
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        for (Food food : foodRepository.findAllById(boxed)) {
+            int row = Arrays.binarySearch(ids, food.getId());
+            for (Macro macro : Macro.values()) {
+                values[macro.ordinal()][row] = macro.of(food);
+            }
+            found.set(row);
+        }
+        return found;
+    }
+}
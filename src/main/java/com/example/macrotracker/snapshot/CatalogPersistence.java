@@ -0,0 +1,300 @@
+package com.example.macrotracker.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.macrotracker.datasource.ReadConsistency;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+// Persistent mode for the in-memory database: the foods table is restored from the last snapshot plus
+// the change logs written after it, before the web server starts. Committed changes are appended to the
+// current log; once it grows past compact-after records, the log is rotated and a new snapshot written.
+@Component
+@ConditionalOnProperty(name = "macrotracker.persistence.enabled", havingValue = "true")
+public class CatalogPersistence implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogPersistence.class);
+
+    private static final String SNAPSHOT_FILE = "foods.snapshot";
+    private static final Pattern LOG_FILE = Pattern.compile("foods-(\\d+)\\.log");
+    private static final int INSERT_BATCH = 5_000;
+    // Matches the allocationSize of the food id sequence
+    private static final int SEQUENCE_ALLOCATION = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path directory;
+    private final boolean sync;
+    private final long compactAfter;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    // Guarded by this
+    private FoodChangeLog changeLog;
+    private long generation;
+    private long changesSinceSnapshot;
+
+    public CatalogPersistence(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${macrotracker.persistence.dir:data}") String directory,
+            @Value("${macrotracker.persistence.sync:false}") boolean sync,
+            @Value("${macrotracker.persistence.compact-after:100000}") long compactAfter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.directory = Path.of(directory);
+        this.sync = sync;
+        this.compactAfter = compactAfter;
+    }
+
+    // Runs once the schema exists and before the web server accepts requests.
+    // A catalog that cannot be restored stops startup rather than being overwritten by an empty one.
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            restore();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not restore the food catalog from " + directory, e);
+        }
+    }
+
+    private synchronized void restore() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long snapshotGeneration = Files.exists(snapshot) ? CatalogSnapshot.generation(snapshot) : 0;
+
+        // Changes since the snapshot, latest per id; they replace whatever older state the snapshot holds for that id
+        Map<Long, Food> changes = new HashMap<>();
+        List<Path> logs = logsFrom(snapshotGeneration);
+        for (Path logFile : logs) {
+            FoodChangeLog.replay(logFile, (id, food) -> mergeChange(changes, id, food));
+        }
+        changesSinceSnapshot = changes.size();
+        generation = logs.isEmpty() ? snapshotGeneration : generationOf(logs.get(logs.size() - 1));
+
+        Long existing = jdbcTemplate.queryForObject("select count(*) from foods", Long.class);
+        if (existing != null && existing > 0) {
+            log.warn("The foods table already holds {} rows, so nothing is restored from {}", existing, directory);
+        } else {
+            Long restored = transactionTemplate.execute(status -> insert(snapshot, changes));
+            log.info("Restored {} foods from {} ({} changes logged since the snapshot) in {} ms", restored,
+                    directory, changes.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        changeLog = FoodChangeLog.open(logFile(generation), sync);
+    }
+
+    // Returns the number of foods inserted
+    private long insert(Path snapshot, Map<Long, Food> changes) {
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        long[] restored = new long[1];
+        long[] maxId = new long[1];
+        Consumer<Food> add = food -> {
+            batch.add(new Object[] { food.getId(), food.getVersion() == null ? 0L : food.getVersion(), food.getName(), food.getNameKey(), food.getFat(),
+                    food.getCarbohydrates(), food.getProtein(), food.getCalories() });
+            maxId[0] = Math.max(maxId[0], food.getId());
+            restored[0]++;
+            if (batch.size() == INSERT_BATCH) {
+                insertBatch(batch);
+            }
+        };
+        if (Files.exists(snapshot)) {
+            try {
+                CatalogSnapshot.read(snapshot, food -> {
+                    if (!changes.containsKey(food.getId())) {
+                        add.accept(food);
+                    } else if (isOlder(changes.get(food.getId()), food)) {
+                        // Logged late, after the rotation, by a commit the snapshot already supersedes
+                        changes.remove(food.getId());
+                        add.accept(food);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        changes.values().stream().filter(Objects::nonNull).forEach(add);
+        insertBatch(batch);
+        if (maxId[0] > 0) {
+            // Pooled ids are handed out from the allocation below the sequence value, so skip a whole one
+            jdbcTemplate.execute("alter sequence foods_seq restart with " + (maxId[0] + SEQUENCE_ALLOCATION));
+        }
+        return restored[0];
+    }
+
+    private void insertBatch(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into foods (id, version, name, name_key, fat, carbohydrates, protein, calories) "
+                    + "values (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodChanged(FoodChangedEvent event) {
+        boolean compact;
+        synchronized (this) {
+            try {
+                changeLog.append(event);
+            } catch (IOException e) {
+                log.error("Could not log the change to food {}; it is lost on restart until the next snapshot",
+                        event.foodId(), e);
+                return;
+            }
+            compact = ++changesSinceSnapshot >= compactAfter;
+        }
+        if (compact && compacting.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException | RuntimeException e) {
+                    log.error("Could not write a catalog snapshot to {}", directory, e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    // Starts a new log first, so every change the table scan might miss is in a log the snapshot does not cover.
+    // Replaying a change the snapshot already holds is harmless, since each record carries the whole food.
+    void compact() throws IOException {
+        long start = System.nanoTime();
+        long snapshotGeneration;
+        synchronized (this) {
+            changeLog.close();
+            snapshotGeneration = ++generation;
+            changeLog = FoodChangeLog.open(logFile(snapshotGeneration), sync);
+            changesSinceSnapshot = 0;
+        }
+        CatalogSnapshot.Header header;
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(directory.resolve(SNAPSHOT_FILE), snapshotGeneration)) {
+            // The snapshot must include everything logged before the rotation, which a lagging replica may not have
+            ReadConsistency.onPrimary(() -> readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                    "select id, version, name, fat, carbohydrates, protein, calories from foods order by id",
+                    (RowCallbackHandler) row -> {
+                        try {
+                            writer.add(food(row));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })));
+            header = writer.commit();
+        }
+        for (Path logFile : logsFrom(0)) {
+            if (generationOf(logFile) < snapshotGeneration) {
+                Files.delete(logFile);
+            }
+        }
+        log.info("Wrote a snapshot of {} foods at generation {} in {} ms", header.foods(), snapshotGeneration,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Leaves a fresh snapshot behind so the next start does not replay this run's changes
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        compactor.shutdown();
+        compactor.awaitTermination(1, TimeUnit.MINUTES);
+        boolean compact;
+        synchronized (this) {
+            compact = changesSinceSnapshot > 0 || !Files.exists(directory.resolve(SNAPSHOT_FILE));
+        }
+        try {
+            if (compact) {
+                compact();
+            }
+        } finally {
+            synchronized (this) {
+                changeLog.close();
+            }
+        }
+    }
+
+    // Changes are logged by after-commit listeners, which concurrent commits can run out of commit order, so a
+    // food's latest state is its highest version rather than its last record. A delete (null) is final, since
+    // ids are not reused
+    static void mergeChange(Map<Long, Food> changes, Long id, Food food) {
+        if (!changes.containsKey(id) || !isOlder(food, changes.get(id))) {
+            changes.put(id, food);
+        }
+    }
+
+    private static boolean isOlder(Food food, Food than) {
+        if (than == null) {
+            return true;
+        }
+        return food != null && version(food) < version(than);
+    }
+
+    private static long version(Food food) {
+        return food.getVersion() == null ? 0L : food.getVersion();
+    }
+
+    private static Food food(ResultSet row) throws SQLException {
+        Food food = new Food(row.getString("name"), row.getObject("fat", Double.class),
+                row.getObject("carbohydrates", Double.class), row.getObject("protein", Double.class),
+                row.getObject("calories", Double.class));
+        food.setId(row.getLong("id"));
+        food.setVersion(row.getObject("version", Long.class));
+        return food;
+    }
+
+    private Path logFile(long logGeneration) {
+        return directory.resolve("foods-" + logGeneration + ".log");
+    }
+
+    // Log files of the given generation and later, oldest first
+    private List<Path> logsFrom(long fromGeneration) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> LOG_FILE.matcher(file.getFileName().toString()).matches())
+                    .filter(file -> generationOf(file) >= fromGeneration)
+                    .sorted((a, b) -> Long.compare(generationOf(a), generationOf(b)))
+                    .toList();
+        }
+    }
+
+    private static long generationOf(Path logFile) {
+        Matcher matcher = LOG_FILE.matcher(logFile.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a change log: " + logFile);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.macrotracker.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.example.macrotracker.entity.Food;
+
+// Compact binary image of the foods table, read back through memory-mapped windows.
+// Layout: magic, format, generation, then one tagged record per food, an end tag, the food count
+// and a CRC32 of everything before it. Writes go to a temporary file that replaces the old one atomically.
+public final class CatalogSnapshot {
+
+    public record Header(long generation, long foods) {
+    }
+
+    private static final int MAGIC = 0x4D544653; // "MTFS"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    private static final int FOOTER_BYTES = 1 + 8 + 8;
+    private static final byte FOOD = 1;
+    private static final byte END = 0;
+
+    // Mappings are limited to 2 GB, so larger snapshots are read one window at a time
+    private static final long WINDOW_BYTES = 1L << 30;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private CatalogSnapshot() {
+    }
+
+    public static Writer create(Path file, long generation) throws IOException {
+        return new Writer(file, generation);
+    }
+
+    public static long generation(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw corrupt(file, "file is truncated");
+            }
+            return checkHeader(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES));
+        }
+    }
+
+    // Verifies the checksum, then hands every food to the consumer in id order
+    public static Header read(Path file, Consumer<Food> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES) {
+                throw corrupt(file, "file is truncated");
+            }
+            verifyChecksum(file, channel, size);
+
+            long windowStart = 0;
+            MappedByteBuffer window = map(channel, windowStart, size);
+            long generation = checkHeader(file, window);
+            long foods = 0;
+            while (true) {
+                // Records never straddle windows: move on while the current one may not hold a whole record
+                if (window.remaining() < FoodRecordCodec.MAX_BYTES + 1 && windowStart + window.limit() < size) {
+                    windowStart += window.position();
+                    window = map(channel, windowStart, size);
+                }
+                byte tag = window.get();
+                if (tag == END) {
+                    break;
+                }
+                if (tag != FOOD) {
+                    throw corrupt(file, "unknown record tag " + tag);
+                }
+                consumer.accept(FoodRecordCodec.read(window));
+                foods++;
+            }
+            if (window.getLong() != foods) {
+                throw corrupt(file, "food count does not match its records");
+            }
+            return new Header(generation, foods);
+        }
+    }
+
+    private static void verifyChecksum(Path file, FileChannel channel, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        long checksummed = size - 8;
+        for (long start = 0; start < checksummed; start += WINDOW_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_BYTES, checksummed - start)));
+        }
+        if (channel.map(FileChannel.MapMode.READ_ONLY, checksummed, 8).getLong() != crc.getValue()) {
+            throw corrupt(file, "checksum mismatch");
+        }
+    }
+
+    private static long checkHeader(Path file, ByteBuffer header) throws IOException {
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+            throw corrupt(file, "not a catalog snapshot");
+        }
+        int format = header.getInt();
+        if (format != FORMAT) {
+            throw corrupt(file, "unsupported format " + format);
+        }
+        return header.getLong();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_BYTES, size - start));
+    }
+
+    private static IOException corrupt(Path file, String reason) {
+        return new IOException("Corrupt catalog snapshot " + file + ": " + reason);
+    }
+
+    // Foods must be added in id order; nothing replaces the target file until commit
+    public static final class Writer implements Closeable {
+
+        private final Path file;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+        private final long generation;
+        private long foods;
+        private boolean committed;
+
+        private Writer(Path file, long generation) throws IOException {
+            this.file = file;
+            this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.generation = generation;
+            buffer.putInt(MAGIC).putInt(FORMAT).putLong(generation);
+        }
+
+        public void add(Food food) throws IOException {
+            if (buffer.remaining() < FoodRecordCodec.MAX_BYTES + 1) {
+                drain(true);
+            }
+            buffer.put(FOOD);
+            FoodRecordCodec.write(buffer, food);
+            foods++;
+        }
+
+        public Header commit() throws IOException {
+            if (buffer.remaining() < FOOTER_BYTES) {
+                drain(true);
+            }
+            buffer.put(END).putLong(foods);
+            drain(true);
+            buffer.putLong(crc.getValue());
+            drain(false);
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return new Header(generation, foods);
+        }
+
+        private void drain(boolean checksummed) throws IOException {
+            buffer.flip();
+            if (checksummed) {
+                crc.update(buffer.duplicate());
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.macrotracker.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+
+// Append-only log of committed food changes since a snapshot. Each record is framed as
+// payload length, CRC32 of the payload, then the payload, so a tail torn by a crash is detected and dropped.
+public final class FoodChangeLog implements Closeable {
+
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+    private static final int FRAME_BYTES = 4 + 4;
+
+    private final FileChannel channel;
+    private final boolean sync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(FRAME_BYTES + 1 + FoodRecordCodec.MAX_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    private FoodChangeLog(FileChannel channel, boolean sync) {
+        this.channel = channel;
+        this.sync = sync;
+    }
+
+    // Opens for appending after the last complete record; with sync, every append is forced to disk
+    public static FoodChangeLog open(Path file, boolean sync) throws IOException {
+        long end = replay(file, (id, food) -> {
+        });
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(end);
+        channel.position(end);
+        return new FoodChangeLog(channel, sync);
+    }
+
+    public synchronized void append(FoodChangedEvent event) throws IOException {
+        buffer.clear().position(FRAME_BYTES);
+        if (event.type() == FoodChangedEvent.ChangeType.DELETED) {
+            buffer.put(DELETE).putLong(event.foodId());
+        } else {
+            buffer.put(UPSERT);
+            FoodRecordCodec.write(buffer, event.food());
+        }
+        int payloadLength = buffer.position() - FRAME_BYTES;
+        crc.reset();
+        crc.update(buffer.array(), FRAME_BYTES, payloadLength);
+        buffer.putInt(0, payloadLength).putInt(4, (int) crc.getValue()).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    // Hands each change to the consumer in log order, a null food meaning deleted, and returns
+    // the length of the intact prefix. A missing file is an empty log.
+    public static long replay(Path file, BiConsumer<Long, Food> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Change log " + file + " exceeds 2 GB; it should have been compacted");
+            }
+            MappedByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            while (log.remaining() >= FRAME_BYTES) {
+                int start = log.position();
+                int payloadLength = log.getInt();
+                int checksum = log.getInt();
+                if (payloadLength <= 0 || payloadLength > log.remaining()) {
+                    return start;
+                }
+                ByteBuffer payload = log.slice(log.position(), payloadLength);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return start;
+                }
+                if (payload.get() == DELETE) {
+                    consumer.accept(payload.getLong(), null);
+                } else {
+                    Food food = FoodRecordCodec.read(payload);
+                    consumer.accept(food.getId(), food);
+                }
+                log.position(start + FRAME_BYTES + payloadLength);
+            }
+            return log.position();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.macrotracker.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.example.macrotracker.entity.Food;
+
+// Binary form of one food shared by snapshots and change logs:
+// id, version (-1 for none), fat, carbohydrates, protein, calories (NaN for null), name as length-prefixed UTF-8
+final class FoodRecordCodec {
+
+    static final int MAX_NAME_BYTES = 0xFFFF;
+    static final int MAX_BYTES = 8 + 8 + 4 * 8 + 2 + MAX_NAME_BYTES;
+
+    private static final long NO_VERSION = -1;
+
+    private FoodRecordCodec() {
+    }
+
+    static void write(ByteBuffer buffer, Food food) {
+        byte[] name = food.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Food " + food.getId() + " has a name longer than " + MAX_NAME_BYTES + " bytes");
+        }
+        buffer.putLong(food.getId())
+                .putLong(food.getVersion() == null ? NO_VERSION : food.getVersion())
+                .putDouble(orNaN(food.getFat()))
+                .putDouble(orNaN(food.getCarbohydrates()))
+                .putDouble(orNaN(food.getProtein()))
+                .putDouble(orNaN(food.getCalories()))
+                .putShort((short) name.length)
+                .put(name);
+    }
+
+    static Food read(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long version = buffer.getLong();
+        Double fat = orNull(buffer.getDouble());
+        Double carbohydrates = orNull(buffer.getDouble());
+        Double protein = orNull(buffer.getDouble());
+        Double calories = orNull(buffer.getDouble());
+        byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(name);
+        Food food = new Food(new String(name, StandardCharsets.UTF_8), fat, carbohydrates, protein, calories);
+        food.setId(id);
+        food.setVersion(version == NO_VERSION ? null : version);
+        return food;
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.macrotracker.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.admission.AdaptiveConcurrencyLimiter.Priority;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void shouldKeepHeadroomForHigherPriorities() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(Priority.BULK)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(Priority.BULK)).isFalse();
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire(Priority.READ)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(Priority.READ)).isFalse();
+        assertThat(limiter.tryAcquire(Priority.WRITE)).isTrue();
+        assertThat(limiter.tryAcquire(Priority.WRITE)).isFalse();
+        assertThat(limiter.inflight()).isEqualTo(10);
+
+        limiter.release();
+        assertThat(limiter.tryAcquire(Priority.WRITE)).isTrue();
+    }
+
+    @Test
+    void shouldBackOffOncePerRoundTripWhenLatencyQueuesUp() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        for (int i = 0; i < 10; i++) {
+            sample(limiter, 1 * MILLIS, false);
+        }
+        assertThat(limiter.limit()).isEqualTo(20);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        sample(limiter, 100 * MILLIS, false);
+        assertThat(limiter.limit()).isEqualTo(10);
+
+        // Still within the slow request's round trip
+        sample(limiter, 100 * MILLIS, false);
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldBackOffOnFailures() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        sample(limiter, 1 * MILLIS, true);
+
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldGrowOnlyWhileTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        for (int i = 0; i < 100; i++) {
+            sample(limiter, 1 * MILLIS, false);
+        }
+        assertThat(limiter.limit()).isEqualTo(10);
+
+        for (int round = 0; round < 100; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire(Priority.WRITE)) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(1 * MILLIS, false);
+            }
+        }
+        assertThat(limiter.limit()).isGreaterThan(20);
+    }
+
+    private void sample(AdaptiveConcurrencyLimiter limiter, long latencyNanos, boolean failed) {
+        assertThat(limiter.tryAcquire(Priority.WRITE)).isTrue();
+        limiter.release(latencyNanos, failed);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 1, 100, 2.0, 5 * MILLIS, 0.5,
+                TimeUnit.SECONDS.toNanos(30), clock::get);
+    }
+}
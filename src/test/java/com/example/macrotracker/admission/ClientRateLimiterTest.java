@@ -0,0 +1,46 @@
+package com.example.macrotracker.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ClientRateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void shouldAdmitABurstAndThenTheRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 100, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        }
+        assertThat(limiter.tryAcquire("10.0.0.1")).isEqualTo(100 * MILLIS);
+        assertThat(limiter.tryAcquire("10.0.0.2")).isZero();
+
+        clock.addAndGet(100 * MILLIS);
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isEqualTo(100 * MILLIS);
+    }
+
+    @Test
+    void shouldDropIdleBucketsAndShareOneBeyondMaxClients() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 1, 1, clock::get);
+
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        // 10.0.0.1 is still refilling, so the new client gets the shared bucket
+        assertThat(limiter.tryAcquire("10.0.0.2")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.3")).isPositive();
+        assertThat(limiter.clients()).isEqualTo(1);
+
+        clock.addAndGet(100 * MILLIS);
+        assertThat(limiter.tryAcquire("10.0.0.3")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.3")).isPositive();
+        assertThat(limiter.clients()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.macrotracker.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.example.macrotracker.admission.AdaptiveConcurrencyLimiter.Priority;
+
+class EndpointConcurrencyLimitsTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> created = new ArrayList<>();
+
+    @Test
+    void shouldBackOffOnlyTheEndpointWhoseLatencyQueuesUp() {
+        EndpointConcurrencyLimits limits = limits(64);
+        for (int i = 0; i < 10; i++) {
+            sample(limits, "GET /api/foods/filter", 1 * MILLIS);
+            sample(limits, "GET /api/foods/{id}", 1 * MILLIS);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            sample(limits, "GET /api/foods/filter", 500 * MILLIS);
+            sample(limits, "GET /api/foods/{id}", 1 * MILLIS);
+        }
+
+        assertThat(limits.limits()).containsEntry("GET /api/foods/filter", 1)
+                .containsEntry("GET /api/foods/{id}", 20);
+    }
+
+    @Test
+    void shouldCountInflightPerEndpoint() {
+        EndpointConcurrencyLimits limits = limits(64);
+        // Reads may use 18 of the 20
+        for (int i = 0; i < 18; i++) {
+            assertThat(limits.limiter("GET /api/foods/filter").tryAcquire(Priority.READ)).isTrue();
+        }
+        assertThat(limits.limiter("GET /api/foods/filter").tryAcquire(Priority.READ)).isFalse();
+
+        assertThat(limits.limiter("GET /api/foods/{id}").tryAcquire(Priority.READ)).isTrue();
+        assertThat(limits.inflight()).isEqualTo(19);
+        assertThat(limits.inflight("GET /api/foods/{id}")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldShareOneLimitBeyondMaxEndpoints() {
+        EndpointConcurrencyLimits limits = limits(2);
+
+        AdaptiveConcurrencyLimiter first = limits.limiter("GET /api/foods/a");
+        limits.limiter("GET /api/foods/b");
+        AdaptiveConcurrencyLimiter third = limits.limiter("GET /api/foods/c");
+
+        assertThat(limits.limiter("GET /api/foods/a")).isSameAs(first);
+        assertThat(limits.limiter("GET /api/foods/d")).isSameAs(third);
+        assertThat(created).containsExactly("GET /api/foods/a", "GET /api/foods/b", EndpointConcurrencyLimits.OTHER);
+    }
+
+    @Test
+    void shouldFoldIdsIntoTheEndpoint() {
+        assertThat(AdmissionControlFilter.endpoint(new MockHttpServletRequest("GET", "/api/foods/42")))
+                .isEqualTo("GET /api/foods/{id}");
+        assertThat(AdmissionControlFilter.endpoint(new MockHttpServletRequest("PUT", "/api/foods/7/")))
+                .isEqualTo("PUT /api/foods/{id}");
+        assertThat(AdmissionControlFilter.endpoint(new MockHttpServletRequest("GET",
+                "/api/foods/writes/3f2a9c1e-0b7d-4e52-9a61-2c8d5e4f7a10")))
+                .isEqualTo("GET /api/foods/writes/{id}");
+        assertThat(AdmissionControlFilter.endpoint(new MockHttpServletRequest("GET", "/api/foods/search/fuzzy")))
+                .isEqualTo("GET /api/foods/search/fuzzy");
+    }
+
+    private void sample(EndpointConcurrencyLimits limits, String endpoint, long latencyNanos) {
+        AdaptiveConcurrencyLimiter limiter = limits.limiter(endpoint);
+        assertThat(limiter.tryAcquire(Priority.WRITE)).isTrue();
+        limiter.release(latencyNanos, false);
+    }
+
+    private EndpointConcurrencyLimits limits(int maxEndpoints) {
+        return new EndpointConcurrencyLimits(() -> new AdaptiveConcurrencyLimiter(20, 1, 100, 2.0, 5 * MILLIS, 0.5,
+                TimeUnit.SECONDS.toNanos(30), clock::get), maxEndpoints, (endpoint, limiter) -> created.add(endpoint));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.macrotracker.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+
+class FoodBatchLoaderTest {
+
+    // Holds up reads that include id 1 until released
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<List<Long>> reads = new ArrayList<>();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void shouldReadAnIdOnceForConcurrentLookups() throws Exception {
+        FoodBatchLoader loader = new FoodBatchLoader(Duration.ofMillis(2), 100);
+
+        CompletableFuture<Optional<Food>> first = async(() -> loader.load(1L, this::read));
+        await(() -> reads().size() == 1);
+        CompletableFuture<Optional<Food>> second = async(() -> loader.load(1L, this::read));
+        await(() -> loader.stats().coalesced() == 1);
+        release.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).map(Food::getId).contains(1L);
+        assertThat(second.get(10, TimeUnit.SECONDS)).map(Food::getId).contains(1L);
+        assertThat(reads()).containsExactly(List.of(1L));
+    }
+
+    @Test
+    void shouldBatchLookupsThatArriveWhileAReadIsInProgress() throws Exception {
+        FoodBatchLoader loader = new FoodBatchLoader(Duration.ofSeconds(10), 2);
+
+        CompletableFuture<Optional<Food>> first = async(() -> loader.load(1L, this::read));
+        await(() -> reads().size() == 1);
+        // The second lookup waits for a second id, which fills the batch
+        CompletableFuture<Optional<Food>> second = async(() -> loader.load(2L, this::read));
+        CompletableFuture<Optional<Food>> third = async(() -> loader.load(404L, this::read));
+
+        assertThat(second.get(10, TimeUnit.SECONDS)).map(Food::getId).contains(2L);
+        assertThat(third.get(10, TimeUnit.SECONDS)).isEmpty();
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        assertThat(reads()).hasSize(2);
+        assertThat(reads().get(1)).containsExactlyInAnyOrder(2L, 404L);
+    }
+
+    @Test
+    void shouldShareReadsInProgressWithMultiGets() throws Exception {
+        FoodBatchLoader loader = new FoodBatchLoader(Duration.ZERO, 100);
+
+        CompletableFuture<Optional<Food>> single = async(() -> loader.load(1L, this::read));
+        await(() -> reads().size() == 1);
+        CompletableFuture<Map<Long, Food>> multi = async(() -> loader.loadAll(List.of(1L, 2L, 3L), this::read));
+        await(() -> reads().size() == 2);
+        release.countDown();
+
+        assertThat(single.get(10, TimeUnit.SECONDS)).isPresent();
+        assertThat(multi.get(10, TimeUnit.SECONDS)).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(reads().get(1)).containsExactly(2L, 3L);
+        assertThat(loader.stats().coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotAnswerLookupsAfterAChangeFromAnEarlierRead() throws Exception {
+        FoodBatchLoader loader = new FoodBatchLoader(Duration.ZERO, 100);
+
+        CompletableFuture<Optional<Food>> before = async(() -> loader.load(1L, this::read));
+        await(() -> reads().size() == 1);
+        loader.onFoodChanged(FoodChangedEvent.deleted(1L));
+        CompletableFuture<Optional<Food>> after = async(() -> loader.load(1L, this::read));
+        await(() -> reads().size() == 2);
+        release.countDown();
+
+        before.get(10, TimeUnit.SECONDS);
+        after.get(10, TimeUnit.SECONDS);
+        assertThat(loader.stats().coalesced()).isZero();
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, callers);
+    }
+
+    private List<Food> read(Collection<Long> ids) {
+        synchronized (reads) {
+            reads.add(List.copyOf(ids));
+        }
+        if (ids.contains(1L)) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Ids from 400 up do not exist
+        return ids.stream().filter(id -> id < 400).map(id -> {
+            Food food = new Food("Food " + id, 1.0, 1.0, 1.0, 10.0);
+            food.setId(id);
+            return food;
+        }).toList();
+    }
+
+    private List<List<Long>> reads() {
+        synchronized (reads) {
+            return new ArrayList<>(reads);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
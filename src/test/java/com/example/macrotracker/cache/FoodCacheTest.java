@@ -0,0 +1,130 @@
+package com.example.macrotracker.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.entity.Food;
+
+class FoodCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private FoodCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FoodCache(2, Duration.ofSeconds(60), Duration.ofSeconds(5), clock::get);
+    }
+
+    @Test
+    void shouldLoadOnceAndThenHit() {
+        cache.get(1L, loader());
+        Optional<Food> cached = cache.get(1L, loader());
+
+        assertThat(cached).map(Food::getId).contains(1L);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheMissingIdsForTheNegativeTtl() {
+        cache.get(99L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        assertThat(cache.get(99L, loader())).isEmpty();
+        assertThat(loads).hasValue(1);
+
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertThat(cache.get(99L, loader())).isPresent();
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBeyondMaxSize() {
+        // Recency is the clock reading at the last access
+        for (long id : new long[] { 1, 2, 1, 3 }) {
+            clock.incrementAndGet();
+            cache.get(id, loader());
+        }
+
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        cache.get(1L, loader());
+        cache.get(3L, loader());
+        assertThat(loads).hasValue(3);
+        cache.get(2L, loader());
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void shouldEvictOneSixteenthOnceFull() {
+        cache = new FoodCache(32, Duration.ofSeconds(60), Duration.ofSeconds(5), clock::get);
+        for (long id = 1; id <= 33; id++) {
+            clock.incrementAndGet();
+            cache.get(id, loader());
+        }
+
+        assertThat(cache.stats().evictions()).isEqualTo(3);
+        assertThat(cache.stats().size()).isEqualTo(30);
+        cache.get(4L, loader());
+        assertThat(loads).hasValue(33);
+        cache.get(3L, loader());
+        assertThat(loads).hasValue(34);
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        cache.get(1L, loader());
+        cache.invalidate(1L);
+        cache.get(1L, loader());
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().invalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotStoreRowsLoadedConcurrentlyWithAnInvalidation() {
+        cache.get(1L, id -> {
+            cache.invalidate(id);
+            return loader().apply(id);
+        });
+        cache.get(1L, loader());
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldLoadAllMissesInOneCall() {
+        cache.get(1L, loader());
+        List<Collection<Long>> calls = new ArrayList<>();
+
+        Map<Long, Food> found = cache.getAll(List.of(1L, 2L, 99L), ids -> {
+            calls.add(List.copyOf(ids));
+            return Map.of(2L, loader().apply(2L).get());
+        });
+
+        assertThat(found).containsOnlyKeys(1L, 2L);
+        assertThat(calls).containsExactly(List.of(2L, 99L));
+        assertThat(cache.get(99L, loader())).isEmpty();
+        assertThat(cache.stats().hits()).isEqualTo(2);
+    }
+
+    private Function<Long, Optional<Food>> loader() {
+        return id -> {
+            loads.incrementAndGet();
+            Food food = new Food("Food " + id, 1.0, 1.0, 1.0, 10.0);
+            food.setId(id);
+            return Optional.of(food);
+        };
+    }
+}
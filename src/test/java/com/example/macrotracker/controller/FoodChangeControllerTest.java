@@ -0,0 +1,54 @@
+package com.example.macrotracker.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.macrotracker.dto.FoodChange;
+import com.example.macrotracker.dto.FoodChanges;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent.ChangeType;
+import com.example.macrotracker.exception.ChangeFeedExpiredException;
+import com.example.macrotracker.feed.FoodChangeFeed;
+
+@WebMvcTest(FoodChangeController.class)
+public class FoodChangeControllerTest {
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private FoodChangeFeed changeFeed;
+
+	@Test
+	void shouldReturnChangesSinceASequence() throws Exception {
+	    Food apple = new Food("Apple", 0.2, 25.0, 0.3, 95.0);
+	    apple.setId(1L);
+	    when(changeFeed.changesSince(4L, 1000)).thenReturn(new FoodChanges(
+	            List.of(new FoodChange(5, ChangeType.UPDATED, 1L, apple), new FoodChange(7, ChangeType.DELETED, 2L, null)),
+	            7, 7));
+
+	    mockMvc.perform(get("/api/foods/changes").param("since", "4"))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.changes[0].sequence").value(5))
+	            .andExpect(jsonPath("$.changes[0].food.name").value("Apple"))
+	            .andExpect(jsonPath("$.changes[1].type").value("DELETED"))
+	            .andExpect(jsonPath("$.nextSequence").value(7));
+	}
+
+	@Test
+	void shouldReturnGoneWhenTheChangesAreNoLongerBuffered() throws Exception {
+	    when(changeFeed.changesSince(1L, 1000)).thenThrow(new ChangeFeedExpiredException(1L, 20_000L));
+
+	    mockMvc.perform(get("/api/foods/changes").param("since", "1"))
+	            .andExpect(status().isGone());
+	}
+}
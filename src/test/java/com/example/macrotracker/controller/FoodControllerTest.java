@@ -2,19 +2,34 @@ package com.example.macrotracker.controller;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,15 +37,35 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.example.macrotracker.dto.FoodMatch;
+import com.example.macrotracker.dto.FoodNeighbor;
+import com.example.macrotracker.dto.FoodPage;
+import com.example.macrotracker.dto.FoodPatch;
+import com.example.macrotracker.dto.FoodWriteStatus;
+import com.example.macrotracker.dto.ImportReport;
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.dto.NearestFoodQuery;
 import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.BadRequestException;
+import com.example.macrotracker.exception.DuplicateFoodNameException;
+import com.example.macrotracker.exception.FoodInUseException;
+import com.example.macrotracker.exception.PreconditionFailedException;
+import com.example.macrotracker.exception.WriteQueueFullException;
+import com.example.macrotracker.service.FoodImportService;
 import com.example.macrotracker.service.FoodService;
+import com.example.macrotracker.service.FoodWriteBehindService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 import jakarta.persistence.EntityNotFoundException;
 
-@WebMvcTest
+@WebMvcTest(FoodController.class)
 public class FoodControllerTest {
 	@Autowired
 	private MockMvc mockMvc;
@@ -41,6 +76,12 @@ public class FoodControllerTest {
 	@MockBean //SpyBean is a newer annotation.  Check Spring Docs for details and differences.
 	private FoodService foodService;
 	
+	@MockBean
+	private FoodImportService foodImportService;
+
+	@MockBean
+	private FoodWriteBehindService foodWriteBehindService;
+	
 	private Food chickenBreast;
 	private Food salmon;
 	
@@ -64,6 +105,59 @@ public class FoodControllerTest {
                 .andExpect(jsonPath("$[1].name").value("Salmon Fillet"));
     }
 
+    @Test
+    void shouldReturnKeysetPage() throws Exception {
+        when(foodService.getFoodsPage(null, 1)).thenReturn(new FoodPage(Arrays.asList(chickenBreast), FoodPage.encodeCursor(1L)));
+
+        mockMvc.perform(get("/api/foods/page").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Chicken Breast"))
+                .andExpect(jsonPath("$.nextCursor").value(FoodPage.encodeCursor(1L)));
+    }
+
+    @Test
+    void shouldReturn400ForInvalidCursor() throws Exception {
+        when(foodService.getFoodsPage("bogus", 50)).thenThrow(new BadRequestException("Invalid cursor: bogus"));
+
+        mockMvc.perform(get("/api/foods/page").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldFilterFoodsByMacroRanges() throws Exception {
+        MacroFilter filter = new MacroFilter(null, null, null, null, 20.0, null, null, 200.0);
+        when(foodService.filterFoods(filter, 100)).thenReturn(Arrays.asList(chickenBreast));
+
+        mockMvc.perform(get("/api/foods/filter").param("minProtein", "20").param("maxCalories", "200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Chicken Breast"));
+    }
+
+    @Test
+    void shouldReturnNearestFoods() throws Exception {
+        NearestFoodQuery query = new NearestFoodQuery(10.0, null, 30.0, null, null, null, 2.0, null, null);
+        when(foodService.findNearestFoods(query, 5)).thenReturn(Arrays.asList(new FoodNeighbor(chickenBreast, 0.42)));
+
+        mockMvc.perform(get("/api/foods/nearest").param("fat", "10").param("protein", "30")
+                .param("proteinWeight", "2").param("k", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].food.name").value("Chicken Breast"))
+                .andExpect(jsonPath("$[0].distance").value(0.42));
+    }
+
+    @Test
+    void shouldReturnFuzzyMatches() throws Exception {
+        when(foodService.fuzzySearchFoods("chiken brest", 1, 20))
+                .thenReturn(Arrays.asList(new FoodMatch(chickenBreast, 2)));
+
+        mockMvc.perform(get("/api/foods/search/fuzzy").param("q", "chiken brest").param("maxDistance", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].food.name").value("Chicken Breast"))
+                .andExpect(jsonPath("$[0].distance").value(2));
+    }
+
     @Test
     void shouldReturnFoodWhenExists() throws Exception {
         when(foodService.getFoodById(1L)).thenReturn(Optional.of(chickenBreast));
@@ -82,6 +176,17 @@ public class FoodControllerTest {
         mockMvc.perform(get("/api/foods/999"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void shouldReturnFoodsByIds() throws Exception {
+        when(foodService.getFoodsByIds(List.of(2L, 1L))).thenReturn(Arrays.asList(salmon, chickenBreast));
+
+        mockMvc.perform(get("/api/foods").param("ids", "2,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Salmon Fillet"));
+        verify(foodService, never()).getAllFoods();
+    }
     
     @Test
     void shouldCreateNewFood() throws Exception {
@@ -95,6 +200,61 @@ public class FoodControllerTest {
                 .andExpect(jsonPath("$.name").value("Apple"));    	
     }
 
+	@Test
+	void shouldReturn409WhenFoodNameIsTaken() throws Exception {
+	    Food duplicate = new Food("Chicken Breast", 3.6, 0.0, 31.0, 165.0);
+	    when(foodService.saveFood(any(Food.class)))
+	            .thenThrow(new DuplicateFoodNameException("Chicken Breast", null));
+
+	    mockMvc.perform(post("/api/foods")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content(objectMapper.writeValueAsString(duplicate)))
+	            .andExpect(status().isConflict());
+	}
+
+	@Test
+	void shouldAcceptQueuedCreateWithTrackingId() throws Exception {
+	    Food newFood = new Food("Apple", 0.2, 25.0, 0.3, 95.0);
+	    when(foodWriteBehindService.isEnabled()).thenReturn(true);
+	    when(foodWriteBehindService.submit(any(Food.class)))
+	            .thenReturn(new FoodWriteStatus("abc", FoodWriteStatus.State.PENDING, null, null));
+	    when(foodWriteBehindService.awaitCommit("abc")).thenReturn(Optional.empty());
+
+	    mockMvc.perform(post("/api/foods")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content(objectMapper.writeValueAsString(newFood)))
+	            .andExpect(status().isAccepted())
+	            .andExpect(header().string("Location", "/api/foods/writes/abc"))
+	            .andExpect(jsonPath("$.state").value("PENDING"));
+	    verify(foodService, never()).saveFood(any(Food.class));
+	}
+
+	@Test
+	void shouldReturn503WhenWriteQueueIsFull() throws Exception {
+	    Food newFood = new Food("Apple", 0.2, 25.0, 0.3, 95.0);
+	    when(foodWriteBehindService.isEnabled()).thenReturn(true);
+	    when(foodWriteBehindService.submit(any(Food.class))).thenThrow(new WriteQueueFullException(10));
+
+	    mockMvc.perform(post("/api/foods")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content(objectMapper.writeValueAsString(newFood)))
+	            .andExpect(status().isServiceUnavailable())
+	            .andExpect(header().string("Retry-After", "1"));
+	}
+
+	@Test
+	void shouldReturnWriteStatus() throws Exception {
+	    when(foodWriteBehindService.getStatus("abc"))
+	            .thenReturn(Optional.of(new FoodWriteStatus("abc", FoodWriteStatus.State.COMMITTED, 7L, null)));
+
+	    mockMvc.perform(get("/api/foods/writes/abc"))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.state").value("COMMITTED"))
+	            .andExpect(jsonPath("$.foodId").value(7));
+	    mockMvc.perform(get("/api/foods/writes/unknown"))
+	            .andExpect(status().isNotFound());
+	}
+
 	@Test
 	void shouldReturn400WhenInvalidFood() throws Exception {
 	    Food invalidFood = new Food(null, -1.0, 25.0, 0.3, 95.0);
@@ -108,7 +268,7 @@ public class FoodControllerTest {
 	@Test
 	void shouldUpdateExistingFood() throws Exception {
 	    Food updatedFood = new Food("Updated Chicken", 4.0, 0.0, 32.0, 170.0);
-	    when(foodService.updateFood(eq(1L), any(Food.class))).thenReturn(updatedFood);
+	    when(foodService.updateFood(eq(1L), any(Food.class), isNull())).thenReturn(updatedFood);
 
 	    mockMvc.perform(put("/api/foods/1")
 	            .contentType(MediaType.APPLICATION_JSON)
@@ -121,7 +281,7 @@ public class FoodControllerTest {
 	@Test
 	void shouldReturn404WhenUpdatingNonExistentFood() throws Exception {
 	    Food updatedFood = new Food("Updated Chicken", 4.0, 0.0, 32.0, 170.0);
-	    when(foodService.updateFood(eq(999L), any(Food.class)))
+	    when(foodService.updateFood(eq(999L), any(Food.class), isNull()))
 	            .thenThrow(new EntityNotFoundException("Food not found with id: 999"));
 	
 	    mockMvc.perform(put("/api/foods/999")
@@ -132,7 +292,7 @@ public class FoodControllerTest {
 	
 	@Test
 	void shouldDeleteExistingFood() throws Exception {
-	    doNothing().when(foodService).deleteFood(1L);
+	    doNothing().when(foodService).deleteFood(1L, null);
 
 	    mockMvc.perform(delete("/api/foods/1"))
 	            .andExpect(status().isNoContent());
@@ -141,12 +301,286 @@ public class FoodControllerTest {
 	@Test
 	void shouldReturn404WhenDeletingNonExistentFood() throws Exception {
 	    doThrow(new EntityNotFoundException("Food not found with id: 999"))
-	            .when(foodService).deleteFood(999L);
+	            .when(foodService).deleteFood(999L, null);
 
 	    mockMvc.perform(delete("/api/foods/999"))
 	            .andExpect(status().isNotFound());
 	}
-    
-    
-	
+
+	@Test
+	void shouldReturn409WhenDeletingALoggedFood() throws Exception {
+	    doThrow(new FoodInUseException(1L, null)).when(foodService).deleteFood(1L, null);
+
+	    mockMvc.perform(delete("/api/foods/1"))
+	            .andExpect(status().isConflict())
+	            .andExpect(content().string("Food 1 has log entries and cannot be deleted"));
+	}
+
+	@Test
+	void shouldReturn304FromVersionIndexWithoutLoadingFood() throws Exception {
+	    when(foodService.getFoodVersion(1L)).thenReturn(Optional.of(3L));
+
+	    mockMvc.perform(get("/api/foods/1").header("If-None-Match", "W/\"3\""))
+	            .andExpect(status().isNotModified())
+	            .andExpect(header().string("ETag", "\"3\""));
+	    verify(foodService, never()).getFoodById(1L);
+	}
+
+	@Test
+	void shouldReturnFoodWithETagWhenVersionChanged() throws Exception {
+	    chickenBreast.setVersion(4L);
+	    when(foodService.getFoodVersion(1L)).thenReturn(Optional.of(4L));
+	    when(foodService.getFoodById(1L)).thenReturn(Optional.of(chickenBreast));
+
+	    mockMvc.perform(get("/api/foods/1").header("If-None-Match", "\"3\""))
+	            .andExpect(status().isOk())
+	            .andExpect(header().string("ETag", "\"4\""))
+	            .andExpect(jsonPath("$.version").value(4));
+	}
+
+	@Test
+	void shouldReturn304ForUnchangedCatalog() throws Exception {
+	    when(foodService.getCatalogVersion()).thenReturn(Optional.of("ab12-7"));
+
+	    mockMvc.perform(get("/api/foods/search").param("q", "chi").header("If-None-Match", "\"ab12-7\""))
+	            .andExpect(status().isNotModified());
+	    verify(foodService, never()).searchFoodsByName("chi", 20);
+
+	    when(foodService.getCatalogVersion()).thenReturn(Optional.of("ab12-8"));
+	    when(foodService.searchFoodsByName("chi", 20)).thenReturn(Arrays.asList(chickenBreast));
+
+	    mockMvc.perform(get("/api/foods/search").param("q", "chi").header("If-None-Match", "\"ab12-7\""))
+	            .andExpect(status().isOk())
+	            .andExpect(header().string("ETag", "\"ab12-8\""))
+	            .andExpect(jsonPath("$[0].name").value("Chicken Breast"));
+	}
+
+	@Test
+	void shouldUpdateWithIfMatchAndReturnNewETag() throws Exception {
+	    Food updatedFood = new Food("Updated Chicken", 4.0, 0.0, 32.0, 170.0);
+	    updatedFood.setVersion(4L);
+	    when(foodService.updateFood(eq(1L), any(Food.class), eq(3L))).thenReturn(updatedFood);
+
+	    mockMvc.perform(put("/api/foods/1")
+	            .header("If-Match", "\"3\"")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content(objectMapper.writeValueAsString(updatedFood)))
+	            .andExpect(status().isOk())
+	            .andExpect(header().string("ETag", "\"4\""));
+	}
+
+	@Test
+	void shouldReturn412WhenIfMatchIsStale() throws Exception {
+	    doThrow(new PreconditionFailedException(1L, 3L)).when(foodService).deleteFood(1L, 3L);
+
+	    mockMvc.perform(delete("/api/foods/1").header("If-Match", "\"3\""))
+	            .andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	void shouldReturn400ForWeakIfMatch() throws Exception {
+	    mockMvc.perform(delete("/api/foods/1").header("If-Match", "W/\"3\""))
+	            .andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void shouldNegotiateCborForFoodList() throws Exception {
+	    when(foodService.getAllFoods()).thenReturn(Arrays.asList(chickenBreast, salmon));
+
+	    MvcResult result = mockMvc.perform(get("/api/foods").accept("application/cbor"))
+	            .andExpect(status().isOk())
+	            .andExpect(content().contentType("application/cbor"))
+	            .andReturn();
+
+	    List<Food> foods = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), new TypeReference<List<Food>>() {
+	    });
+	    assertThat(foods).extracting(Food::getName).containsExactly("Chicken Breast", "Salmon Fillet");
+	    assertThat(foods.get(1).getCalories()).isEqualTo(208.0);
+	}
+
+	@Test
+	void shouldGiveEachFormatItsOwnETag() throws Exception {
+	    chickenBreast.setVersion(4L);
+	    when(foodService.getFoodVersion(1L)).thenReturn(Optional.of(4L));
+	    when(foodService.getFoodById(1L)).thenReturn(Optional.of(chickenBreast));
+
+	    mockMvc.perform(get("/api/foods/1").accept("application/cbor").header("If-None-Match", "\"4\""))
+	            .andExpect(status().isOk())
+	            .andExpect(content().contentType("application/cbor"))
+	            .andExpect(header().string("ETag", "\"4-cbor\""))
+	            .andExpect(header().stringValues("Vary", "Accept"));
+	    mockMvc.perform(get("/api/foods/1").accept("application/cbor").header("If-None-Match", "\"4-cbor\""))
+	            .andExpect(status().isNotModified())
+	            .andExpect(header().string("ETag", "\"4-cbor\""))
+	            .andExpect(header().stringValues("Vary", "Accept"));
+	    mockMvc.perform(get("/api/foods/1").accept("application/x-jackson-smile"))
+	            .andExpect(content().contentType("application/x-jackson-smile"))
+	            .andExpect(header().string("ETag", "\"4-smile\""));
+	    mockMvc.perform(get("/api/foods/1").accept(MediaType.APPLICATION_JSON).header("If-None-Match", "\"4-cbor\""))
+	            .andExpect(status().isOk())
+	            .andExpect(header().string("ETag", "\"4\""))
+	            .andExpect(header().stringValues("Vary", "Accept"));
+	}
+
+	@Test
+	void shouldSuffixCatalogETagByFormat() throws Exception {
+	    when(foodService.getCatalogVersion()).thenReturn(Optional.of("ab12-8"));
+	    when(foodService.searchFoodsByName("chi", 20)).thenReturn(Arrays.asList(chickenBreast));
+
+	    mockMvc.perform(get("/api/foods/search").param("q", "chi").accept("application/cbor")
+	            .header("If-None-Match", "\"ab12-8\""))
+	            .andExpect(status().isOk())
+	            .andExpect(header().string("ETag", "\"ab12-8-cbor\""))
+	            .andExpect(header().stringValues("Vary", "Accept"));
+	}
+
+	@Test
+	void shouldVaryByAcceptWithoutETag() throws Exception {
+	    when(foodService.findNearestFoods(any(NearestFoodQuery.class), eq(10))).thenReturn(List.of());
+
+	    mockMvc.perform(get("/api/foods/nearest").param("protein", "30"))
+	            .andExpect(status().isOk())
+	            .andExpect(header().stringValues("Vary", "Accept"));
+	}
+
+	@Test
+	void shouldAcceptAnyFormatsETagInIfMatch() throws Exception {
+	    doNothing().when(foodService).deleteFood(1L, 3L);
+
+	    mockMvc.perform(delete("/api/foods/1").header("If-Match", "\"3-cbor\""))
+	            .andExpect(status().isNoContent());
+	    verify(foodService).deleteFood(1L, 3L);
+	}
+
+	@Test
+	void shouldNegotiateFormatLikeSpringMvc() {
+	    assertThat(WireFormatConfig.negotiate(null)).isEqualTo(MediaType.APPLICATION_JSON);
+	    assertThat(WireFormatConfig.negotiate("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+	    assertThat(WireFormatConfig.negotiate("application/cbor, */*;q=0.5")).isEqualTo(MediaType.APPLICATION_CBOR);
+	    assertThat(WireFormatConfig.negotiate("application/json;q=0.5, application/x-jackson-smile"))
+	            .isEqualTo(WireFormatConfig.SMILE);
+	    assertThat(WireFormatConfig.negotiate("text/html")).isNull();
+	}
+
+	@Test
+	void shouldAcceptSmileRequestBody() throws Exception {
+	    Food newFood = new Food("Apple", 0.2, 25.0, 0.3, 95.0);
+	    when(foodService.saveFood(any(Food.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+	    mockMvc.perform(post("/api/foods")
+	            .contentType("application/x-jackson-smile")
+	            .content(new SmileMapper().writeValueAsBytes(newFood)))
+	            .andExpect(status().isCreated())
+	            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+	            .andExpect(jsonPath("$.name").value("Apple"));
+	}
+
+	@Test
+	void shouldApplyMergePatch() throws Exception {
+	    Food patchedFood = new Food("Chicken Breast", 3.6, 0.0, 31.0, 170.0);
+	    patchedFood.setVersion(5L);
+	    when(foodService.patchFood(1L, new FoodPatch(null, null, null, null, 170.0), 4L)).thenReturn(patchedFood);
+
+	    mockMvc.perform(patch("/api/foods/1")
+	            .header("If-Match", "\"4\"")
+	            .contentType("application/merge-patch+json")
+	            .content("{\"calories\": 170}"))
+	            .andExpect(status().isOk())
+	            .andExpect(header().string("ETag", "\"5\""))
+	            .andExpect(jsonPath("$.calories").value(170.0));
+	}
+
+	@Test
+	void shouldRejectNullAndNegativeFieldsInMergePatch() throws Exception {
+	    mockMvc.perform(patch("/api/foods/1")
+	            .contentType("application/merge-patch+json")
+	            .content("{\"fat\": null}"))
+	            .andExpect(status().isBadRequest());
+	    mockMvc.perform(patch("/api/foods/1")
+	            .contentType("application/merge-patch+json")
+	            .content("{\"protein\": -1}"))
+	            .andExpect(status().isBadRequest());
+	    verify(foodService, never()).patchFood(any(), any(), any());
+	}
+
+	@Test
+	void shouldImportCsvBody() throws Exception {
+	    ImportReport report = ImportReport.of(List.of(new ImportReport.ChunkReport(1, 1, 2, 2, 0, List.of())));
+	    when(foodImportService.importFoods(any())).thenReturn(report);
+
+	    mockMvc.perform(post("/api/foods/import")
+	            .contentType("text/csv")
+	            .content("name,fat,carbohydrates,protein,calories\nApple,0.2,25,0.3,95\nBanana,0.3,23,1.1,89\n"))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.accepted").value(2))
+	            .andExpect(jsonPath("$.chunks[0].rejected").value(0));
+	}
+
+	@Test
+	void shouldImportUploadedNdjsonFile() throws Exception {
+	    when(foodImportService.importFoods(any())).thenReturn(ImportReport.of(List.of()));
+	    MockMultipartFile file = new MockMultipartFile("file", "foods.ndjson", null,
+	            "{\"name\":\"Apple\",\"fat\":0.2,\"carbohydrates\":25,\"protein\":0.3,\"calories\":95}\n".getBytes());
+
+	    mockMvc.perform(multipart("/api/foods/import").file(file))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.accepted").value(0));
+	}
+
+	@Test
+	void shouldExportFilteredFoodsAsCsv() throws Exception {
+	    Food quoted = new Food("Cheese, \"aged\"", 33.0, 1.3, 25.0, 403.0);
+	    quoted.setId(3L);
+	    MacroFilter filter = new MacroFilter(null, null, null, null, 20.0, null, null, null);
+	    exportFoods(filter, chickenBreast, quoted);
+
+	    MvcResult result = mockMvc.perform(get("/api/foods/export").param("format", "csv").param("minProtein", "20"))
+	            .andExpect(request().asyncStarted())
+	            .andReturn();
+
+	    mockMvc.perform(asyncDispatch(result))
+	            .andExpect(status().isOk())
+	            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+	            .andExpect(content().string("id,name,fat,carbohydrates,protein,calories\r\n"
+	                    + "1,Chicken Breast,3.6,0.0,31.0,165.0\r\n"
+	                    + "3,\"Cheese, \"\"aged\"\"\",33.0,1.3,25.0,403.0\r\n"));
+	}
+
+	@Test
+	void shouldExportGzippedNdjson() throws Exception {
+	    exportFoods(MacroFilter.none(), chickenBreast, salmon);
+
+	    MvcResult result = mockMvc.perform(get("/api/foods/export").param("gzip", "true"))
+	            .andExpect(request().asyncStarted())
+	            .andReturn();
+
+	    byte[] body = mockMvc.perform(asyncDispatch(result))
+	            .andExpect(status().isOk())
+	            .andExpect(header().string("Content-Encoding", "gzip"))
+	            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+	            .andReturn().getResponse().getContentAsByteArray();
+
+	    try (GZIPInputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(body))) {
+	        String[] lines = new String(unzipped.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+	        assertThat(lines).hasSize(2);
+	        assertThat(objectMapper.readValue(lines[1], Food.class).getName()).isEqualTo("Salmon Fillet");
+	    }
+	}
+
+	@Test
+	void shouldReturn400ForUnknownExportFormat() throws Exception {
+	    mockMvc.perform(get("/api/foods/export").param("format", "xml"))
+	            .andExpect(status().isBadRequest());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void exportFoods(MacroFilter filter, Food... foods) {
+	    doAnswer(invocation -> {
+	        Consumer<Food> consumer = invocation.getArgument(1);
+	        for (Food food : foods) {
+	            consumer.accept(food);
+	        }
+	        return null;
+	    }).when(foodService).exportFoods(eq(filter), any(Consumer.class));
+	}
 }
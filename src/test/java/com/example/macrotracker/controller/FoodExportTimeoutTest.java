@@ -0,0 +1,53 @@
+package com.example.macrotracker.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.service.FoodService;
+
+// Downloads get macrotracker.export.timeout, not the async timeout every other request gets
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:export-timeout;DB_CLOSE_DELAY=-1",
+        "spring.mvc.async.request-timeout=100ms",
+        "macrotracker.export.timeout=10s" })
+class FoodExportTimeoutTest {
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoSpyBean
+    private FoodService foodService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFinishExportsThatOutlastTheAsyncTimeout() throws Exception {
+        foodService.saveFood(new Food("Apple", 0.2, 25.0, 0.3, 95.0));
+        doAnswer(invocation -> {
+            // Tomcat checks async timeouts about once a second
+            Thread.sleep(2500);
+            return invocation.callRealMethod();
+        }).when(foodService).exportFoods(any(MacroFilter.class), any(Consumer.class));
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/foods/export?format=csv")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("id,name,fat,carbohydrates,protein,calories\r\n"
+                + foodService.getAllFoods().get(0).getId() + ",Apple,0.2,25.0,0.3,95.0\r\n");
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.macrotracker.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.FoodLogEntry;
+import com.example.macrotracker.entity.FoodLogRollup;
+import com.example.macrotracker.service.FoodLogService;
+
+@WebMvcTest(FoodLogController.class)
+public class FoodLogControllerTest {
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private FoodLogService foodLogService;
+
+	@Test
+	void shouldLogFood() throws Exception {
+	    Food chickenBreast = new Food("Chicken Breast", 3.6, 0.0, 31.0, 165.0);
+	    chickenBreast.setId(1L);
+	    when(foodLogService.logFood(any()))
+	            .thenReturn(new FoodLogEntry("alice", Instant.parse("2024-05-15T12:30:00Z"), chickenBreast, 200.0));
+
+	    mockMvc.perform(post("/api/logs")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content("{\"userId\":\"alice\",\"loggedAt\":\"2024-05-15T12:30:00Z\",\"foodId\":1,\"grams\":200}"))
+	            .andExpect(status().isCreated())
+	            .andExpect(jsonPath("$.foodId").value(1))
+	            .andExpect(jsonPath("$.calories").value(330.0))
+	            .andExpect(jsonPath("$.food").doesNotExist());
+	}
+
+	@Test
+	void shouldRejectNonPositiveQuantity() throws Exception {
+	    mockMvc.perform(post("/api/logs")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content("{\"userId\":\"alice\",\"loggedAt\":\"2024-05-15T12:30:00Z\",\"foodId\":1,\"grams\":0}"))
+	            .andExpect(status().isBadRequest());
+
+	    verify(foodLogService, never()).logFood(any());
+	}
+
+	@Test
+	void shouldReturnDailyTotals() throws Exception {
+	    LocalDate from = LocalDate.of(2024, 5, 1);
+	    LocalDate to = LocalDate.of(2024, 5, 31);
+	    when(foodLogService.getDailyTotals("alice", from, to))
+	            .thenReturn(List.of(new FoodLogRollup("alice", FoodLogRollup.Period.DAY, LocalDate.of(2024, 5, 15))));
+
+	    mockMvc.perform(get("/api/logs/daily").param("userId", "alice").param("from", "2024-05-01").param("to", "2024-05-31"))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.length()").value(1))
+	            .andExpect(jsonPath("$[0].period").value("DAY"))
+	            .andExpect(jsonPath("$[0].periodStart").value("2024-05-15"));
+	}
+}
@@ -0,0 +1,67 @@
+package com.example.macrotracker.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.macrotracker.dto.MealTotals;
+import com.example.macrotracker.service.MealService;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@WebMvcTest(MealController.class)
+public class MealControllerTest {
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private MealService mealService;
+
+	@Test
+	void shouldTotalSingleMeal() throws Exception {
+	    when(mealService.totalMeal(any())).thenReturn(new MealTotals("Dinner", 350.0, 7.2, 39.45, 65.0, 484.5));
+
+	    mockMvc.perform(post("/api/meals/totals")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content("{\"name\":\"Dinner\",\"ingredients\":[{\"foodId\":1,\"grams\":200},{\"foodId\":3,\"grams\":150}]}"))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.name").value("Dinner"))
+	            .andExpect(jsonPath("$.calories").value(484.5));
+	}
+
+	@Test
+	void shouldTotalMealsInBatch() throws Exception {
+	    when(mealService.totalMeals(any())).thenReturn(List.of(
+	            new MealTotals("Breakfast", 100.0, 0.2, 25.0, 0.3, 95.0),
+	            new MealTotals("Lunch", 100.0, 3.6, 0.0, 31.0, 165.0)));
+
+	    mockMvc.perform(post("/api/meals/totals/batch")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content("[{\"name\":\"Breakfast\",\"ingredients\":[{\"foodId\":4,\"grams\":100}]},"
+	                    + "{\"name\":\"Lunch\",\"ingredients\":[{\"foodId\":1,\"grams\":100}]}]"))
+	            .andExpect(status().isOk())
+	            .andExpect(jsonPath("$.length()").value(2))
+	            .andExpect(jsonPath("$[1].protein").value(31.0));
+	}
+
+	@Test
+	void shouldReturn404ForUnknownFood() throws Exception {
+	    when(mealService.totalMeal(any())).thenThrow(new EntityNotFoundException("Food not found with id: 42"));
+
+	    mockMvc.perform(post("/api/meals/totals")
+	            .contentType(MediaType.APPLICATION_JSON)
+	            .content("{\"ingredients\":[{\"foodId\":42,\"grams\":100}]}"))
+	            .andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.macrotracker.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.service.FoodService;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "macrotracker.replica.enabled=true",
+        "macrotracker.replica.url=jdbc:h2:mem:routing-replica-%d;DB_CLOSE_DELAY=-1" })
+@AutoConfigureMockMvc
+class ReplicaReadRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FoodService foodService;
+
+    @Autowired
+    private ReplicaSet replicaSet;
+
+    @Test
+    void shouldServeCatalogReadsFromTheReplica() throws Exception {
+        Long id = foodService.saveFood(new Food("Apple", 0.2, 25.0, 0.3, 95.0)).getId();
+        awaitReplicaCaughtUp();
+        // Only the replica has this name, so a response showing it was read there
+        new JdbcTemplate(replicaSet.replicas().get(0).dataSource())
+                .update("update foods set name = 'Replica Apple' where id = ?", id);
+        ReadConsistency.reset();
+
+        mockMvc.perform(get("/api/foods/search").param("q", "apple"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Replica Apple"));
+        mockMvc.perform(get("/api/foods"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Replica Apple"));
+    }
+
+    private void awaitReplicaCaughtUp() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (replicaSet.status().get(0).transactionsBehind() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(replicaSet.status().get(0).transactionsBehind()).isZero();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.macrotracker.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicatingDataSourceTest {
+
+    private final DriverManagerDataSource primary = database();
+    private final DriverManagerDataSource replica = database();
+    private ReplicaSet replicaSet;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ReadConsistency.reset();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        replicaSet.close();
+    }
+
+    @Test
+    void shouldReplayCommittedWritesOnTheReplica() throws Exception {
+        start(0);
+        ReplicatingDataSource replicating = new ReplicatingDataSource(primary, replicaSet);
+
+        try (Connection connection = replicating.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table foods (id bigint primary key, name varchar(255))");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement("insert into foods (id, name) values (?, ?)")) {
+                insert.setLong(1, 1L);
+                insert.setString(2, "Apple");
+                insert.addBatch();
+                insert.setLong(1, 2L);
+                insert.setString(2, "Pear");
+                insert.addBatch();
+                insert.executeBatch();
+            }
+            try (PreparedStatement update = connection.prepareStatement("update foods set name = ? where id = ?")) {
+                update.setString(1, "Green Apple");
+                update.setLong(2, 1L);
+                update.executeUpdate();
+            }
+            try (Statement statement = connection.createStatement()) {
+                // Reads are not shipped
+                statement.executeQuery("select count(*) from foods").close();
+            }
+            connection.commit();
+        }
+
+        assertThat(replicaSet.lastLsn()).isEqualTo(2);
+        awaitApplied(2);
+        assertThat(new JdbcTemplate(replica).queryForList("select name from foods order by id", String.class))
+                .containsExactly("Green Apple", "Pear");
+    }
+
+    @Test
+    void shouldDropRolledBackWrites() throws Exception {
+        start(0);
+        ReplicatingDataSource replicating = new ReplicatingDataSource(primary, replicaSet);
+        try (Connection connection = replicating.getConnection()) {
+            connection.createStatement().execute("create table foods (id bigint primary key, name varchar(255))");
+            connection.setAutoCommit(false);
+            connection.createStatement().executeUpdate("insert into foods (id, name) values (1, 'Apple')");
+            connection.rollback();
+            connection.createStatement().executeUpdate("insert into foods (id, name) values (2, 'Pear')");
+            connection.commit();
+        }
+
+        awaitApplied(2);
+        assertThat(new JdbcTemplate(replica).queryForList("select name from foods", String.class))
+                .containsExactly("Pear");
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplicasThatHaveTheRequestsWrites() throws Exception {
+        // The replica holds every transaction back for ten minutes but stays within the lag limit
+        start(TimeUnit.MINUTES.toNanos(10));
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaSet);
+
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-1");
+        assertThat(ReadConsistency.onPrimary(routing::determineCurrentLookupKey))
+                .isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+
+        try (Connection connection = new ReplicatingDataSource(primary, replicaSet).getConnection()) {
+            connection.createStatement().execute("create table foods (id bigint primary key)");
+        }
+        assertThat(ReadConsistency.requiredLsn()).isEqualTo(1);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        assertThat(replicaSet.status()).singleElement()
+                .extracting(ReplicaSet.Status::transactionsBehind).isEqualTo(1L);
+
+        ReadConsistency.reset();
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-1");
+        // Up-to-date reads also need the writes of other threads
+        assertThat(ReadConsistency.upToDate(routing::determineCurrentLookupKey))
+                .isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+    }
+
+    private void start(long applyDelayNanos) {
+        replicaSet = new ReplicaSet(primary, List.of(new ReplicaApplier("replica-1", replica, applyDelayNanos)),
+                TimeUnit.HOURS.toMillis(1));
+        replicaSet.start();
+    }
+
+    private void awaitApplied(long lsn) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (replicaSet.status().get(0).appliedLsn() < lsn && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(replicaSet.status().get(0).appliedLsn()).isEqualTo(lsn);
+    }
+
+    private static DriverManagerDataSource database() {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
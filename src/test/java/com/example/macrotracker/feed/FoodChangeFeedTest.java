@@ -0,0 +1,196 @@
+package com.example.macrotracker.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.dto.FoodChange;
+import com.example.macrotracker.dto.FoodChanges;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.event.FoodChangedEvent.ChangeType;
+import com.example.macrotracker.exception.ChangeFeedExpiredException;
+
+class FoodChangeFeedTest {
+
+    private FoodChangeFeed feed;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        feed.close();
+    }
+
+    @Test
+    void shouldReturnOnlyTheLatestChangeToEachFood() {
+        feed = new FoodChangeFeed(10, 100, 1, Duration.ofMinutes(1));
+        feed.onFoodChanged(FoodChangedEvent.created(food(1L, "Apple")));
+        feed.onFoodChanged(FoodChangedEvent.created(food(2L, "Pear")));
+        feed.onFoodChanged(FoodChangedEvent.updated(food(1L, "Green Apple")));
+        feed.onFoodChanged(FoodChangedEvent.deleted(2L));
+
+        FoodChanges changes = feed.changesSince(0L, 100);
+        assertThat(changes.changes()).extracting(FoodChange::sequence).containsExactly(3L, 4L);
+        assertThat(changes.changes().get(0).food().getName()).isEqualTo("Green Apple");
+        assertThat(changes.changes().get(1).type()).isEqualTo(ChangeType.DELETED);
+        assertThat(changes.nextSequence()).isEqualTo(4);
+
+        assertThat(feed.changesSince(2L, 1).changes()).extracting(FoodChange::sequence).containsExactly(3L);
+        assertThat(feed.changesSince(2L, 1).nextSequence()).isEqualTo(3);
+        assertThat(feed.changesSince(null, 100).changes()).isEmpty();
+        assertThat(feed.changesSince(null, 100).nextSequence()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldDropChangesThatArriveAfterANewerOne() {
+        feed = new FoodChangeFeed(10, 100, 1, Duration.ofMinutes(1));
+        feed.onFoodChanged(FoodChangedEvent.updated(food(1L, 6L, "Apple v6")));
+        feed.onFoodChanged(FoodChangedEvent.updated(food(1L, 5L, "Apple v5")));
+        feed.onFoodChanged(FoodChangedEvent.deleted(2L));
+        feed.onFoodChanged(FoodChangedEvent.updated(food(2L, 3L, "Pear")));
+
+        FoodChanges changes = feed.changesSince(0L, 100);
+        assertThat(changes.changes()).extracting(FoodChange::sequence).containsExactly(1L, 2L);
+        assertThat(changes.changes().get(0).food().getName()).isEqualTo("Apple v6");
+        assertThat(changes.changes().get(1).type()).isEqualTo(ChangeType.DELETED);
+    }
+
+    @Test
+    void shouldRejectPositionsThatAreNoLongerBuffered() {
+        feed = new FoodChangeFeed(2, 100, 1, Duration.ofMinutes(1));
+        for (long id = 1; id <= 3; id++) {
+            feed.onFoodChanged(FoodChangedEvent.created(food(id, "Food " + id)));
+        }
+
+        assertThrows(ChangeFeedExpiredException.class, () -> feed.changesSince(0L, 100));
+        assertThrows(ChangeFeedExpiredException.class, () -> feed.changesSince(5L, 100));
+        assertThat(feed.changesSince(1L, 100).changes()).extracting(FoodChange::foodId).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void shouldStreamTheBacklogAndThenNewChanges() throws InterruptedException {
+        feed = new FoodChangeFeed(10, 100, 1, Duration.ofMinutes(1));
+        feed.onFoodChanged(FoodChangedEvent.created(food(1L, "Apple")));
+        feed.onFoodChanged(FoodChangedEvent.created(food(2L, "Pear")));
+        RecordingSink sink = new RecordingSink(null);
+
+        feed.subscribe(1L, sink);
+        feed.onFoodChanged(FoodChangedEvent.deleted(1L));
+
+        await(() -> sink.sequences().size() == 2);
+        assertThat(sink.sequences()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void shouldAskForAResyncFromAPositionBeforeARestart() throws InterruptedException {
+        feed = new FoodChangeFeed(10, 100, 1, Duration.ofMinutes(1));
+        RecordingSink sink = new RecordingSink(null);
+
+        feed.subscribe(99L, sink);
+
+        await(() -> sink.resets() == 1);
+        assertThat(feed.subscribers()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDisconnectSubscribersThatFallTooFarBehind() throws InterruptedException {
+        feed = new FoodChangeFeed(10, 2, 1, Duration.ofMinutes(1));
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink(unblock);
+        feed.subscribe(null, sink);
+
+        feed.onFoodChanged(FoodChangedEvent.created(food(1L, "Food 1")));
+        assertThat(sink.sending.await(10, TimeUnit.SECONDS)).isTrue();
+        // Two foods pending fill the subscriber's queue; the third disconnects it
+        for (long id = 2; id <= 4; id++) {
+            feed.onFoodChanged(FoodChangedEvent.created(food(id, "Food " + id)));
+        }
+        unblock.countDown();
+
+        await(sink::isClosed);
+        assertThat(feed.subscribers()).isZero();
+        assertThat(sink.sequences()).containsExactly(1L);
+    }
+
+    private static Food food(Long id, String name) {
+        return food(id, null, name);
+    }
+
+    private static Food food(Long id, Long version, String name) {
+        Food food = new Food(name, 0.2, 25.0, 0.3, 95.0);
+        food.setId(id);
+        food.setVersion(version);
+        return food;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static final class RecordingSink implements FoodChangeFeed.Sink {
+
+        // Holds up the first send until released, when set
+        private final CountDownLatch unblock;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final List<Long> sequences = new ArrayList<>();
+        private int resets;
+        private boolean closed;
+
+        RecordingSink(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(FoodChange change) {
+            sending.countDown();
+            if (unblock != null) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                sequences.add(change.sequence());
+            }
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public synchronized void reset(long latestSequence) {
+            resets++;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+
+        synchronized List<Long> sequences() {
+            return new ArrayList<>(sequences);
+        }
+
+        synchronized int resets() {
+            return resets;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+    }
+}
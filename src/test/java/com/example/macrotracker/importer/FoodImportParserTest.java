@@ -0,0 +1,100 @@
+package com.example.macrotracker.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class FoodImportParserTest {
+
+    private final FoodImportParser parser = new FoodImportParser(new ObjectMapper());
+
+    @Test
+    void shouldParseJsonArrayAndRejectBadElements() throws IOException {
+        List<ImportRow> rows = parse(MediaType.APPLICATION_JSON, """
+                [{"name":"Apple","fat":0.2,"carbohydrates":25.0,"protein":0.3,"calories":95.0},
+                 {"name":"Broken","fat":"lots"},
+                 {"name":"Banana","fat":0.3,"carbohydrates":23.0,"protein":1.1,"calories":89.0}]
+                """);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).food().getName()).isEqualTo("Apple");
+        assertThat(rows.get(1).error()).isNotNull();
+        assertThat(rows.get(2).rowNumber()).isEqualTo(3);
+        assertThat(rows.get(2).food().getCalories()).isEqualTo(89.0);
+    }
+
+    @Test
+    void shouldParseNdjsonSkippingBlankLines() throws IOException {
+        List<ImportRow> rows = parse(MediaType.APPLICATION_NDJSON, """
+                {"name":"Apple","fat":0.2,"carbohydrates":25.0,"protein":0.3,"calories":95.0}
+
+                {"name":"Banana","fat":0.3,"carbohydrates":23.0,"protein":1.1,"calories":89.0}
+                """);
+
+        assertThat(rows).extracting(row -> row.food().getName()).containsExactly("Apple", "Banana");
+    }
+
+    @Test
+    void shouldParseCsvWithQuotedNamesInAnyColumnOrder() throws IOException {
+        List<ImportRow> rows = parse(FoodImportParser.TEXT_CSV, """
+                calories,name,protein,carbohydrates,fat
+                165,"Chicken Breast, Grilled",31,0,3.6
+                208,Salmon,twenty,0,13
+                """);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).food().getName()).isEqualTo("Chicken Breast, Grilled");
+        assertThat(rows.get(0).food().getProtein()).isEqualTo(31.0);
+        assertThat(rows.get(1).error()).contains("twenty");
+    }
+
+    @Test
+    void shouldParseCsvNamesSpanningLines() throws IOException {
+        List<ImportRow> rows = parse(FoodImportParser.TEXT_CSV, "id,name,fat,carbohydrates,protein,calories\r\n"
+                + "1,\"Cheese,\r\n\"\"aged\"\"\",33.0,1.3,25.0,403.0\r\n"
+                + "2,Salmon,13.0,0.0,25.0,208.0\r\n");
+
+        assertThat(rows).extracting(ImportRow::rowNumber).containsExactly(1L, 2L);
+        assertThat(rows.get(0).food().getName()).isEqualTo("Cheese,\n\"aged\"");
+        assertThat(rows.get(0).food().getCalories()).isEqualTo(403.0);
+        assertThat(rows.get(1).food().getName()).isEqualTo("Salmon");
+    }
+
+    @Test
+    void shouldStopAtAnUnterminatedQuote() throws IOException {
+        List<ImportRow> rows = parse(FoodImportParser.TEXT_CSV, """
+                name,fat,carbohydrates,protein,calories
+                Apple,0.2,25.0,0.3,95.0
+                "Banana,0.3,23.0,1.1,89.0
+                Cherry,0.2,16.0,1.0,63.0
+                """);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(1).error()).isEqualTo("Unterminated quoted field");
+    }
+
+    @Test
+    void shouldReportMalformedJsonAsFinalRow() throws IOException {
+        List<ImportRow> rows = parse(MediaType.APPLICATION_JSON, """
+                [{"name":"Apple","fat":0.2,"carbohydrates":25.0,"protein":0.3,"calories":95.0}, {"name":
+                """);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(1).error()).startsWith("Malformed input");
+    }
+
+    private List<ImportRow> parse(MediaType type, String body) throws IOException {
+        List<ImportRow> rows = new ArrayList<>();
+        parser.parse(type, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))).forEachRemaining(rows::add);
+        return rows;
+    }
+}
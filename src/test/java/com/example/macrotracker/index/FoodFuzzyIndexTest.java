@@ -0,0 +1,81 @@
+package com.example.macrotracker.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.entity.Food;
+
+class FoodFuzzyIndexTest {
+
+    private FoodFuzzyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FoodFuzzyIndex(2);
+        index.put(food(1L, "Chicken Breast"));
+        index.put(food(2L, "Salmon Fillet"));
+        index.put(food(3L, "Breast of Chicken, roasted"));
+        index.put(food(4L, "Chicken Thigh"));
+    }
+
+    @Test
+    void shouldMatchEveryWordWithinItsDistance() {
+        FoodFuzzyIndex.Matches matches = index.search("chiken brest", 2, 10);
+
+        assertThat(matches.ids()).containsExactly(1L, 3L);
+        assertThat(matches.distances()).containsExactly(2, 2);
+    }
+
+    @Test
+    void shouldRankCloserMatchesFirst() {
+        index.put(food(5L, "Chicken Brest"));
+
+        assertThat(index.search("chicken brest", 2, 10).ids()).containsExactly(5L, 1L, 3L);
+        assertThat(index.search("chicken brest", 2, 2).ids()).containsExactly(5L, 1L);
+    }
+
+    @Test
+    void shouldAllowFewerEditsForShortWords() {
+        // Two edits are needed, but a five-letter word allows only one
+        assertThat(index.search("chikn", 2, 10).ids()).isEmpty();
+        assertThat(index.search("salmn", 2, 10).ids()).containsExactly(2L);
+        assertThat(index.search("salmn", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void shouldFollowRenamesAndRemovals() {
+        index.put(food(1L, "Turkey Breast"));
+        index.remove(3L);
+
+        assertThat(index.search("chiken brest", 2, 10).ids()).isEmpty();
+        assertThat(index.search("turky", 2, 10).ids()).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldIgnoreWordsWithoutLetters() {
+        index.put(food(5L, "Rice 2%"));
+
+        assertThat(FoodFuzzyIndex.words("Rice 2%")).containsExactly("rice");
+        assertThat(index.search("rise 3", 2, 10).ids()).containsExactly(5L);
+    }
+
+    @Test
+    void shouldCapDistanceAtConfiguredMaximum() {
+        FoodFuzzyIndex strict = new FoodFuzzyIndex(1);
+        strict.put(food(1L, "Chicken Breast"));
+
+        // The cap applies per word: one edit in each of two words is allowed, two in one word is not
+        assertThat(strict.search("chiken brest", 2, 10).ids()).containsExactly(1L);
+        assertThat(strict.search("chikem breast", 2, 10).ids()).isEmpty();
+        assertThat(index.search("chikem breast", 2, 10).ids()).containsExactly(1L, 3L);
+    }
+
+    private static Food food(Long id, String name) {
+        Food food = new Food(name, 1.0, 1.0, 1.0, 10.0);
+        food.setId(id);
+        return food;
+    }
+}
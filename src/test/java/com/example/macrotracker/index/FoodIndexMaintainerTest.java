@@ -0,0 +1,70 @@
+package com.example.macrotracker.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.repository.FoodRepository;
+
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+class FoodIndexMaintainerTest {
+
+    @Mock
+    private FoodRepository foodRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final FoodNameIndex nameIndex = new FoodNameIndex();
+    private final FoodVersionIndex versionIndex = new FoodVersionIndex();
+    private FoodIndexMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        maintainer = new FoodIndexMaintainer(List.of(nameIndex, versionIndex), versionIndex, foodRepository,
+                entityManager, transactionManager);
+        versionIndex.markReady();
+    }
+
+    @Test
+    void shouldDropChangesThatArriveAfterANewerOne() {
+        maintainer.onFoodChanged(FoodChangedEvent.updated(food(1L, 6L, "Green Apple")));
+        maintainer.onFoodChanged(FoodChangedEvent.updated(food(1L, 5L, "Red Apple")));
+
+        assertThat(nameIndex.search("green", 10)).containsExactly(1L);
+        assertThat(nameIndex.search("red", 10)).isEmpty();
+        assertThat(versionIndex.version(1L)).contains(6L);
+    }
+
+    @Test
+    void shouldNotBringBackADeletedFood() {
+        maintainer.onFoodChanged(FoodChangedEvent.created(food(1L, 0L, "Apple")));
+        maintainer.onFoodChanged(FoodChangedEvent.deleted(1L));
+        // An update that committed before the delete, delivered after it
+        maintainer.onFoodChanged(FoodChangedEvent.updated(food(1L, 1L, "Apple")));
+
+        assertThat(nameIndex.search("apple", 10)).isEmpty();
+        assertThat(versionIndex.version(1L)).isEmpty();
+    }
+
+    private static Food food(Long id, Long version, String name) {
+        Food food = new Food(name, 0.2, 25.0, 0.3, 95.0);
+        food.setId(id);
+        food.setVersion(version);
+        return food;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.macrotracker.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.entity.Food;
+
+class FoodNameIndexTest {
+
+    private FoodNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FoodNameIndex();
+        index.put(food(1L, "Chicken Breast"));
+        index.put(food(2L, "Salmon Fillet"));
+        index.put(food(3L, "Sweet Potato"));
+        index.put(food(4L, "Chicken Thigh"));
+    }
+
+    @Test
+    void shouldFindSubstringIgnoringCase() {
+        assertThat(index.search("CHICKEN", 10)).containsExactly(1L, 4L);
+        assertThat(index.search("potat", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void shouldRequireTrigramsToBeContiguous() {
+        // Every trigram of the query occurs in "abcab", but the query itself does not
+        index.put(food(5L, "Abcab"));
+
+        assertThat(index.search("abcabc", 10)).isEmpty();
+        assertThat(index.search("bcab", 10)).containsExactly(5L);
+    }
+
+    @Test
+    void shouldAnswerShortQueriesByScan() {
+        assertThat(index.search("ee", 10)).containsExactly(3L);
+        assertThat(index.search("t", 2)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldFollowRenamesAndRemovals() {
+        index.put(food(1L, "Turkey Breast"));
+        index.remove(4L);
+
+        assertThat(index.search("chicken", 10)).isEmpty();
+        assertThat(index.search("breast", 10)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldHonourLimit() {
+        assertThat(index.search("chi", 1)).containsExactly(1L);
+    }
+
+    private static Food food(Long id, String name) {
+        Food food = new Food(name, 1.0, 1.0, 1.0, 10.0);
+        food.setId(id);
+        return food;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.macrotracker.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.entity.Food;
+
+class MacroColumnStoreTest {
+
+    private MacroColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MacroColumnStore();
+        store.put(food(1L, 3.6, 0.0, 31.0, 165.0));   // chicken breast
+        store.put(food(2L, 13.0, 0.0, 25.0, 208.0));  // salmon
+        store.put(food(3L, 0.0, 26.3, 2.0, 103.0));   // sweet potato
+        store.put(food(4L, 0.2, 25.0, 0.3, 95.0));    // apple
+        store.markReady();
+    }
+
+    @Test
+    void shouldAnswerSingleMacroRanges() {
+        assertThat(store.query(filter(null, null, 20.0, 30.0, null, null), 10)).containsExactly(2L);
+        assertThat(store.query(filter(null, null, null, null, null, 150.0), 10)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void shouldIntersectMultipleMacros() {
+        assertThat(store.query(filter(null, 5.0, 1.0, null, null, 200.0), 10)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void shouldTreatBoundsAsInclusive() {
+        assertThat(store.query(filter(null, null, 25.0, 25.0, null, null), 10)).containsExactly(2L);
+    }
+
+    @Test
+    void shouldLookUpMacrosByIdIntoColumns() {
+        double[][] values = new double[4][3];
+
+        assertThat(store.lookup(new long[] { 2L, 4L, 9L }, values).stream()).containsExactly(0, 1);
+        assertThat(values[3]).containsExactly(208.0, 95.0, 0.0);
+        assertThat(values[0]).containsExactly(13.0, 0.2, 0.0);
+    }
+
+    @Test
+    void shouldSeeWritesMadeAfterCompaction() {
+        store.put(food(5L, 1.0, 1.0, 28.0, 120.0));
+        store.put(food(1L, 3.6, 0.0, 10.0, 165.0));
+        store.remove(2L);
+
+        assertThat(store.query(filter(null, null, 20.0, null, null, null), 10)).containsExactly(5L);
+        assertThat(store.query(MacroFilter.none(), 10)).containsExactly(1L, 3L, 4L, 5L);
+        assertThat(store.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldReturnLowestIdsUpToLimit() {
+        store.put(food(0L, 1.0, 1.0, 1.0, 1.0));
+
+        assertThat(store.query(MacroFilter.none(), 2)).containsExactly(0L, 1L);
+    }
+
+    @Test
+    void shouldStayCorrectAcrossManyWrites() {
+        for (long id = 100; id < 5_000; id++) {
+            store.put(food(id, id % 7, id % 11, id % 13, id % 500));
+        }
+        for (long id = 100; id < 5_000; id += 2) {
+            store.remove(id);
+        }
+
+        long[] ids = store.query(filter(null, null, 12.0, 12.0, 0.0, 10.0), 10_000);
+        assertThat(ids).isNotEmpty();
+        for (long id : ids) {
+            assertThat(id % 2).isEqualTo(1);
+            assertThat(id % 13).isEqualTo(12);
+            assertThat(id % 500).isLessThanOrEqualTo(10);
+        }
+    }
+
+    private static MacroFilter filter(Double minFat, Double maxFat, Double minProtein, Double maxProtein,
+            Double minCalories, Double maxCalories) {
+        return new MacroFilter(minFat, maxFat, null, null, minProtein, maxProtein, minCalories, maxCalories);
+    }
+
+    private static Food food(Long id, double fat, double carbohydrates, double protein, double calories) {
+        Food food = new Food("Food " + id, fat, carbohydrates, protein, calories);
+        food.setId(id);
+        return food;
+    }
+}
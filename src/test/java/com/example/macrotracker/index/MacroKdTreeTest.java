@@ -0,0 +1,117 @@
+package com.example.macrotracker.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.macrotracker.entity.Food;
+
+class MacroKdTreeTest {
+
+    private static final double[] ALL = { 1, 1, 1, 1 };
+
+    private MacroKdTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new MacroKdTree();
+        tree.put(food(1L, 3.6, 0.0, 31.0, 165.0));   // chicken breast
+        tree.put(food(2L, 13.0, 0.0, 25.0, 208.0));  // salmon
+        tree.put(food(3L, 0.0, 26.3, 2.0, 103.0));   // sweet potato
+        tree.put(food(4L, 0.2, 25.0, 0.3, 95.0));    // apple
+        tree.markReady();
+    }
+
+    @Test
+    void shouldReturnNearestFirstWithDistances() {
+        MacroKdTree.Neighbors neighbors = tree.nearest(new double[] { 10, 5, 30, 0 }, new double[] { 1, 1, 1, 0 }, false, 2);
+
+        assertThat(neighbors.ids()).containsExactly(2L, 1L);
+        assertThat(neighbors.distances()[0]).isCloseTo(Math.sqrt(9 + 25 + 25), within(1e-9));
+    }
+
+    @Test
+    void shouldIgnoreMacrosWithZeroWeight() {
+        // Salmon's fat and protein are targeted but unweighted; by calories sweet potato is 3 away, apple 5
+        MacroKdTree.Neighbors neighbors = tree.nearest(new double[] { 13, 0, 25, 100 }, new double[] { 0, 0, 0, 1 }, false, 1);
+
+        assertThat(neighbors.ids()).containsExactly(3L);
+        assertThat(neighbors.distances()[0]).isCloseTo(3.0, within(1e-9));
+    }
+
+    @Test
+    void shouldSeeWritesAndDeletesAfterBuild() {
+        tree.put(food(5L, 10.0, 5.0, 30.0, 230.0));
+        tree.remove(1L);
+
+        assertThat(tree.nearest(new double[] { 10, 5, 30, 0 }, new double[] { 1, 1, 1, 0 }, false, 2).ids())
+                .containsExactly(5L, 2L);
+        assertThat(tree.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldMatchBruteForceThroughRebuilds() {
+        Random random = new Random(7);
+        MacroKdTree large = new MacroKdTree();
+        Map<Long, double[]> points = new HashMap<>();
+        for (long id = 1; id <= 5_000; id++) {
+            points.put(id, randomPoint(random));
+            large.put(food(id, points.get(id)));
+        }
+        large.markReady();
+        // Enough churn to go through tail scans, tombstones and several rebuilds
+        for (int i = 0; i < 6_000; i++) {
+            long id = 1 + random.nextInt(7_000);
+            if (random.nextInt(3) == 0) {
+                points.remove(id);
+                large.remove(id);
+            } else {
+                points.put(id, randomPoint(random));
+                large.put(food(id, points.get(id)));
+            }
+        }
+
+        double[] weights = { 2, 1, 1, 0.1 };
+        for (int q = 0; q < 50; q++) {
+            double[] target = randomPoint(random);
+            // Compared by distance, since which of several equidistant foods makes the cut is arbitrary
+            double[] expected = points.values().stream()
+                    .mapToDouble(point -> Math.sqrt(distance(point, target, weights)))
+                    .sorted()
+                    .limit(10)
+                    .toArray();
+            assertThat(large.nearest(target, weights, false, 10).distances()).containsExactly(expected, within(1e-9));
+        }
+        assertThat(large.size()).isEqualTo(points.size());
+    }
+
+    private static double[] randomPoint(Random random) {
+        return new double[] { random.nextInt(400) / 10.0, random.nextInt(800) / 10.0, random.nextInt(500) / 10.0,
+                random.nextInt(8000) / 10.0 };
+    }
+
+    private static double distance(double[] point, double[] target, double[] weights) {
+        double sum = 0;
+        for (int d = 0; d < point.length; d++) {
+            double delta = weights[d] * (point[d] - target[d]);
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    private static Food food(long id, double[] point) {
+        return food(id, point[0], point[1], point[2], point[3]);
+    }
+
+    private static Food food(long id, double fat, double carbohydrates, double protein, double calories) {
+        Food food = new Food("food " + id, fat, carbohydrates, protein, calories);
+        food.setId(id);
+        return food;
+    }
+}
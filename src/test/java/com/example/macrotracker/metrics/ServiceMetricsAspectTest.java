@@ -0,0 +1,75 @@
+package com.example.macrotracker.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.service.FoodService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+
+class ServiceMetricsAspectTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FoodService target = mock(FoodService.class);
+    private FoodService foodService;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new ServiceMetricsAspect(registry));
+        foodService = factory.getProxy();
+    }
+
+    @Test
+    void shouldTimeCallsAndRecordRowsReturned() {
+        when(target.getAllFoods()).thenReturn(List.of(new Food(), new Food()));
+        when(target.getFoodById(1L)).thenReturn(Optional.empty());
+
+        foodService.getAllFoods();
+        foodService.getAllFoods();
+        foodService.getFoodById(1L);
+
+        assertThat(registry.get(ServiceMetricsAspect.CALLS)
+                .tags("method", "getAllFoods", "outcome", "success").timer().count()).isEqualTo(2);
+        assertThat(registry.get(ServiceMetricsAspect.ROWS)
+                .tag("method", "getAllFoods").summary().totalAmount()).isEqualTo(4);
+        assertThat(registry.get(ServiceMetricsAspect.ROWS)
+                .tag("method", "getFoodById").summary().totalAmount()).isZero();
+    }
+
+    @Test
+    void shouldCountErrorsByException() {
+        when(target.updateFood(1L, null)).thenThrow(new EntityNotFoundException("missing"));
+
+        assertThatThrownBy(() -> foodService.updateFood(1L, null)).isInstanceOf(EntityNotFoundException.class);
+
+        assertThat(registry.get(ServiceMetricsAspect.CALLS)
+                .tags("method", "updateFood", "outcome", "error", "exception", "EntityNotFoundException")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.find(ServiceMetricsAspect.ROWS).tag("method", "updateFood").summary()).isNull();
+    }
+
+    @Test
+    void shouldCountStatementsOnlyWhileStarted() {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        counter.inspect("select 1");
+
+        counter.start();
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+
+        assertThat(counter.stop()).isEqualTo(2);
+        assertThat(counter.stop()).isZero();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.macrotracker.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class SqlStatementStatsTest {
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(100, 100);
+    private SqlStatementStats stats;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        slowQueryLog.close();
+    }
+
+    @Test
+    void shouldNormalizeLiteralsWhitespaceAndInLists() {
+        assertThat(SqlStatementStats.normalize("select f1_0.id,f1_0.name\n  from food f1_0 where f1_0.id in (?,?,?)"))
+                .isEqualTo("select f1_0.id,f1_0.name from food f1_0 where f1_0.id in (...)");
+        assertThat(SqlStatementStats.normalize("update food set name = 'O''Brien''s', fat = 1.5 where id = 42 "))
+                .isEqualTo("update food set name = ?, fat = ? where id = ?");
+        assertThat(SqlStatementStats.normalize("insert into food (id, name) values (?, ?)"))
+                .isEqualTo("insert into food (id, name) values (?, ?)");
+    }
+
+    @Test
+    void shouldRecordExecutionsAndRowsPerShapeAndRepositoryMethod() throws Exception {
+        stats = new SqlStatementStats(slowQueryLog, TimeUnit.HOURS.toNanos(1), 10, 1000);
+        StatementStatsDataSource dataSource = new StatementStatsDataSource(database(), stats);
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table food (id bigint primary key, name varchar(255))");
+                statement.executeUpdate("insert into food values (1, 'Apple'), (2, 'Pear'), (3, 'Plum')");
+            }
+            String previous = stats.enter("FoodRepository.findByName");
+            try (PreparedStatement select = connection.prepareStatement("select id from food where name <> ?")) {
+                for (String name : new String[] { "Apple", "Pear" }) {
+                    select.setString(1, name);
+                    try (ResultSet rows = select.executeQuery()) {
+                        while (rows.next()) {
+                            rows.getLong(1);
+                        }
+                    }
+                }
+            } finally {
+                stats.exit(previous);
+            }
+        }
+
+        assertThat(stats.top(10)).hasSize(3);
+        assertThat(stats.top(10)).filteredOn(query -> "FoodRepository.findByName".equals(query.repositoryMethod()))
+                .singleElement()
+                .satisfies(query -> {
+                    assertThat(query.sql()).isEqualTo("select id from food where name <> ?");
+                    assertThat(query.executions()).isEqualTo(2);
+                    assertThat(query.rows()).isEqualTo(4);
+                    assertThat(query.errors()).isZero();
+                    assertThat(query.maxMillis()).isLessThanOrEqualTo(query.totalMillis());
+                });
+        assertThat(stats.top(10)).filteredOn(query -> query.sql().startsWith("insert"))
+                .singleElement()
+                .satisfies(query -> assertThat(query.sql()).isEqualTo("insert into food values (?, ?), (?, ?), (?, ?)"));
+        assertThat(stats.top(1)).hasSize(1);
+    }
+
+    @Test
+    void shouldLogSlowStatementsAndRepeatedSelects() throws Exception {
+        stats = new SqlStatementStats(slowQueryLog, 0, 3, 1000);
+        slowQueryLog.start();
+        StatementStatsDataSource dataSource = new StatementStatsDataSource(database(), stats);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("create table food (id bigint primary key)");
+            stats.beginRequest();
+            for (int id = 0; id < 3; id++) {
+                connection.createStatement().executeQuery("select id from food where id = " + id).close();
+            }
+            stats.endRequest("GET /api/meals/{id}");
+        }
+        slowQueryLog.close();
+
+        assertThat(slowQueryLog.recent()).hasSize(5);
+        assertThat(slowQueryLog.recent().get(0)).satisfies(entry -> {
+            assertThat(entry.kind()).isEqualTo(SlowQueryLog.Kind.REPEATED);
+            assertThat(entry.sql()).isEqualTo("select id from food where id = ?");
+            assertThat(entry.executions()).isEqualTo(3);
+            assertThat(entry.request()).isEqualTo("GET /api/meals/{id}");
+        });
+        assertThat(stats.top(10)).filteredOn(query -> query.sql().startsWith("select"))
+                .singleElement()
+                .satisfies(query -> {
+                    assertThat(query.repeatedRequests()).isEqualTo(1);
+                    assertThat(query.maxPerRequest()).isEqualTo(3);
+                });
+    }
+
+    @Test
+    void shouldPoolNewShapesPastTheLimit() {
+        stats = new SqlStatementStats(slowQueryLog, TimeUnit.HOURS.toNanos(1), 10, 1);
+
+        stats.record(stats.shape("select 1"), 1000, false);
+        stats.record(stats.shape("select name from food"), 1000, true);
+
+        assertThat(stats.top(10)).extracting(SqlStatementStats.QueryStats::sql)
+                .containsExactlyInAnyOrder("select ?", SqlStatementStats.OTHER);
+    }
+
+    private static DriverManagerDataSource database() {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.macrotracker.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.macrotracker.entity.FoodLogRollup;
+import com.example.macrotracker.entity.FoodLogRollup.Period;
+
+@DataJpaTest
+public class FoodLogRollupRepositoryTest {
+
+    @Autowired
+    private FoodLogRollupRepository rollupRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository.saveAndFlush(new FoodLogRollup("alice", Period.DAY, LocalDate.of(2024, 5, 15)));
+        rollupRepository.saveAndFlush(new FoodLogRollup("alice", Period.DAY, LocalDate.of(2024, 5, 16)));
+        rollupRepository.saveAndFlush(new FoodLogRollup("bob", Period.DAY, LocalDate.of(2024, 5, 15)));
+        entityManager.clear();
+    }
+
+    @Test
+    void shouldAddDeltasInPlace() {
+        LocalDate day = LocalDate.of(2024, 5, 15);
+        assertThat(rollupRepository.addToRollup("alice", Period.DAY, day, 1, 200.0, 7.2, 0.0, 62.0, 330.0)).isEqualTo(1);
+        assertThat(rollupRepository.addToRollup("alice", Period.DAY, day, 1, 100.0, 0.0, 26.3, 2.0, 103.0)).isEqualTo(1);
+        assertThat(rollupRepository.addToRollup("alice", Period.WEEK, day, 1, 1.0, 1.0, 1.0, 1.0, 1.0)).isZero();
+
+        List<FoodLogRollup> rollups = rollupRepository.findRollups("alice", Period.DAY, day, day);
+        assertThat(rollups).hasSize(1);
+        assertThat(rollups.get(0).getEntries()).isEqualTo(2);
+        assertThat(rollups.get(0).getCalories()).isEqualTo(433.0);
+    }
+
+    @Test
+    void shouldReturnOnlyPeriodsWithEntriesInRange() {
+        rollupRepository.addToRollup("alice", Period.DAY, LocalDate.of(2024, 5, 16), 1, 100.0, 1.0, 1.0, 1.0, 50.0);
+        rollupRepository.addToRollup("bob", Period.DAY, LocalDate.of(2024, 5, 15), 1, 100.0, 1.0, 1.0, 1.0, 50.0);
+
+        List<FoodLogRollup> rollups = rollupRepository.findRollups("alice", Period.DAY,
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31));
+        assertThat(rollups).extracting(FoodLogRollup::getPeriodStart).containsExactly(LocalDate.of(2024, 5, 16));
+    }
+}
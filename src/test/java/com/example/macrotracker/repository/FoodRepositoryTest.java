@@ -1,16 +1,21 @@
 package com.example.macrotracker.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.DuplicateFoodNameException;
 
 @DataJpaTest
 public class FoodRepositoryTest {
@@ -83,4 +88,62 @@ public class FoodRepositoryTest {
         assertThat(retrieved.get().getName()).isEqualTo("Banana");
         assertThat(retrieved.get().getCarbohydrates()).isEqualTo(23.0);
     }
+
+    @Test
+    void shouldFindNextKeysetPage() {
+        // First page holds the two lowest ids, the second page continues after the last of them
+        List<Food> firstPage = foodRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2));
+        assertThat(firstPage).extracting(Food::getName).containsExactly("Chicken Breast", "Salmon Fillet");
+
+        List<Food> secondPage = foodRepository.findByIdGreaterThanOrderByIdAsc(firstPage.get(1).getId(), Limit.of(2));
+        assertThat(secondPage).extracting(Food::getName).containsExactly("Sweet Potato");
+    }
+
+    @Test
+    void shouldFindExistingNamesIgnoringCase() {
+        List<String> taken = foodRepository.findExistingNamesIgnoreCase(List.of("chicken breast", "pizza", "sweet potato"));
+        assertThat(taken).containsExactlyInAnyOrder("chicken breast", "sweet potato");
+    }
+
+    @Test
+    void shouldRejectNamesDifferingOnlyInCase() {
+        Food duplicate = new Food("CHICKEN breast", 3.0, 0.0, 30.0, 160.0);
+
+        assertThatThrownBy(() -> foodRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void shouldUpdateFoodInSingleStatement() {
+        Long version = foodRepository.updateFoodById(salmon.getId(), "Smoked Salmon", "smoked salmon", 12.0, 0.0, 24.0, 200.0, null);
+        assertThat(version).isEqualTo(1L);
+        assertThat(foodRepository.existsByNameKey("smoked salmon")).isTrue();
+        assertThat(foodRepository.updateFoodById(-1L, "Nothing", "nothing", 0.0, 0.0, 0.0, 0.0, null)).isNull();
+    }
+
+    @Test
+    void shouldRejectUpdateToATakenName() {
+        assertThatThrownBy(() -> foodRepository.updateFoodById(salmon.getId(), "Sweet Potato", "sweet potato", 0.0, 26.3, 2.0, 103.0, null))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .matches(DuplicateFoodNameException::isNameConflict);
+    }
+
+    @Test
+    void shouldStreamFilteredFoodsInIdOrder() {
+        try (Stream<Food> foods = foodRepository.streamByMacroFilter(null, 5.0, null, null, null, null, null, null)) {
+            assertThat(foods).extracting(Food::getName).containsExactly("Chicken Breast", "Sweet Potato");
+        }
+    }
+
+    @Test
+    void shouldBumpVersionAndRejectStaleExpectedVersion() {
+        Long id = salmon.getId();
+
+        assertThat(foodRepository.updateFoodById(id, "Salmon Fillet", "salmon fillet", 12.0, 0.0, 24.0, 200.0, 0L)).isEqualTo(1L);
+        assertThat(foodRepository.updateFoodById(id, "Salmon Fillet", "salmon fillet", 11.0, 0.0, 24.0, 200.0, 0L)).isNull();
+        assertThat(foodRepository.updateFoodById(id, "Salmon Fillet", "salmon fillet", 11.0, 0.0, 24.0, 200.0, null)).isEqualTo(2L);
+
+        assertThat(foodRepository.deleteByIdAndVersion(id, 0L)).isZero();
+        assertThat(foodRepository.deleteByIdAndVersion(id, 2L)).isEqualTo(1);
+    }
 }
@@ -0,0 +1,42 @@
+package com.example.macrotracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.macrotracker.dto.FoodLogRequest;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.FoodLogEntry;
+import com.example.macrotracker.exception.FoodInUseException;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:food-delete;DB_CLOSE_DELAY=-1")
+class FoodDeleteIntegrationTest {
+
+    @Autowired
+    private FoodService foodService;
+
+    @Autowired
+    private FoodLogService foodLogService;
+
+    @Test
+    void shouldRefuseToDeleteALoggedFoodUntilItsEntriesAreGone() {
+        Food apple = foodService.saveFood(new Food("Apple", 0.2, 25.0, 0.3, 95.0));
+        FoodLogEntry entry = foodLogService.logFood(
+                new FoodLogRequest("alice", Instant.parse("2024-05-15T12:30:00Z"), apple.getId(), 150.0));
+
+        FoodInUseException unconditional = assertThrows(FoodInUseException.class,
+                () -> foodService.deleteFood(apple.getId(), null));
+        assertThrows(FoodInUseException.class, () -> foodService.deleteFood(apple.getId(), apple.getVersion()));
+        assertThat(unconditional.getMessage()).isEqualTo("Food " + apple.getId() + " has log entries and cannot be deleted");
+        assertThat(foodService.getFoodById(apple.getId())).isPresent();
+
+        foodLogService.deleteEntry(entry.getId());
+        foodService.deleteFood(apple.getId(), apple.getVersion());
+        assertThat(foodService.getFoodById(apple.getId())).isEmpty();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.macrotracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.macrotracker.dto.FoodLogRequest;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.entity.FoodLogEntry;
+import com.example.macrotracker.entity.FoodLogRollup.Period;
+import com.example.macrotracker.repository.FoodLogEntryRepository;
+import com.example.macrotracker.repository.FoodLogRollupRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+class FoodLogServiceTest {
+
+    // Wednesday 2024-05-15, in the ISO week starting Monday 2024-05-13
+    private static final Instant LUNCH = Instant.parse("2024-05-15T12:30:00Z");
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 15);
+    private static final LocalDate WEEK = LocalDate.of(2024, 5, 13);
+
+    @Mock
+    private FoodLogEntryRepository entryRepository;
+
+    @Mock
+    private FoodLogRollupRepository rollupRepository;
+
+    @Mock
+    private FoodService foodService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private FoodLogServiceImpl foodLogService;
+    private Food chickenBreast;
+
+    @BeforeEach
+    void setUp() {
+        foodLogService = new FoodLogServiceImpl(entryRepository, rollupRepository, foodService,
+                jdbcTemplate, ZoneOffset.UTC);
+        chickenBreast = new Food("Chicken Breast", 3.6, 0.0, 31.0, 165.0);
+        chickenBreast.setId(1L);
+    }
+
+    @Test
+    void shouldAddNewEntryToDayAndWeekRollups() {
+        // Given
+        when(foodService.getFoodById(1L)).thenReturn(Optional.of(chickenBreast));
+        when(entryRepository.save(any(FoodLogEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rollupRepository.addToRollup(eq("alice"), any(), any(), anyLong(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble())).thenReturn(1);
+
+        // When
+        FoodLogEntry entry = foodLogService.logFood(new FoodLogRequest("alice", LUNCH, 1L, 200.0));
+
+        // Then
+        assertThat(entry.getCalories()).isEqualTo(330.0);
+        verify(rollupRepository).addToRollup("alice", Period.DAY, DAY, 1, 200.0, 7.2, 0.0, 62.0, 330.0);
+        verify(rollupRepository).addToRollup("alice", Period.WEEK, WEEK, 1, 200.0, 7.2, 0.0, 62.0, 330.0);
+        verify(jdbcTemplate, never()).update(any(String.class), any(Object[].class));
+    }
+
+    @Test
+    void shouldCreateMissingRollupRowThenUpdateIt() {
+        // Given
+        when(foodService.getFoodById(1L)).thenReturn(Optional.of(chickenBreast));
+        when(entryRepository.save(any(FoodLogEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rollupRepository.addToRollup(eq("alice"), eq(Period.DAY), any(), anyLong(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyDouble())).thenReturn(0, 1);
+        when(rollupRepository.addToRollup(eq("alice"), eq(Period.WEEK), any(), anyLong(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyDouble())).thenReturn(1);
+
+        // When
+        foodLogService.logFood(new FoodLogRequest("alice", LUNCH, 1L, 100.0));
+
+        // Then
+        verify(jdbcTemplate).update(FoodLogServiceImpl.CREATE_ROLLUP, "alice", "DAY", DAY, "alice", "DAY", DAY);
+        verify(rollupRepository, times(2)).addToRollup("alice", Period.DAY, DAY, 1, 100.0, 3.6, 0.0, 31.0, 165.0);
+    }
+
+    @Test
+    void shouldRetryRollupRowCreatedByAConcurrentTransaction() {
+        // Given
+        when(foodService.getFoodById(1L)).thenReturn(Optional.of(chickenBreast));
+        when(entryRepository.save(any(FoodLogEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rollupRepository.addToRollup(eq("alice"), eq(Period.DAY), any(), anyLong(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyDouble())).thenReturn(0, 1);
+        when(rollupRepository.addToRollup(eq("alice"), eq(Period.WEEK), any(), anyLong(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyDouble())).thenReturn(1);
+        when(jdbcTemplate.update(FoodLogServiceImpl.CREATE_ROLLUP, "alice", "DAY", DAY, "alice", "DAY", DAY))
+                .thenThrow(new DuplicateKeyException("uk_food_log_rollups_period"))
+                .thenReturn(0);
+
+        // When
+        foodLogService.logFood(new FoodLogRequest("alice", LUNCH, 1L, 100.0));
+
+        // Then
+        verify(jdbcTemplate, times(2)).update(FoodLogServiceImpl.CREATE_ROLLUP, "alice", "DAY", DAY, "alice", "DAY", DAY);
+        verify(rollupRepository, times(2)).addToRollup("alice", Period.DAY, DAY, 1, 100.0, 3.6, 0.0, 31.0, 165.0);
+    }
+
+    @Test
+    void shouldSubtractDeletedEntryFromRollups() {
+        // Given
+        FoodLogEntry entry = new FoodLogEntry("alice", LUNCH, chickenBreast, 100.0);
+        when(entryRepository.findById(7L)).thenReturn(Optional.of(entry));
+        when(rollupRepository.addToRollup(eq("alice"), any(), any(), anyLong(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble())).thenReturn(1);
+
+        // When
+        foodLogService.deleteEntry(7L);
+
+        // Then
+        verify(rollupRepository).addToRollup("alice", Period.DAY, DAY, -1, -100.0, -3.6, -0.0, -31.0, -165.0);
+        verify(rollupRepository).addToRollup("alice", Period.WEEK, WEEK, -1, -100.0, -3.6, -0.0, -31.0, -165.0);
+        verify(entryRepository).delete(entry);
+    }
+
+    @Test
+    void shouldMoveEntryBetweenDaysOnUpdate() {
+        // Given
+        FoodLogEntry entry = new FoodLogEntry("alice", LUNCH, chickenBreast, 100.0);
+        when(entryRepository.findById(7L)).thenReturn(Optional.of(entry));
+        when(foodService.getFoodById(1L)).thenReturn(Optional.of(chickenBreast));
+        when(rollupRepository.addToRollup(eq("alice"), any(), any(), anyLong(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble())).thenReturn(1);
+
+        // When
+        foodLogService.updateEntry(7L, new FoodLogRequest("alice", LUNCH.plusSeconds(86_400), 1L, 50.0));
+
+        // Then
+        verify(rollupRepository).addToRollup("alice", Period.DAY, DAY, -1, -100.0, -3.6, -0.0, -31.0, -165.0);
+        verify(rollupRepository).addToRollup("alice", Period.DAY, DAY.plusDays(1), 1, 50.0, 1.8, 0.0, 15.5, 82.5);
+        verify(rollupRepository).addToRollup("alice", Period.WEEK, WEEK, 1, 50.0, 1.8, 0.0, 15.5, 82.5);
+    }
+
+    @Test
+    void shouldRejectEntriesForUnknownFoods() {
+        when(foodService.getFoodById(42L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> foodLogService.logFood(new FoodLogRequest("alice", LUNCH, 42L, 100.0)))
+            .isInstanceOf(EntityNotFoundException.class);
+        verify(entryRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldReadWeeklyTotalsFromWeekStarts() {
+        foodLogService.getWeeklyTotals("alice", DAY, DAY.plusDays(30));
+
+        verify(rollupRepository).findRollups("alice", Period.WEEK, WEEK, LocalDate.of(2024, 6, 10));
+    }
+}
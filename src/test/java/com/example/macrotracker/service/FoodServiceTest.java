@@ -3,23 +3,54 @@ package com.example.macrotracker.service;
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+
+import com.example.macrotracker.cache.FoodBatchLoader;
+import com.example.macrotracker.cache.FoodCache;
+import com.example.macrotracker.dto.FoodMatch;
+import com.example.macrotracker.dto.FoodNeighbor;
+import com.example.macrotracker.dto.FoodPage;
+import com.example.macrotracker.dto.FoodPatch;
+import com.example.macrotracker.dto.MacroFilter;
+import com.example.macrotracker.dto.NearestFoodQuery;
 import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.exception.BadRequestException;
+import com.example.macrotracker.exception.DuplicateFoodNameException;
+import com.example.macrotracker.exception.PreconditionFailedException;
+import com.example.macrotracker.index.FoodFuzzyIndex;
+import com.example.macrotracker.index.FoodNameIndex;
+import com.example.macrotracker.index.FoodVersionIndex;
+import com.example.macrotracker.index.MacroColumnStore;
+import com.example.macrotracker.index.MacroKdTree;
 import com.example.macrotracker.repository.FoodRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +59,33 @@ class FoodServiceTest {
     @Mock
     private FoodRepository foodRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private FoodNameIndex foodNameIndex;
+
+    @Mock
+    private MacroColumnStore macroColumnStore;
+
+    @Mock
+    private MacroKdTree macroKdTree;
+
+    @Mock
+    private FoodVersionIndex foodVersionIndex;
+
+    @Mock
+    private FoodFuzzyIndex foodFuzzyIndex;
+
+    @Spy
+    private FoodCache foodCache = new FoodCache(100, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+    @Spy
+    private FoodBatchLoader foodBatchLoader = new FoodBatchLoader(Duration.ofMillis(2), 100);
+
     @InjectMocks
     private FoodServiceImpl foodService;
 
@@ -43,8 +101,7 @@ class FoodServiceTest {
     @Test
     void shouldSaveNewFood() {
         // Given
-        when(foodRepository.existsByNameIgnoreCase(chickenBreast.getName())).thenReturn(false);
-        when(foodRepository.save(chickenBreast)).thenReturn(chickenBreast);
+        when(foodRepository.saveAndFlush(chickenBreast)).thenReturn(chickenBreast);
 
         // When
         Food savedFood = foodService.saveFood(chickenBreast);
@@ -52,24 +109,26 @@ class FoodServiceTest {
         // Then
         assertThat(savedFood).isNotNull();
         assertThat(savedFood.getName()).isEqualTo("Chicken Breast");
-        verify(foodRepository).save(chickenBreast);
+        verify(foodRepository).saveAndFlush(chickenBreast);
+        verify(foodRepository, never()).existsByNameIgnoreCase(any());
     }
 
     @Test
     void shouldNotSaveFoodWithDuplicateName() {
         // Given
-        when(foodRepository.existsByNameIgnoreCase(chickenBreast.getName())).thenReturn(true);
+        when(foodRepository.saveAndFlush(chickenBreast)).thenThrow(nameConflict());
 
         // When/Then
-        assertThrows(IllegalArgumentException.class, () -> foodService.saveFood(chickenBreast));
-        verify(foodRepository, never()).save(any(Food.class));
+        assertThrows(DuplicateFoodNameException.class, () -> foodService.saveFood(chickenBreast));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     void shouldGetFoodById() {
         // Given
         Long id = 1L;
-        when(foodRepository.findById(id)).thenReturn(Optional.of(chickenBreast));
+        chickenBreast.setId(id);
+        when(foodRepository.findAllById(List.of(id))).thenReturn(List.of(chickenBreast));
 
         // When
         Optional<Food> found = foodService.getFoodById(id);
@@ -98,22 +157,25 @@ class FoodServiceTest {
         // Given
         Long id = 1L;
         Food updatedFood = new Food("Chicken Breast Updated", 4.0, 0.0, 32.0, 170.0);
-        when(foodRepository.findById(id)).thenReturn(Optional.of(chickenBreast));
-        when(foodRepository.save(any(Food.class))).thenReturn(updatedFood);
+        when(foodRepository.updateFoodById(id, "Chicken Breast Updated", "chicken breast updated", 4.0, 0.0, 32.0, 170.0, null))
+            .thenReturn(3L);
 
         // When
         Food result = foodService.updateFood(id, updatedFood);
 
         // Then
+        assertThat(result.getId()).isEqualTo(id);
         assertThat(result.getName()).isEqualTo("Chicken Breast Updated");
         assertThat(result.getProtein()).isEqualTo(32.0);
+        assertThat(result.getVersion()).isEqualTo(3L);
+        verify(foodRepository, never()).findById(any());
     }
 
     @Test
     void shouldThrowExceptionWhenUpdatingNonExistentFood() {
         // Given
         Long id = 999L;
-        when(foodRepository.findById(id)).thenReturn(Optional.empty());
+        when(foodRepository.updateFoodById(eq(id), any(), any(), any(), any(), any(), any(), any())).thenReturn(null);
 
         // When/Then
         assertThrows(EntityNotFoundException.class, () -> foodService.updateFood(id, chickenBreast));
@@ -172,20 +234,57 @@ class FoodServiceTest {
         assertThat(foundFoods.get(0).getCalories()).isLessThanOrEqualTo(calorieLimit);
     }
     
+    @Test
+    void shouldReadIndexMatchesByIdInChunks() {
+        // Given
+        long[] ids = new long[2500];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        when(macroColumnStore.isReady()).thenReturn(true);
+        when(macroColumnStore.size()).thenReturn(1_000_000);
+        when(macroColumnStore.query(any(), eq(Integer.MAX_VALUE))).thenReturn(ids);
+
+        // When
+        foodService.getFoodsByCaloriesLessThan(50.0);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(foodRepository, times(3)).findAllById(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactly(1000, 1000, 500);
+        verify(foodRepository, never()).findByCaloriesLessThanEqual(any());
+    }
+
+    @Test
+    void shouldScanWhenIndexMatchesMuchOfTheCatalog() {
+        // Given
+        when(macroColumnStore.isReady()).thenReturn(true);
+        when(macroColumnStore.size()).thenReturn(10_000);
+        when(macroColumnStore.query(any(), eq(Integer.MAX_VALUE))).thenReturn(new long[5000]);
+        when(foodRepository.findByProteinBetween(0.0, 50.0)).thenReturn(List.of(salmon));
+
+        // When
+        List<Food> foundFoods = foodService.getFoodsByProteinRange(0.0, 50.0);
+
+        // Then
+        assertThat(foundFoods).containsExactly(salmon);
+        verify(foodRepository, never()).findAllById(any());
+    }
+
     @Test
     void shouldThrowExceptionWhenUpdatingFoodWithExistingName() {
        // Given
        Long id = 1L;
-       Food existingFood = new Food("Chicken Breast", 3.6, 0.0, 31.0, 165.0);
        Food updatedFood = new Food("Salmon Fillet", 13.0, 0.0, 25.0, 208.0);
        
-       when(foodRepository.findById(id)).thenReturn(Optional.of(existingFood));
-       when(foodRepository.existsByNameIgnoreCase(updatedFood.getName())).thenReturn(true);
+       when(foodRepository.updateFoodById(eq(id), any(), any(), any(), any(), any(), any(), any()))
+           .thenThrow(nameConflict());
 
        // When/Then
        assertThrows(IllegalArgumentException.class, 
            () -> foodService.updateFood(id, updatedFood));
-       verify(foodRepository, never()).save(any(Food.class));
+       verify(eventPublisher, never()).publishEvent(any());
     }
     
     @Test
@@ -204,6 +303,285 @@ class FoodServiceTest {
        assertThat(foundFoods.get(0).getProtein()).isBetween(minProtein, maxProtein);
        verify(foodRepository).findByProteinBetween(minProtein, maxProtein);
     }
-    
-    
+
+    @Test
+    void shouldReturnFirstPageWithNextCursor() {
+        // Given
+        chickenBreast.setId(1L);
+        salmon.setId(2L);
+        when(foodRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class)))
+            .thenReturn(Arrays.asList(chickenBreast, salmon));
+
+        // When
+        FoodPage page = foodService.getFoodsPage(null, 1);
+
+        // Then
+        assertThat(page.items()).containsExactly(chickenBreast);
+        assertThat(FoodPage.decodeCursor(page.nextCursor())).isEqualTo(1L);
+        verify(foodRepository).findByIdGreaterThanOrderByIdAsc(eq(0L), argThat(limit -> limit.max() == 2));
+    }
+
+    @Test
+    void shouldReturnLastPageWithoutCursor() {
+        // Given
+        salmon.setId(2L);
+        when(foodRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Limit.class)))
+            .thenReturn(Arrays.asList(salmon));
+
+        // When
+        FoodPage page = foodService.getFoodsPage(FoodPage.encodeCursor(1L), 10);
+
+        // Then
+        assertThat(page.items()).containsExactly(salmon);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThrows(BadRequestException.class, () -> foodService.getFoodsPage("not-a-cursor!", 10));
+    }
+
+    @Test
+    void shouldPublishChangeEventWhenFoodIsSaved() {
+        // Given
+        Food persisted = new Food("Chicken Breast", 3.6, 0.0, 31.0, 165.0);
+        persisted.setId(1L);
+        when(foodRepository.saveAndFlush(chickenBreast)).thenReturn(persisted);
+
+        // When
+        foodService.saveFood(chickenBreast);
+
+        // Then
+        verify(eventPublisher).publishEvent(FoodChangedEvent.created(persisted));
+    }
+
+    @Test
+    void shouldSearchThroughNameIndexOnceLoaded() {
+        // Given
+        chickenBreast.setId(1L);
+        when(foodNameIndex.isReady()).thenReturn(true);
+        when(foodNameIndex.search("chick", 20)).thenReturn(Arrays.asList(1L));
+        when(foodRepository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(chickenBreast));
+
+        // When
+        List<Food> foundFoods = foodService.searchFoodsByName("chick", 20);
+
+        // Then
+        assertThat(foundFoods).containsExactly(chickenBreast);
+        verify(foodRepository, never()).findByNameContainingIgnoreCase(any());
+    }
+
+    @Test
+    void shouldRankFuzzyMatchesInIndexOrder() {
+        // Given
+        chickenBreast.setId(1L);
+        Food chickenThigh = new Food("Chicken Thigh", 9.0, 0.0, 26.0, 209.0);
+        chickenThigh.setId(2L);
+        when(foodFuzzyIndex.isReady()).thenReturn(true);
+        when(foodFuzzyIndex.maxDistance()).thenReturn(2);
+        when(foodFuzzyIndex.search("chiken", 2, 20))
+                .thenReturn(new FoodFuzzyIndex.Matches(new long[] { 2L, 1L }, new int[] { 1, 1 }));
+        when(foodRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(chickenBreast, chickenThigh));
+
+        // When
+        List<FoodMatch> matches = foodService.fuzzySearchFoods("chiken", null, 20);
+
+        // Then
+        assertThat(matches).extracting(match -> match.food().getId()).containsExactly(2L, 1L);
+        assertThat(matches).extracting(FoodMatch::distance).containsExactly(1, 1);
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        // Given
+        Long id = 1L;
+        chickenBreast.setId(id);
+        when(foodRepository.findAllById(List.of(id))).thenReturn(List.of(chickenBreast));
+
+        // When
+        foodService.getFoodById(id);
+        Optional<Food> found = foodService.getFoodById(id);
+
+        // Then
+        assertThat(found).contains(chickenBreast);
+        verify(foodRepository, times(1)).findAllById(List.of(id));
+    }
+
+    @Test
+    void shouldFetchUncachedIdsInOneQuery() {
+        // Given
+        chickenBreast.setId(1L);
+        salmon.setId(2L);
+        when(foodRepository.findAllById(List.of(1L))).thenReturn(List.of(chickenBreast));
+        when(foodRepository.findAllById(List.of(2L, 99L))).thenReturn(List.of(salmon));
+        foodService.getFoodById(1L);
+
+        // When
+        List<Food> foods = foodService.getFoodsByIds(Arrays.asList(2L, 1L, 99L, 2L));
+
+        // Then
+        assertThat(foods).containsExactly(salmon, chickenBreast);
+        verify(foodRepository, times(1)).findAllById(List.of(2L, 99L));
+    }
+
+    @Test
+    void shouldCheckNameThroughNormalizedKey() {
+        // Given
+        when(foodRepository.existsByNameKey("chicken breast")).thenReturn(true);
+
+        // When/Then
+        assertThat(foodService.isFoodNameTaken("Chicken BREAST")).isTrue();
+    }
+
+    private static DataIntegrityViolationException nameConflict() {
+        return new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("Unique index or primary key violation",
+                new SQLException("Unique index violation"), "PUBLIC.UK_FOODS_NAME_KEY_INDEX_4"));
+    }
+
+    @Test
+    void shouldFilterThroughColumnStoreOnceLoaded() {
+        // Given
+        MacroFilter filter = new MacroFilter(null, null, null, null, 20.0, null, null, 200.0);
+        chickenBreast.setId(1L);
+        when(macroColumnStore.isReady()).thenReturn(true);
+        when(macroColumnStore.query(filter, 100)).thenReturn(new long[] { 1L });
+        when(foodRepository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(chickenBreast));
+
+        // When
+        List<Food> foundFoods = foodService.filterFoods(filter, 100);
+
+        // Then
+        assertThat(foundFoods).containsExactly(chickenBreast);
+    }
+
+    @Test
+    void shouldExportFilteredFoodsAndDetachEachRow() {
+        // Given
+        MacroFilter filter = new MacroFilter(null, null, null, null, 20.0, null, null, null);
+        when(foodRepository.streamByMacroFilter(null, null, null, null, 20.0, null, null, null))
+            .thenReturn(Stream.of(chickenBreast, salmon));
+        List<Food> exported = new ArrayList<>();
+
+        // When
+        foodService.exportFoods(filter, exported::add);
+
+        // Then
+        assertThat(exported).containsExactly(chickenBreast, salmon);
+        verify(entityManager).detach(chickenBreast);
+        verify(entityManager).detach(salmon);
+    }
+
+    @Test
+    void shouldReturnNearestFoodsInDistanceOrder() {
+        // Given
+        NearestFoodQuery query = new NearestFoodQuery(10.0, 5.0, 30.0, null, 2.0, null, null, null, false);
+        chickenBreast.setId(1L);
+        salmon.setId(2L);
+        when(macroKdTree.isReady()).thenReturn(true);
+        when(macroKdTree.nearest(new double[] { 10.0, 5.0, 30.0, 0.0 }, new double[] { 2.0, 1.0, 1.0, 0.0 }, false, 2))
+            .thenReturn(new MacroKdTree.Neighbors(new long[] { 2L, 1L }, new double[] { 8.6, 13.4 }));
+        when(foodRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(chickenBreast, salmon));
+
+        // When
+        List<FoodNeighbor> neighbors = foodService.findNearestFoods(query, 2);
+
+        // Then
+        assertThat(neighbors).extracting(FoodNeighbor::food).containsExactly(salmon, chickenBreast);
+        assertThat(neighbors).extracting(FoodNeighbor::distance).containsExactly(8.6, 13.4);
+    }
+
+    @Test
+    void shouldRequireAtLeastOneNearestTarget() {
+        NearestFoodQuery query = new NearestFoodQuery(null, null, null, null, null, null, null, null, null);
+
+        assertThrows(BadRequestException.class, () -> foodService.findNearestFoods(query, 10));
+    }
+
+    @Test
+    void shouldUpdateOnlyTheExpectedVersion() {
+        // Given
+        Food updatedFood = new Food("Chicken Breast", 4.0, 0.0, 32.0, 170.0);
+        when(foodVersionIndex.version(1L)).thenReturn(Optional.of(2L));
+        when(foodRepository.updateFoodById(1L, "Chicken Breast", "chicken breast", 4.0, 0.0, 32.0, 170.0, 2L)).thenReturn(3L);
+
+        // When
+        Food result = foodService.updateFood(1L, updatedFood, 2L);
+
+        // Then
+        assertThat(result.getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldFailFastWhenIndexedVersionIsNewer() {
+        // Given
+        when(foodVersionIndex.version(1L)).thenReturn(Optional.of(5L));
+
+        // When/Then
+        assertThrows(PreconditionFailedException.class, () -> foodService.updateFood(1L, chickenBreast, 4L));
+        assertThrows(PreconditionFailedException.class, () -> foodService.deleteFood(1L, 4L));
+        verify(foodRepository, never()).updateFoodById(any(), any(), any(), any(), any(), any(), any(), any());
+        verify(foodRepository, never()).deleteByIdAndVersion(any(), any());
+    }
+
+    @Test
+    void shouldTellStaleVersionFromMissingFood() {
+        // Given
+        when(foodVersionIndex.version(any())).thenReturn(Optional.empty());
+        when(foodRepository.deleteByIdAndVersion(any(), eq(4L))).thenReturn(0);
+        when(foodRepository.existsById(1L)).thenReturn(true);
+        when(foodRepository.existsById(999L)).thenReturn(false);
+
+        // When/Then
+        assertThrows(PreconditionFailedException.class, () -> foodService.deleteFood(1L, 4L));
+        assertThrows(EntityNotFoundException.class, () -> foodService.deleteFood(999L, 4L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldPatchOnlyTheSuppliedFields() {
+        // Given
+        chickenBreast.setId(1L);
+        chickenBreast.setVersion(2L);
+        when(foodRepository.findById(1L)).thenReturn(Optional.of(chickenBreast));
+
+        // When
+        Food result = foodService.patchFood(1L, new FoodPatch(null, null, null, null, 170.0), 2L);
+
+        // Then
+        assertThat(result.getCalories()).isEqualTo(170.0);
+        assertThat(result.getName()).isEqualTo("Chicken Breast");
+        assertThat(result.getProtein()).isEqualTo(31.0);
+        verify(foodRepository).flush();
+        verify(foodRepository, never()).existsByNameKey(any());
+        verify(eventPublisher).publishEvent(FoodChangedEvent.updated(chickenBreast));
+    }
+
+    @Test
+    void shouldNotWriteWhenPatchChangesNothing() {
+        // Given
+        chickenBreast.setId(1L);
+        when(foodRepository.findById(1L)).thenReturn(Optional.of(chickenBreast));
+
+        // When
+        foodService.patchFood(1L, new FoodPatch("Chicken Breast", 3.6, null, null, null), null);
+
+        // Then
+        verify(foodRepository, never()).flush();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldRejectPatchOfAnotherVersion() {
+        // Given
+        chickenBreast.setId(1L);
+        chickenBreast.setVersion(3L);
+        when(foodRepository.findById(1L)).thenReturn(Optional.of(chickenBreast));
+
+        // When/Then
+        assertThrows(PreconditionFailedException.class,
+                () -> foodService.patchFood(1L, new FoodPatch(null, null, null, null, 170.0), 2L));
+        assertThat(chickenBreast.getCalories()).isEqualTo(165.0);
+        verify(foodRepository, never()).flush();
+    }
 }
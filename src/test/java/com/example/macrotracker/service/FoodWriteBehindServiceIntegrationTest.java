@@ -0,0 +1,49 @@
+package com.example.macrotracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.DuplicateFoodNameException;
+import com.example.macrotracker.repository.FoodRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:write-behind;DB_CLOSE_DELAY=-1",
+        "macrotracker.write-behind.enabled=true",
+        "macrotracker.write-behind.wait-for-commit=true",
+        "macrotracker.write-behind.max-delay=100ms" })
+class FoodWriteBehindServiceIntegrationTest {
+
+    @Autowired
+    private FoodWriteBehindService writeBehind;
+
+    @Autowired
+    private FoodService foodService;
+
+    @MockitoSpyBean
+    private FoodRepository foodRepository;
+
+    @Test
+    void shouldRetryCreatesOneByOneWhenTheGroupRollsBack() {
+        foodService.saveFood(new Food("Pear", 0.2, 27.0, 0.6, 101.0));
+        // The up-front check misses the name, as it would if Pear had been created just after it,
+        // so the unique index rejects the group's insert
+        doReturn(List.of()).when(foodRepository).findExistingNamesIgnoreCase(anyCollection());
+
+        String apple = writeBehind.submit(new Food("Apple", 0.2, 25.0, 0.3, 95.0)).trackingId();
+        String pear = writeBehind.submit(new Food("PEAR", 0.2, 27.0, 0.6, 101.0)).trackingId();
+
+        assertThat(writeBehind.awaitCommit(apple)).get().extracting(Food::getId).isNotNull();
+        assertThrows(DuplicateFoodNameException.class, () -> writeBehind.awaitCommit(pear));
+        assertThat(foodRepository.existsByNameKey("apple")).isTrue();
+    }
+}
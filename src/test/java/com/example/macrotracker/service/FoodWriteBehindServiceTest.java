@@ -0,0 +1,131 @@
+package com.example.macrotracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.macrotracker.dto.FoodWriteStatus;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+import com.example.macrotracker.exception.DuplicateFoodNameException;
+import com.example.macrotracker.exception.WriteQueueFullException;
+import com.example.macrotracker.repository.FoodRepository;
+
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+class FoodWriteBehindServiceTest {
+
+    @Mock
+    private FoodRepository foodRepository;
+
+    @Mock
+    private FoodService foodService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicLong ids = new AtomicLong();
+    private FoodWriteBehindServiceImpl writeBehind;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        writeBehind.close();
+    }
+
+    @Test
+    void shouldCommitQueuedCreatesAsOneGroup() {
+        start(100);
+        when(foodRepository.findExistingNamesIgnoreCase(anyCollection())).thenReturn(List.of());
+        assignIdsOnSave();
+
+        List<String> trackingIds = List.of(
+                writeBehind.submit(new Food("Apple", 0.2, 25.0, 0.3, 95.0)).trackingId(),
+                writeBehind.submit(new Food("Pear", 0.2, 27.0, 0.6, 101.0)).trackingId(),
+                writeBehind.submit(new Food("Plum", 0.2, 7.5, 0.5, 30.0)).trackingId());
+
+        for (String trackingId : trackingIds) {
+            assertThat(writeBehind.awaitCommit(trackingId)).isPresent();
+            assertThat(writeBehind.getStatus(trackingId)).get()
+                    .extracting(FoodWriteStatus::state).isEqualTo(FoodWriteStatus.State.COMMITTED);
+        }
+        verify(foodRepository, times(1)).saveAll(anyList());
+        verify(transactionManager, times(1)).commit(any());
+        verify(eventPublisher, times(3)).publishEvent(any(FoodChangedEvent.class));
+    }
+
+    @Test
+    void shouldRejectOnlyTakenAndRepeatedNames() {
+        start(100);
+        when(foodRepository.findExistingNamesIgnoreCase(anyCollection())).thenReturn(List.of("pear"));
+        assignIdsOnSave();
+
+        String apple = writeBehind.submit(new Food("Apple", 0.2, 25.0, 0.3, 95.0)).trackingId();
+        String repeated = writeBehind.submit(new Food("APPLE", 0.2, 25.0, 0.3, 95.0)).trackingId();
+        String pear = writeBehind.submit(new Food("Pear", 0.2, 27.0, 0.6, 101.0)).trackingId();
+
+        assertThat(writeBehind.awaitCommit(apple)).get().extracting(Food::getId).isEqualTo(1L);
+        assertThrows(DuplicateFoodNameException.class, () -> writeBehind.awaitCommit(repeated));
+        assertThrows(DuplicateFoodNameException.class, () -> writeBehind.awaitCommit(pear));
+        assertThat(writeBehind.getStatus(pear)).get()
+                .extracting(FoodWriteStatus::state).isEqualTo(FoodWriteStatus.State.FAILED);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Food>> saved = ArgumentCaptor.forClass(List.class);
+        verify(foodRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(Food::getName).containsExactly("Apple");
+    }
+
+    @Test
+    void shouldRejectCreatesWhenTheQueueIsFull() {
+        // Not started, so nothing drains the single slot
+        writeBehind = service(1, Duration.ofMillis(5));
+        writeBehind.submit(new Food("Apple", 0.2, 25.0, 0.3, 95.0));
+
+        assertThrows(WriteQueueFullException.class,
+                () -> writeBehind.submit(new Food("Pear", 0.2, 27.0, 0.6, 101.0)));
+    }
+
+    private void start(long maxDelayMillis) {
+        writeBehind = service(100, Duration.ofMillis(maxDelayMillis));
+        writeBehind.start();
+    }
+
+    private FoodWriteBehindServiceImpl service(int capacity, Duration maxDelay) {
+        return new FoodWriteBehindServiceImpl(foodRepository, foodService, entityManager, eventPublisher,
+                transactionManager, true, true, Duration.ofSeconds(5), 500, maxDelay, capacity,
+                Duration.ofMillis(1), 1000);
+    }
+
+    private void assignIdsOnSave() {
+        when(foodRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Food> foods = invocation.getArgument(0);
+            foods.forEach(food -> food.setId(ids.incrementAndGet()));
+            return foods;
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.macrotracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.macrotracker.dto.MealRequest;
+import com.example.macrotracker.dto.MealRequest.Ingredient;
+import com.example.macrotracker.dto.MealTotals;
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.exception.BadRequestException;
+import com.example.macrotracker.index.MacroColumnStore;
+import com.example.macrotracker.repository.FoodRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+class MealServiceTest {
+
+    @Mock
+    private FoodRepository foodRepository;
+
+    @Mock
+    private MacroColumnStore macroColumnStore;
+
+    @InjectMocks
+    private MealServiceImpl mealService;
+
+    private Food chickenBreast;
+    private Food sweetPotato;
+
+    @BeforeEach
+    void setUp() {
+        chickenBreast = new Food("Chicken Breast", 3.6, 0.0, 31.0, 165.0);
+        chickenBreast.setId(1L);
+        sweetPotato = new Food("Sweet Potato", 0.0, 26.3, 2.0, 103.0);
+        sweetPotato.setId(3L);
+    }
+
+    @Test
+    void shouldTotalMealsFromOneBatchedLookup() {
+        // Given
+        when(foodRepository.findAllById(Arrays.asList(1L, 3L))).thenReturn(Arrays.asList(sweetPotato, chickenBreast));
+        MealRequest dinner = new MealRequest("Dinner", List.of(new Ingredient(1L, 200.0), new Ingredient(3L, 150.0)));
+        MealRequest lunch = new MealRequest("Lunch", List.of(new Ingredient(3L, 100.0)));
+
+        // When
+        List<MealTotals> totals = mealService.totalMeals(List.of(dinner, lunch));
+
+        // Then
+        assertThat(totals).extracting(MealTotals::name).containsExactly("Dinner", "Lunch");
+        assertThat(totals.get(0).grams()).isEqualTo(350.0);
+        assertThat(totals.get(0).protein()).isCloseTo(65.0, within(1e-9));
+        assertThat(totals.get(0).calories()).isCloseTo(484.5, within(1e-9));
+        assertThat(totals.get(1).carbohydrates()).isCloseTo(26.3, within(1e-9));
+        verify(foodRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void shouldReadMacrosFromColumnStoreOnceLoaded() {
+        // Given
+        when(macroColumnStore.isReady()).thenReturn(true);
+        when(macroColumnStore.lookup(any(), any())).thenAnswer(invocation -> {
+            double[][] values = invocation.getArgument(1);
+            values[3][0] = 165.0;
+            BitSet found = new BitSet();
+            found.set(0);
+            return found;
+        });
+
+        // When
+        MealTotals totals = mealService.totalMeal(new MealRequest(null, List.of(new Ingredient(1L, 50.0))));
+
+        // Then
+        assertThat(totals.calories()).isEqualTo(82.5);
+        verify(foodRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void shouldRejectMealsWithUnknownFoods() {
+        // Given
+        when(foodRepository.findAllById(Arrays.asList(1L, 42L))).thenReturn(Arrays.asList(chickenBreast));
+        MealRequest meal = new MealRequest("Snack", List.of(new Ingredient(42L, 10.0), new Ingredient(1L, 10.0)));
+
+        // When/Then
+        assertThatThrownBy(() -> mealService.totalMeal(meal))
+            .isInstanceOf(EntityNotFoundException.class)
+            .hasMessageContaining("42");
+    }
+
+    @Test
+    void shouldRejectNegativeQuantities() {
+        MealRequest meal = new MealRequest("Snack", List.of(new Ingredient(1L, -5.0)));
+
+        assertThatThrownBy(() -> mealService.totalMeal(meal)).isInstanceOf(BadRequestException.class);
+        verify(foodRepository, never()).findAllById(any());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.macrotracker.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.macrotracker.entity.Food;
+import com.example.macrotracker.event.FoodChangedEvent;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRoundTripFoodsThroughSnapshot() throws IOException {
+        Path file = directory.resolve("foods.snapshot");
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, 3)) {
+            writer.add(food(1L, 2L, "Chicken Breast", 3.6, 0.0, 31.0, 165.0));
+            writer.add(food(2L, null, "Cr\u00e8me fra\u00eeche", 40.0, 2.8, 2.4, 378.0));
+            writer.commit();
+        }
+
+        List<Food> foods = new ArrayList<>();
+        CatalogSnapshot.Header header = CatalogSnapshot.read(file, foods::add);
+
+        assertThat(header).isEqualTo(new CatalogSnapshot.Header(3, 2));
+        assertThat(CatalogSnapshot.generation(file)).isEqualTo(3);
+        assertThat(foods).extracting(Food::getId, Food::getVersion, Food::getName, Food::getNameKey, Food::getCalories)
+                .containsExactly(
+                        tuple(1L, 2L, "Chicken Breast", "chicken breast", 165.0),
+                        tuple(2L, null, "Cr\u00e8me fra\u00eeche", "cr\u00e8me fra\u00eeche", 378.0));
+        assertThat(Files.exists(directory.resolve("foods.snapshot.tmp"))).isFalse();
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshotWhenWriteIsNotCommitted() throws IOException {
+        Path file = directory.resolve("foods.snapshot");
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, 1)) {
+            writer.add(food(1L, 0L, "Apple", 0.2, 25.0, 0.3, 95.0));
+            writer.commit();
+        }
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, 2)) {
+            writer.add(food(2L, 0L, "Banana", 0.3, 23.0, 1.1, 89.0));
+        }
+
+        assertThat(CatalogSnapshot.read(file, food -> {
+        }).generation()).isEqualTo(1);
+        assertThat(Files.exists(directory.resolve("foods.snapshot.tmp"))).isFalse();
+    }
+
+    @Test
+    void shouldRejectCorruptSnapshot() throws IOException {
+        Path file = directory.resolve("foods.snapshot");
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, 1)) {
+            writer.add(food(1L, 0L, "Apple", 0.2, 25.0, 0.3, 95.0));
+            writer.commit();
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(30);
+            raw.write(0x7F);
+        }
+
+        assertThatThrownBy(() -> CatalogSnapshot.read(file, food -> {
+        })).isInstanceOf(IOException.class).hasMessageContaining("checksum mismatch");
+    }
+
+    @Test
+    void shouldReplayChangeLogInOrderAndDropTornTail() throws IOException {
+        Path file = directory.resolve("foods-1.log");
+        Food apple = food(1L, 0L, "Apple", 0.2, 25.0, 0.3, 95.0);
+        try (FoodChangeLog changeLog = FoodChangeLog.open(file, false)) {
+            changeLog.append(FoodChangedEvent.created(apple));
+            changeLog.append(FoodChangedEvent.updated(food(1L, 1L, "Green Apple", 0.2, 25.0, 0.3, 90.0)));
+            changeLog.append(FoodChangedEvent.created(food(2L, 0L, "Banana", 0.3, 23.0, 1.1, 89.0)));
+            changeLog.append(FoodChangedEvent.deleted(2L));
+        }
+        long intact = Files.size(file);
+        // A crash in the middle of an append leaves a partial record behind
+        Files.write(file, new byte[] { 0, 0, 0, 42, 1, 2 }, StandardOpenOption.APPEND);
+
+        Map<Long, Food> latest = new LinkedHashMap<>();
+        assertThat(FoodChangeLog.replay(file, latest::put)).isEqualTo(intact);
+        assertThat(latest).containsOnlyKeys(1L, 2L).containsEntry(2L, null);
+        assertThat(latest.get(1L).getName()).isEqualTo("Green Apple");
+        assertThat(latest.get(1L).getVersion()).isEqualTo(1L);
+
+        // Reopening cuts the torn tail off, so new records follow the last intact one
+        try (FoodChangeLog changeLog = FoodChangeLog.open(file, false)) {
+            changeLog.append(FoodChangedEvent.created(food(3L, 0L, "Oat", 6.9, 66.0, 16.9, 389.0)));
+        }
+        latest.clear();
+        FoodChangeLog.replay(file, latest::put);
+        assertThat(latest).containsOnlyKeys(1L, 2L, 3L);
+    }
+
+    @Test
+    void shouldKeepTheHighestVersionOfChangesLoggedOutOfOrder() throws IOException {
+        Path file = directory.resolve("foods-1.log");
+        try (FoodChangeLog changeLog = FoodChangeLog.open(file, false)) {
+            changeLog.append(FoodChangedEvent.updated(food(1L, 6L, "Apple v6", 0.2, 25.0, 0.3, 95.0)));
+            changeLog.append(FoodChangedEvent.updated(food(1L, 5L, "Apple v5", 0.2, 25.0, 0.3, 95.0)));
+            changeLog.append(FoodChangedEvent.deleted(2L));
+            changeLog.append(FoodChangedEvent.updated(food(2L, 3L, "Banana", 0.3, 23.0, 1.1, 89.0)));
+        }
+
+        Map<Long, Food> latest = new LinkedHashMap<>();
+        FoodChangeLog.replay(file, (id, food) -> CatalogPersistence.mergeChange(latest, id, food));
+        assertThat(latest).containsOnlyKeys(1L, 2L).containsEntry(2L, null);
+        assertThat(latest.get(1L).getName()).isEqualTo("Apple v6");
+    }
+
+    private static Food food(Long id, Long version, String name, double fat, double carbohydrates, double protein,
+            double calories) {
+        Food food = new Food(name, fat, carbohydrates, protein, calories);
+        food.setId(id);
+        food.setVersion(version);
+        return food;
+    }
+}